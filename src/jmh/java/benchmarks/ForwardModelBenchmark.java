@@ -0,0 +1,90 @@
+package benchmarks;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks of the three calls that dominate the cost of search-based agents:
+ * AbstractForwardModel.next(), AbstractGameState.copy(playerId) and computeAvailableActions().
+ * <p>
+ * Each is measured on the same fixed set of states sampled from random playouts (see SampledStates), cycling
+ * through them so that one benchmark covers the early, middle and late game.
+ * The 'game' parameter is filled with every GameType by RunBenchmarks, or can be given with -p game=Dominion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForwardModelBenchmark {
+
+    @Param({})
+    public String game;
+
+    @Param({"64"})
+    public int nStates;
+
+    @Param({"7"})
+    public int sampleInterval;
+
+    SampledStates samples;
+    int index;
+
+    @Setup(Level.Trial)
+    public void sampleStates() {
+        samples = new SampledStates(GameType.valueOf(game), nStates, sampleInterval, 42);
+        index = 0;
+    }
+
+    private int nextIndex() {
+        index = (index + 1) % samples.size();
+        return index;
+    }
+
+    @Benchmark
+    public AbstractGameState copy() {
+        AbstractGameState state = samples.states.get(nextIndex());
+        return state.copy(state.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public List<AbstractAction> computeAvailableActions() {
+        int i = nextIndex();
+        return samples.forwardModels.get(i).computeAvailableActions(samples.states.get(i));
+    }
+
+    /**
+     * next() changes the state, so needs a fresh copy of it for every call. This is made in a Level.Invocation setup,
+     * which has a small fixed overhead per call that matters for games where next() is very cheap, so compare
+     * results between runs rather than between games.
+     */
+    @State(Scope.Thread)
+    public static class NextInput {
+        int index;
+        AbstractGameState state;
+        AbstractAction action;
+        AbstractForwardModel forwardModel;
+
+        @Setup(Level.Invocation)
+        public void prepare(ForwardModelBenchmark benchmark) {
+            SampledStates samples = benchmark.samples;
+            index = (index + 1) % samples.size();
+            state = samples.states.get(index).copy();
+            action = samples.chosen.get(index).copy();
+            forwardModel = samples.forwardModels.get(index);
+        }
+    }
+
+    @Benchmark
+    public AbstractGameState next(NextInput input) {
+        input.forwardModel.next(input.state, input.action);
+        return input.state;
+    }
+}
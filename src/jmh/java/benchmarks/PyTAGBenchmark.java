@@ -0,0 +1,88 @@
+package benchmarks;
+
+import core.AbstractPlayer;
+import core.PyTAG;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+import players.python.PythonAgent;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PyTAG steps per second in self-play (every player is a PythonAgent) and against built-in random opponents, both
+ * with (RandomCopy) and without (Random) the redacted copy of the game state that is made for each opponent decision.
+ * Each step takes a random legal action, and the environment is reset when an episode ends.
+ * <p>
+ * This has its own 'environment' parameter rather than 'game', as only games with an action tree can be used; give
+ * it with -p environment=LoveLetter,Diamant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PyTAGBenchmark {
+
+    // A RandomPlayer that asks for its own copy of the game state, as every player did before needsObservation()
+    static class CopyingRandomPlayer extends RandomPlayer {
+        CopyingRandomPlayer(Random rnd) {
+            super(rnd);
+        }
+
+        @Override
+        public boolean needsObservation() {
+            return true;
+        }
+    }
+
+    @Param({"TicTacToe", "LoveLetter", "Stratego", "Diamant"})
+    public String environment;
+
+    @Param({"SelfPlay", "RandomCopy", "Random"})
+    public String opponents;
+
+    @Param({"2"})
+    public int nPlayers;
+
+    PyTAG env;
+    Random rnd;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        GameType gameType = GameType.valueOf(environment);
+        int players = Math.min(gameType.getMaxPlayers(), Math.max(nPlayers, gameType.getMinPlayers()));
+        List<AbstractPlayer> agents = new ArrayList<>();
+        agents.add(new PythonAgent());
+        for (int p = 1; p < players; p++) {
+            switch (opponents) {
+                case "SelfPlay":
+                    agents.add(new PythonAgent());
+                    break;
+                case "RandomCopy":
+                    agents.add(new CopyingRandomPlayer(new Random(p)));
+                    break;
+                case "Random":
+                    agents.add(new RandomPlayer(new Random(p)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown opponents : " + opponents);
+            }
+        }
+        env = new PyTAG(gameType, null, agents, 42, false);
+        rnd = new Random(42);
+        env.reset();
+    }
+
+    @Benchmark
+    public int step() throws Exception {
+        env.step(env.sampleRNDAction(env.getActionMask(), rnd));
+        if (env.isDone())
+            env.reset();
+        return env.getTick();
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import core.Game;
+import core.RolloutRunner;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uniformly random playouts to the end of the game (or maxLength actions) with RolloutRunner, from the start of
+ * a game. The score is playouts per second.
+ * The 'game' parameter is filled with every GameType by RunBenchmarks, or can be given with -p game=Dominion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RolloutBenchmark {
+
+    @Param({})
+    public String game;
+
+    @Param({"0"})
+    public int maxLength;
+
+    @Param({"true"})
+    public boolean copyActions;
+
+    Game gameInstance;
+    RolloutRunner runner;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GameType gameType = GameType.valueOf(game);
+        int nPlayers = Math.min(gameType.getMaxPlayers(), Math.max(2, gameType.getMinPlayers()));
+        gameInstance = gameType.createGameInstance(nPlayers, 42);
+        runner = new RolloutRunner(gameInstance.getForwardModel(), new Random(42));
+        runner.setMaxLength(maxLength);
+        runner.setCopyActions(copyActions);
+    }
+
+    @Benchmark
+    public double[] playout() {
+        return runner.run(gameInstance.getGameState(), 1);
+    }
+}
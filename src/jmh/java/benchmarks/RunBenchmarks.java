@@ -0,0 +1,52 @@
+package benchmarks;
+
+import games.GameType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of the benchmarks jar. This accepts the normal JMH command line options (for example -rf json -rff
+ * results.json to save the results, or -p game=Dominion,Uno to restrict the games). If no games are specified,
+ * then every GameType that we can sample states from is included (StateCopyBenchmark has its own list of long games
+ * instead). If no benchmarks are specified, all of them are run.
+ */
+public class RunBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (!commandLine.getParameter("game").hasValue()) {
+            List<String> games = new ArrayList<>();
+            for (GameType gameType : GameType.values()) {
+                try {
+                    new SampledStates(gameType, 1, 1, 42);
+                    games.add(gameType.name());
+                } catch (RuntimeException | AssertionError e) {
+                    System.out.println("Skipping " + gameType.name() + " : " + e.getMessage());
+                }
+            }
+            builder.param("game", games.toArray(new String[0]));
+        }
+        if (commandLine.getIncludes().isEmpty())
+            builder.include(RunBenchmarks.class.getPackage().getName() + "\\.");
+        Options options = builder.build();
+        Runner runner = new Runner(options);
+        if (commandLine.shouldList() || commandLine.shouldListWithParams())
+            runner.list();
+        else
+            runner.run();
+    }
+}
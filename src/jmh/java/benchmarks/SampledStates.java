@@ -0,0 +1,72 @@
+package benchmarks;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A fixed set of (non-terminal) game states taken from uniformly random playouts of a game, together with the
+ * actions available in each of them, and the action that was taken in the playout. The same seed always gives the
+ * same set of states.
+ */
+public class SampledStates {
+
+    public final GameType gameType;
+    // the forward model of the game each state came from
+    public final List<AbstractForwardModel> forwardModels = new ArrayList<>();
+    public final List<AbstractGameState> states = new ArrayList<>();
+    public final List<List<AbstractAction>> actions = new ArrayList<>();
+    public final List<AbstractAction> chosen = new ArrayList<>();
+
+    /**
+     * @param gameType       - game to sample from
+     * @param nStates        - number of states to keep
+     * @param sampleInterval - a state is kept every sampleInterval ticks of a playout
+     * @param seed           - seed for the games and the random choice of actions
+     */
+    public SampledStates(GameType gameType, int nStates, int sampleInterval, long seed) {
+        this.gameType = gameType;
+        Random rnd = new Random(seed);
+        int nPlayers = Math.min(gameType.getMaxPlayers(), Math.max(2, gameType.getMinPlayers()));
+        int playouts = 0;
+        while (states.size() < nStates) {
+            if (playouts++ > 10 * nStates)
+                throw new AssertionError("Unable to sample " + nStates + " states from " + gameType);
+            Game game = gameType.createGameInstance(nPlayers, rnd.nextLong());
+            playout(game.getGameState(), game.getForwardModel(), rnd, nStates, sampleInterval);
+        }
+    }
+
+    private void playout(AbstractGameState state, AbstractForwardModel fm, Random rnd, int nStates, int sampleInterval) {
+        while (state.isNotTerminal() && states.size() < nStates) {
+            try {
+                List<AbstractAction> available = fm.computeAvailableActions(state);
+                if (available.isEmpty())
+                    return;
+                AbstractAction action = available.get(rnd.nextInt(available.size()));
+                AbstractGameState sample = state.getGameTick() % sampleInterval == 0 ? state.copy() : null;
+                fm.next(state, action);
+                // we only keep states for which the chosen action could be applied
+                if (sample != null) {
+                    forwardModels.add(fm);
+                    states.add(sample);
+                    actions.add(available);
+                    chosen.add(action);
+                }
+            } catch (RuntimeException | AssertionError e) {
+                // a few games can still fail under uniformly random play; we just move on to the next playout
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return states.size();
+    }
+}
@@ -0,0 +1,74 @@
+package benchmarks;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of AbstractGameState.copy(playerId) as a game goes on. With the history held in a PersistentLog this
+ * should stay roughly flat, rather than growing with the number of actions taken, so compare the results for
+ * different values of 'tick'.
+ * <p>
+ * The state is taken from the first uniformly random playout that reaches the given tick; playouts that end (or
+ * reach an illegal state) before then are skipped, as in SampledStates. The default ticks are ones that random
+ * playouts of both default games reach (two player games of Dominion last about 200 to 350 ticks).
+ * This has its own 'longGame' parameter, so that it is not run on the short games RunBenchmarks puts in 'game';
+ * the games can be given with -p longGame=Dominion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateCopyBenchmark {
+
+    static final int MAX_PLAYOUTS = 100;
+
+    @Param({"TerraformingMars", "Dominion"})
+    public String longGame;
+
+    @Param({"0", "100", "200", "300"})
+    public int tick;
+
+    AbstractGameState state;
+
+    @Setup(Level.Trial)
+    public void playToTick() {
+        for (int playout = 0; playout < MAX_PLAYOUTS; playout++) {
+            try {
+                if (playToTick(42 + playout))
+                    return;
+            } catch (RuntimeException | AssertionError e) {
+                // some games can reach an illegal state in a random playout; we just try the next one
+            }
+        }
+        throw new IllegalStateException("No random playout of " + longGame + " reached tick " + tick + " in " + MAX_PLAYOUTS + " attempts");
+    }
+
+    private boolean playToTick(long seed) {
+        Game gameInstance = GameType.valueOf(longGame).createGameInstance(2, seed);
+        AbstractForwardModel forwardModel = gameInstance.getForwardModel();
+        state = gameInstance.getGameState();
+        Random rnd = new Random(seed);
+        while (state.getGameTick() < tick) {
+            if (!state.isNotTerminal())
+                return false;
+            List<AbstractAction> actions = forwardModel.computeAvailableActions(state);
+            forwardModel.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+        return true;
+    }
+
+    @Benchmark
+    public AbstractGameState copy() {
+        return state.copy(state.getCurrentPlayer());
+    }
+}
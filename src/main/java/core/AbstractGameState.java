@@ -4,6 +4,7 @@ import core.actions.AbstractAction;
 import core.actions.LogEvent;
 import core.components.Area;
 import core.components.Component;
+import core.components.ComponentIndex;
 import core.components.PartialObservableDeck;
 import core.interfaces.IComponentContainer;
 import core.interfaces.IExtendedSequence;
@@ -13,6 +14,7 @@ import evaluation.listeners.IGameListener;
 import evaluation.metrics.Event;
 import games.GameType;
 import utilities.ElapsedCpuChessTimer;
+import utilities.PersistentLog;
 
 import java.util.*;
 import java.util.function.BiFunction;
@@ -39,6 +41,8 @@ public abstract class AbstractGameState {
     // Game being played
     protected final GameType gameType = _getGameType();
     private Area allComponents;
+    // Lookup from componentID, built on the first call to getComponentById(); null means it needs to be (re)built
+    private ComponentIndex componentIndex;
 
     // Game tick, number of iterations of game loop
     private int tick = 0;
@@ -53,8 +57,9 @@ public abstract class AbstractGameState {
     protected ElapsedCpuChessTimer[] playerTimer;
 
     // A record of all actions taken to reach this game state
-    private List<AbstractAction> history = new ArrayList<>();
-    private List<String> historyText = new ArrayList<>();
+    // These are immutable and shared with all copies of the state, so a copy does not need to duplicate them
+    private PersistentLog<AbstractAction> history = PersistentLog.empty();
+    private PersistentLog<String> historyText = PersistentLog.empty();
 
     // Status of the game, and status for each player (in cooperative games, the game status is also each player's status)
     protected CoreConstants.GameResult gameStatus;
@@ -89,11 +94,12 @@ public abstract class AbstractGameState {
      */
     protected void reset() {
         allComponents = new Area(-1, "All Components");
+        componentIndex = null;
         gameStatus = GAME_ONGOING;
         playerResults = new CoreConstants.GameResult[getNPlayers()];
         Arrays.fill(playerResults, GAME_ONGOING);
-        history = new ArrayList<>();
-        historyText = new ArrayList<>();
+        history = PersistentLog.empty();
+        historyText = PersistentLog.empty();
         playerTimer = new ElapsedCpuChessTimer[getNPlayers()];
         tick = 0;
         turnOwner = 0;
@@ -161,9 +167,9 @@ public abstract class AbstractGameState {
     /**
      * @return All actions that have been executed on this state since reset()/initialisation
      */
-    public List<AbstractAction> getHistory() { return new ArrayList<>(history);}
+    public List<AbstractAction> getHistory() { return history.toList();}
     public List<String> getHistoryAsText() {
-        return new ArrayList<>(historyText);
+        return historyText.toList();
     }
     public int getGameID() {
         return gameID;
@@ -233,11 +239,14 @@ public abstract class AbstractGameState {
     }
     public final int getGameTick() {return tick;}
     public final Component getComponentById(int id) {
-        Component c = allComponents.getComponent(id);
+        if (componentIndex == null)
+            componentIndex = ComponentIndex.of(_getAllComponents());
+        Component c = componentIndex.get(id);
         if (c == null) {
+            // the components may have changed since the index was built
             try {
-                addAllComponents();
-                c = allComponents.getComponent(id);
+                componentIndex = ComponentIndex.of(_getAllComponents());
+                c = componentIndex.get(id);
             } catch (Exception ignored) {
             }  // Can crash from concurrent modifications if running with GUI TODO: this is an ugly fix
         }
@@ -245,7 +254,11 @@ public abstract class AbstractGameState {
     }
 
     public final Area getAllComponents() {
-        addAllComponents(); // otherwise the list of allComponents is only ever updated when we copy the state!
+        // this is rebuilt each time, as the components of the state may have changed since the last call
+        // (and some callers rely on this to refresh the index used by getComponentById)
+        componentIndex = null;
+        allComponents.clear();
+        allComponents.putComponents(_getAllComponents());
         return allComponents;
     }
 
@@ -261,11 +274,11 @@ public abstract class AbstractGameState {
     }
 
     /**
-     * Adds all components given by the game to the allComponents map in the correct way, first clearing the map.
+     * Marks the index used by getComponentById() as out of date, so that it is rebuilt from _getAllComponents()
+     * on the next lookup. This should be called after any change that adds or replaces components in the state.
      */
     protected final void addAllComponents() {
-        allComponents.clear();
-        allComponents.putComponents(_getAllComponents());
+        componentIndex = null;
     }
 
     /**
@@ -306,8 +319,8 @@ public abstract class AbstractGameState {
         s.rnd = playerId == -1 ? rnd : new Random(System.currentTimeMillis());
 
         if (!coreGameParameters.competitionMode) {
-            s.history = new ArrayList<>(history);
-            s.historyText = new ArrayList<>(historyText);
+            s.history = history;
+            s.historyText = historyText;
             // we do not copy individual actions in history, as these are now dead and should not change
             // History is for debugging and spectation of games. There is a risk that History might contain information
             // formally hidden to some participants. For this reason, in COMPETITION_MODE we explicitly do not copy
@@ -326,8 +339,8 @@ public abstract class AbstractGameState {
             s.playerTimer[i] = playerTimer[i].copy();
         }
 
-        // Update the list of components for ID matching in actions.
-        s.addAllComponents();
+        // The component index for ID matching in actions is only built if it is needed (see getComponentById)
+        s.componentIndex = null;
         return s;
     }
 
@@ -337,8 +350,8 @@ public abstract class AbstractGameState {
      * @param action The action that has just been applied (or is about to be applied) to the game state
      */
     protected final void recordAction(AbstractAction action, int player) {
-        history.add(action);
-        historyText.add("Player " + player + " : " + action.getString(this));
+        history = history.append(action);
+        historyText = historyText.append("Player " + player + " : " + action.getString(this));
     }
 
 
@@ -365,7 +378,7 @@ public abstract class AbstractGameState {
     }
 
     public void recordHistory(String history) {
-        historyText.add(history);
+        historyText = historyText.append(history);
     }
 
     /* Methods dealing with ExtendedActions and the actionStack */
@@ -167,6 +167,18 @@ public abstract class AbstractPlayer {
     public void onEvent(Event event) {
     }
 
+    /**
+     * Override this to return false if the player never looks at the game state it is given, but only at the list
+     * of actions (for example if it chooses one at random). An environment can then pass the player the game state
+     * itself, rather than making a redacted copy of it for every decision.
+     * A player that returns false must not modify the state it is given.
+     *
+     * @return true if the player needs its own copy of the game state
+     */
+    public boolean needsObservation() {
+        return true;
+    }
+
     public abstract AbstractPlayer copy();
 
     // override this to provide information on the last decision taken
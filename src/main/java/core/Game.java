@@ -585,7 +585,12 @@ public class Game {
             }
             // We publish an ACTION_CHOSEN message before we implement the action, so that observers can record the state that led to the decision
             AbstractAction finalAction = action;
-            listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.ACTION_CHOSEN, gameState, finalAction, activePlayer)));
+            Event.GameStatistics statistics = getStatistics(observedActions.size(), false);
+            listeners.forEach(l -> {
+                Event e = Event.createEvent(Event.GameEvent.ACTION_CHOSEN, gameState, finalAction, activePlayer);
+                e.statistics = statistics;
+                l.onEvent(e);
+            });
 
         } else {
             currentPlayer.registerUpdatedObservation(observation);
@@ -616,7 +621,12 @@ public class Game {
         // We publish an ACTION_TAKEN message once the action is taken so that observers can record the result of the action
         // (such as the next player)
         AbstractAction finalAction1 = action;
-        listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.ACTION_TAKEN, gameState, finalAction1.copy(), activePlayer)));
+        Event.GameStatistics statistics = getStatistics(observedActions.size(), false);
+        listeners.forEach(l -> {
+            Event e = Event.createEvent(Event.GameEvent.ACTION_TAKEN, gameState, finalAction1.copy(), activePlayer);
+            e.statistics = statistics;
+            l.onEvent(e);
+        });
 
         if (debug) System.out.printf("Finishing oneAction for player %s%n", activePlayer);
         return action;
@@ -633,7 +643,12 @@ public class Game {
 
         // Perform any end of game computations as required by the game
         forwardModel.endGame(gameState);
-        listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, gameState)));
+        Event.GameStatistics statistics = getStatistics(-1, true);
+        listeners.forEach(l -> {
+            Event e = Event.createEvent(Event.GameEvent.GAME_OVER, gameState);
+            e.statistics = statistics;
+            l.onEvent(e);
+        });
         if (gameState.coreGameParameters.recordEventHistory) {
             gameState.recordHistory(Event.GameEvent.GAME_OVER.name());
             for (int i = 0; i < gameState.getNPlayers(); i++) {
@@ -668,6 +683,18 @@ public class Game {
         return forwardModel;
     }
 
+    /**
+     * The statistics for an event, so that listeners do not need to look at the Game (see Event.statistics).
+     *
+     * @param actionSpaceSize - the number of actions available for the current decision, or -1
+     * @param allDecisions    - if true, include the action space size of every decision in the game so far
+     * @return - statistics recorded so far
+     */
+    private Event.GameStatistics getStatistics(int actionSpaceSize, boolean allDecisions) {
+        return new Event.GameStatistics(copyTime, actionComputeTime, nextTime, agentTime, actionSpaceSize,
+                nActionsPerTurnSum, allDecisions ? new ArrayList<>(this.actionSpaceSize) : null);
+    }
+
     /**
      * Retrieves agent timer value, i.e. how long the AI players took to make decisions in this game.
      *
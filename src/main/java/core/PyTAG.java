@@ -89,6 +89,10 @@ public class PyTAG {
     private Random seedRandom; // Random used for setting the seed for each episode
     private long lastSeed;
 
+    private boolean useSharedBuffer; // Whether each decision is published to sharedBuffer
+    private String sharedBufferPath; // File to map sharedBuffer to (or null for a direct ByteBuffer)
+    private PyTAGBuffer sharedBuffer;
+
     public static String getSupportedGames(){
         /* returns the supported games with the corresponding feature extractors */
         String supportedGames = "";
@@ -177,6 +181,14 @@ public class PyTAG {
         else throw new Exception("Observation vectoriser function is not implemented");
     }
 
+    // Writes the observation vector for the current player into buffer (from offset)
+    // This still makes a redacted copy of the state, and the feature vector is still a new array (IStateFeatureVector
+    // has no way to write into a buffer); only the array passed back to the caller is saved
+    public void writeObservationVector(double[] buffer, int offset) throws Exception {
+        double[] obs = getObservationVector();
+        System.arraycopy(obs, 0, buffer, offset, obs.length);
+    }
+
     // Gets the action space size as an integer
     public int getActionSpace(){
         return leaves.size();
@@ -190,9 +202,45 @@ public class PyTAG {
 
     // Gets the action mask as a boolean array
     public int[] getActionMask() {
-        return leaves.stream()
-                .mapToInt(ActionTreeNode::getValue)
-                .toArray();
+        return root.getLeafMask();
+    }
+
+    // Writes the action mask into buffer (from offset), rather than returning a new array
+    public void writeActionMask(int[] buffer, int offset) {
+        root.writeLeafMask(buffer, offset);
+    }
+
+    // Publishes the observation, rewards and action mask into a PyTAGBuffer after each reset() and step(), in
+    // addition to the functions above. The buffer is mapped to path (or is a direct ByteBuffer if path is null), and
+    // is created on the next reset(), once the size of the action space is known
+    public void useSharedBuffer(String path) {
+        closeSharedBuffer();
+        this.useSharedBuffer = true;
+        this.sharedBufferPath = path;
+    }
+
+    // Gets the shared buffer (null if useSharedBuffer() has not been called, or reset() not called since)
+    public PyTAGBuffer getSharedBuffer() {
+        return sharedBuffer;
+    }
+
+    // Stops publishing to the shared buffer, and releases it
+    public void closeSharedBuffer() {
+        if (sharedBuffer != null) sharedBuffer.close();
+        this.sharedBuffer = null;
+        this.useSharedBuffer = false;
+    }
+
+    private void publish() {
+        if (!useSharedBuffer) return;
+        if (sharedBuffer == null)
+            sharedBuffer = new PyTAGBuffer(players.size(), getObservationSpace(), getActionSpace(), sharedBufferPath);
+        double[] obs = null;
+        if (stateVectoriser != null) {
+            AbstractGameState gs = gameState.copy(gameState.getCurrentPlayer());
+            obs = stateVectoriser.featureVector(gs, gs.getCurrentPlayer());
+        }
+        sharedBuffer.publish(gameState, obs, root);
     }
 
     // gets the whole action tree as an array (tree can be reconstructed using the getTreeShape() function)
@@ -228,7 +276,6 @@ public class PyTAG {
         this.lastSeed = seedRandom.nextLong();
         gameState.gameParameters.setRandomSeed(this.lastSeed);
         this.forwardModel = game.getForwardModel();
-        this.availableActions = forwardModel.computeAvailableActions(gameState);
 
         // execute the game if needed until Python agent is required to make a decision
         boolean isTerminal = nextDecision();
@@ -243,6 +290,7 @@ public class PyTAG {
         this.availableActions = forwardModel.computeAvailableActions(observation);
         this.root = ((ITreeActionSpace)this.forwardModel).updateActionTree(this.root, this.gameState);
         this.leaves = root.getLeafNodes();
+        publish();
     }
 
     public int getPlayerID(){
@@ -257,24 +305,31 @@ public class PyTAG {
         return gameState.getGameScore(gameState.getCurrentPlayer());
     }
 
+    public double getReward(int playerID){
+        return gameState.getGameScore(playerID);
+    }
+
     public List<AbstractAction> getActions(){
         return availableActions;
     }
 
     // Executes game loop until RL agent is required to make a decision
     // returns true if game is over
+    // Players that do not need an observation (see AbstractPlayer.needsObservation()) are given the game state itself
+    // rather than a redacted copy, unless they have decorators (which may look at the state)
     public boolean nextDecision(){
         int activePlayer = gameState.getCurrentPlayer();
         AbstractPlayer currentPlayer = players.get(activePlayer);
         while ( !(currentPlayer instanceof PythonAgent)){
-            AbstractGameState observation = gameState.copy(activePlayer);
-            List<core.actions.AbstractAction> observedActions = forwardModel.computeAvailableActions(observation);
-
             if (isDone()){
                 // game is over
                 return true;
             }
 
+            boolean redact = currentPlayer.needsObservation() || !currentPlayer.decorators.isEmpty();
+            AbstractGameState observation = redact ? gameState.copy(activePlayer) : gameState;
+            List<core.actions.AbstractAction> observedActions = forwardModel.computeAvailableActions(observation);
+
             // Start the timer for this decision
             gameState.playerTimer[activePlayer].resume();
 
@@ -284,12 +339,15 @@ public class PyTAG {
                 if (observedActions.size() == 1 && (!(currentPlayer instanceof HumanGUIPlayer) || observedActions.get(0) instanceof DoNothing)) {
                     // Can only do 1 action, so do it.
                     action = observedActions.get(0);
-                    currentPlayer.registerUpdatedObservation(observation);
+                    if (redact) currentPlayer.registerUpdatedObservation(observation);
                 } else {
                     // Get action from player, and time it
+                    // (getAction() gives the state the player's Random, which must not replace the game's own)
+                    Random gameRnd = gameState.rnd;
                     action = currentPlayer.getAction(observation, observedActions);
+                    gameState.rnd = gameRnd;
                 }
-            } else {
+            } else if (redact) {
                 currentPlayer.registerUpdatedObservation(observation);
             }
 
@@ -327,6 +385,7 @@ public class PyTAG {
         if (isDone()){
             // check if the game has just ended
             // game is over
+            publish();
             return gameState.copy(gameState.getCurrentPlayer());
         }
 
@@ -334,6 +393,7 @@ public class PyTAG {
         boolean isTerminal = nextDecision();
         if (isTerminal){
             // game is over
+            publish();
             return gameState.copy(gameState.getCurrentPlayer());
         }
 
@@ -344,6 +404,7 @@ public class PyTAG {
         this.availableActions = forwardModel.computeAvailableActions(observation);
         this.root = ((ITreeActionSpace)this.forwardModel).updateActionTree(this.root, this.gameState);
         this.leaves = root.getLeafNodes();
+        publish();
 
         return observation;
     }
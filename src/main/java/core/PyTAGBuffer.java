@@ -0,0 +1,220 @@
+package core;
+
+import org.json.simple.JSONObject;
+import utilities.ActionTreeNode;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A fixed-layout region of memory into which PyTAG publishes the observation, rewards and action mask after each
+ * reset() and step(), so that a Python client can read them through numpy views instead of having new arrays
+ * marshalled across the bridge for every step.
+ * <p>
+ * The region is either a direct ByteBuffer (for bridges that can share the memory of one, such as JPype), or a
+ * memory-mapped file that any process can map. All values are little-endian. The layout is (in bytes):
+ * <pre>
+ *     0    int     MAGIC
+ *     4    int     VERSION
+ *     8    int     number of players
+ *     12   int     observation size (IStateFeatureVector.names().length of the game's FeatureExtractors entry)
+ *     16   int     action space size (the number of leaves in the game's action tree)
+ *     20   int     player to take the next decision
+ *     24   long    sequence number
+ *     32   int     1 if the game is over, else 0
+ *     36   int     (padding)
+ *     40   double  the score of each player
+ *     ...  double  the observation vector
+ *     ...  int     the action mask
+ * </pre>
+ * The offsets of the arrays are also given by getLayoutJSON(). The sequence number is odd while a write is in
+ * progress, and is increased to the next even number once the write is complete. Both writes of the sequence number
+ * are release stores, and a release fence separates the first from the payload, so a reader that sees an even
+ * number also sees the whole payload written before it.
+ * <p>
+ * To get a consistent copy, a reader should: load the sequence number with acquire semantics (getSequenceAcquire()
+ * in Java; in numpy an ordinary load on x86, or a load followed by an acquire fence elsewhere) and retry if it is
+ * odd; copy the values it needs; issue an acquire fence (VarHandle.acquireFence()); and load the sequence number
+ * again, retrying if it has changed.
+ */
+public class PyTAGBuffer {
+
+    public static final int MAGIC = 0x47415450; // "PTAG"
+    public static final int VERSION = 1;
+    static final int HEADER_BYTES = 40;
+    static final int SEQUENCE_OFFSET = 24;
+    private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buffer;
+    private final RandomAccessFile file;
+    private final int nPlayers, observationSize, actionSpace;
+    private final int rewardsOffset, observationOffset, maskOffset, size;
+    private long sequence;
+    // true if the whole mask needs to be written on the next publish (rather than just the dirty leaves)
+    private boolean maskStale = true;
+
+    /**
+     * Creates a direct ByteBuffer with the layout for the given sizes
+     */
+    public PyTAGBuffer(int nPlayers, int observationSize, int actionSpace) {
+        this(nPlayers, observationSize, actionSpace, null);
+    }
+
+    /**
+     * Creates a memory-mapped file with the layout for the given sizes (or a direct ByteBuffer if path is null).
+     * Any existing file at path is overwritten.
+     */
+    public PyTAGBuffer(int nPlayers, int observationSize, int actionSpace, String path) {
+        this.nPlayers = nPlayers;
+        this.observationSize = observationSize;
+        this.actionSpace = actionSpace;
+        rewardsOffset = HEADER_BYTES;
+        observationOffset = rewardsOffset + 8 * nPlayers;
+        maskOffset = observationOffset + 8 * observationSize;
+        size = maskOffset + 4 * actionSpace;
+        if (path == null) {
+            file = null;
+            buffer = ByteBuffer.allocateDirect(size);
+        } else {
+            try {
+                file = new RandomAccessFile(path, "rw");
+                file.setLength(size);
+                buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException e) {
+                throw new AssertionError("Unable to map PyTAG buffer to " + path, e);
+            }
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, nPlayers);
+        buffer.putInt(12, observationSize);
+        buffer.putInt(16, actionSpace);
+        LONG_VIEW.setRelease(buffer, SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * Writes the current decision into the buffer
+     *
+     * @param observation - the observation vector of the player to act (ignored if the observation size is 0)
+     * @param root        - the root of the action tree, whose leaf values are written as the action mask; the mask
+     *                    is all zeros if the game is over. Only the leaves marked as dirty in the tree are copied (and
+     *                    the tree is then marked as clean), unless the whole mask needs to be written.
+     */
+    void publish(AbstractGameState state, double[] observation, ActionTreeNode root) {
+        int leaves = root.getLeafNodes().size();
+        if (leaves != actionSpace)
+            throw new AssertionError("Action space has changed size from " + actionSpace + " to " + leaves);
+        if (observationSize > 0 && observation.length != observationSize)
+            throw new AssertionError("Observation has changed size from " + observationSize + " to " + observation.length);
+        boolean done = !state.isNotTerminal();
+        LONG_VIEW.setRelease(buffer, SEQUENCE_OFFSET, ++sequence);
+        // the odd sequence number must be visible before any of the payload
+        VarHandle.storeStoreFence();
+        buffer.putInt(20, state.getCurrentPlayer());
+        buffer.putInt(32, done ? 1 : 0);
+        for (int p = 0; p < nPlayers; p++)
+            buffer.putDouble(rewardsOffset + 8 * p, state.getGameScore(p));
+        for (int i = 0; i < observationSize; i++)
+            buffer.putDouble(observationOffset + 8 * i, observation[i]);
+        if (done) {
+            for (int i = 0; i < actionSpace; i++)
+                buffer.putInt(maskOffset + 4 * i, 0);
+            maskStale = true;
+        } else {
+            int from = maskStale ? 0 : root.getDirtyFrom();
+            int to = maskStale ? actionSpace : root.getDirtyTo();
+            for (int i = from; i < to; i++)
+                buffer.putInt(maskOffset + 4 * i, root.getLeafValue(i));
+            root.clearDirty();
+            maskStale = false;
+        }
+        // (the release store keeps the payload before the even sequence number)
+        LONG_VIEW.setRelease(buffer, SEQUENCE_OFFSET, ++sequence);
+    }
+
+    /**
+     * @return the underlying buffer; this is shared, so should not be written to
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the sequence number as last published in the buffer, read with acquire semantics (for readers on
+     * other threads; see the class comment)
+     */
+    public long getSequenceAcquire() {
+        return (long) LONG_VIEW.getAcquire(buffer, SEQUENCE_OFFSET);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getRewardsOffset() {
+        return rewardsOffset;
+    }
+
+    public int getObservationOffset() {
+        return observationOffset;
+    }
+
+    public int getMaskOffset() {
+        return maskOffset;
+    }
+
+    public double getReward(int playerID) {
+        return buffer.getDouble(rewardsOffset + 8 * playerID);
+    }
+
+    public double getObservation(int i) {
+        return buffer.getDouble(observationOffset + 8 * i);
+    }
+
+    public int getMask(int i) {
+        return buffer.getInt(maskOffset + 4 * i);
+    }
+
+    /**
+     * @return the sizes and byte offsets of the arrays in the buffer, so that a client can create views of them
+     */
+    @SuppressWarnings("unchecked")
+    public String getLayoutJSON() {
+        JSONObject json = new JSONObject();
+        json.put("version", VERSION);
+        json.put("size", size);
+        json.put("nPlayers", nPlayers);
+        json.put("observationSize", observationSize);
+        json.put("actionSpace", actionSpace);
+        json.put("playerOffset", 20);
+        json.put("sequenceOffset", SEQUENCE_OFFSET);
+        json.put("doneOffset", 32);
+        json.put("rewardsOffset", rewardsOffset);
+        json.put("observationOffset", observationOffset);
+        json.put("maskOffset", maskOffset);
+        return json.toJSONString();
+    }
+
+    /**
+     * Releases the mapped file (if there is one). The buffer should not be used afterwards.
+     */
+    public void close() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                throw new AssertionError("Unable to close PyTAG buffer", e);
+            }
+        }
+    }
+}
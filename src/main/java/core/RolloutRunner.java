@@ -0,0 +1,176 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.actions.ActionSpace;
+import core.interfaces.IStateHeuristic;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays many random (or policy-driven) playouts from a game state, for value estimation or to benchmark a game.
+ * <p>
+ * This does only what a playout needs: one copy of the state per playout, computeAvailableActions() and next() for
+ * each step, and an evaluation at the end. Unlike the rollouts in MCTS or RHEA, no record is kept of the actions
+ * taken, and the arrays of values are allocated once and reused. If the actions of a game are immutable (or are
+ * known not to be changed by next()) then setCopyActions(false) also skips the copy of each action before it is
+ * applied.
+ * <p>
+ * Statistics (number of playouts, actions, and time taken) are accumulated over all calls until resetStatistics().
+ * A RolloutRunner is not thread-safe; use one per thread.
+ */
+public class RolloutRunner {
+
+    private final AbstractForwardModel forwardModel;
+    private final Random rnd;
+    private AbstractPlayer policy;
+    private IStateHeuristic heuristic;
+    private ActionSpace actionSpace;
+    private int maxLength;
+    private boolean copyActions = true;
+
+    private double[] values = new double[0];
+    private double[] totals = new double[0];
+    private long playouts, actionsTaken, elapsedNanos;
+
+    /**
+     * @param forwardModel - forward model used for all playouts
+     * @param rnd          - used to pick actions when there is no policy
+     */
+    public RolloutRunner(AbstractForwardModel forwardModel, Random rnd) {
+        this.forwardModel = forwardModel;
+        this.rnd = rnd;
+    }
+
+    /**
+     * @param policy - player that picks every action in a playout; if null (the default) actions are picked
+     *               uniformly at random, without going through a player at all
+     */
+    public void setPolicy(AbstractPlayer policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * @param heuristic - used to value the final state of each playout; if null (the default) getHeuristicScore()
+     *                  of the state is used
+     */
+    public void setHeuristic(IStateHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    public void setActionSpace(ActionSpace actionSpace) {
+        this.actionSpace = actionSpace;
+    }
+
+    /**
+     * @param maxLength - maximum number of actions in a playout; 0 or less (the default) plays to the end of the game
+     */
+    public void setMaxLength(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @param copyActions - if false then actions are applied as they are returned by computeAvailableActions(),
+     *                    without copying them first. Only use this if next() never changes the actions of the game.
+     */
+    public void setCopyActions(boolean copyActions) {
+        this.copyActions = copyActions;
+    }
+
+    /**
+     * Plays one playout, changing the given state.
+     *
+     * @param state - state to play forward from; this is changed in place
+     * @return - the value of the final state for each player. This array is reused by the next call.
+     */
+    public double[] playout(AbstractGameState state) {
+        long start = System.nanoTime();
+        int length = 0;
+        while (state.isNotTerminal() && (maxLength <= 0 || length < maxLength)) {
+            List<AbstractAction> actions = actionSpace == null ?
+                    forwardModel.computeAvailableActions(state) :
+                    forwardModel.computeAvailableActions(state, actionSpace);
+            int nActions = actions.size();
+            if (nActions == 0)
+                throw new AssertionError("No actions available in playout at tick " + state.getGameTick());
+            AbstractAction action;
+            if (policy != null)
+                action = policy.getAction(state, actions);
+            else
+                action = nActions == 1 ? actions.get(0) : actions.get(rnd.nextInt(nActions));
+            forwardModel.next(state, copyActions ? action.copy() : action);
+            length++;
+        }
+        int nPlayers = state.getNPlayers();
+        if (values.length != nPlayers)
+            values = new double[nPlayers];
+        for (int p = 0; p < nPlayers; p++)
+            values[p] = heuristic == null ? state.getHeuristicScore(p) : heuristic.evaluateState(state, p);
+        playouts++;
+        actionsTaken += length;
+        elapsedNanos += System.nanoTime() - start;
+        return values;
+    }
+
+    /**
+     * Plays nPlayouts playouts, each from a new copy of the given state (which is not changed).
+     *
+     * @param state     - state to play forward from
+     * @param nPlayouts - number of playouts
+     * @return - the mean value of the final states for each player
+     */
+    public double[] run(AbstractGameState state, int nPlayouts) {
+        int nPlayers = state.getNPlayers();
+        if (totals.length != nPlayers)
+            totals = new double[nPlayers];
+        Arrays.fill(totals, 0.0);
+        for (int i = 0; i < nPlayouts; i++) {
+            long start = System.nanoTime();
+            AbstractGameState copy = state.copy();
+            elapsedNanos += System.nanoTime() - start;
+            double[] result = playout(copy);
+            for (int p = 0; p < nPlayers; p++)
+                totals[p] += result[p];
+        }
+        double[] retValue = new double[nPlayers];
+        for (int p = 0; p < nPlayers; p++)
+            retValue[p] = nPlayouts == 0 ? 0.0 : totals[p] / nPlayouts;
+        return retValue;
+    }
+
+    public long getPlayouts() {
+        return playouts;
+    }
+
+    public long getActionsTaken() {
+        return actionsTaken;
+    }
+
+    /**
+     * @return - time spent in playouts (including copying the starting states in run()), in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getPlayoutsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : playouts * 1e9 / elapsedNanos;
+    }
+
+    public double getActionsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : actionsTaken * 1e9 / elapsedNanos;
+    }
+
+    public void resetStatistics() {
+        playouts = 0;
+        actionsTaken = 0;
+        elapsedNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d playouts, %d actions in %.1f ms: %.1f playouts/s, %.0f actions/s",
+                playouts, actionsTaken, elapsedNanos / 1e6, getPlayoutsPerSecond(), getActionsPerSecond());
+    }
+}
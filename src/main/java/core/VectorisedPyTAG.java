@@ -0,0 +1,230 @@
+package core;
+
+import games.GameType;
+import players.python.PythonAgent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Runs several PyTAG environments side by side, so that a batched RL trainer can step all of them with one call.
+ * <p>
+ * Observations, action masks, rewards and done flags are written into flat buffers provided by the caller (with the
+ * values for environment i starting at i * getObservationSpace(), i * getActionSpace() and i respectively), so that
+ * these can be re-used from one step to the next, and are passed across the Java/Python bridge once per batch.
+ * (Each observation is still extracted into a new array by the game's IStateFeatureVector, from a redacted copy of
+ * the state, before being copied into the buffer.)
+ * <p>
+ * An environment that finishes an episode in step() is reset straight away. The reward and done flag written for it
+ * are those of the finished episode; the observation and mask are for the first decision of the new one. The results
+ * of the finished episode are available from getLastResults().
+ * <p>
+ * If nThreads is more than 1 then the environments are split into that many blocks, each stepped on its own thread.
+ * Each environment has its own game and players (and so Random streams), so the results do not depend on the number
+ * of threads.
+ */
+public class VectorisedPyTAG {
+
+    private final PyTAG[] envs;
+    private final int nThreads;
+    private final CoreConstants.GameResult[][] lastResults;
+    private final int[] episodes;
+    private ExecutorService executor;
+    private boolean isReset;
+
+    /**
+     * Creates one environment for each list of players.
+     *
+     * @param playersPerEnv - the players for each environment; no player may be used in more than one environment
+     * @param seed          - used to seed each of the environments
+     * @param nThreads      - the number of threads to step the environments on
+     */
+    public VectorisedPyTAG(GameType gameToPlay, String parameterConfigFile, List<List<AbstractPlayer>> playersPerEnv,
+                           long seed, boolean isNormalized, int nThreads) throws Exception {
+        if (playersPerEnv.isEmpty())
+            throw new IllegalArgumentException("At least one environment is needed");
+        Random seedRandom = new Random(seed);
+        envs = new PyTAG[playersPerEnv.size()];
+        for (int i = 0; i < envs.length; i++)
+            envs[i] = new PyTAG(gameToPlay, parameterConfigFile, playersPerEnv.get(i), seedRandom.nextLong(), isNormalized);
+        this.nThreads = Math.max(1, Math.min(nThreads, envs.length));
+        lastResults = new CoreConstants.GameResult[envs.length][];
+        episodes = new int[envs.length];
+    }
+
+    /**
+     * Creates nEnvs environments with the same set of players. The first environment uses players; each of the
+     * others has a new PythonAgent in place of each PythonAgent, and a copy() of each of the other players.
+     */
+    public VectorisedPyTAG(GameType gameToPlay, String parameterConfigFile, List<AbstractPlayer> players, int nEnvs,
+                           long seed, boolean isNormalized, int nThreads) throws Exception {
+        this(gameToPlay, parameterConfigFile, copyPlayers(players, nEnvs), seed, isNormalized, nThreads);
+    }
+
+    private static List<List<AbstractPlayer>> copyPlayers(List<AbstractPlayer> players, int nEnvs) {
+        List<List<AbstractPlayer>> retValue = new ArrayList<>();
+        retValue.add(players);
+        for (int i = 1; i < nEnvs; i++) {
+            List<AbstractPlayer> copies = new ArrayList<>();
+            for (AbstractPlayer player : players)
+                copies.add(player instanceof PythonAgent ? new PythonAgent() : player.copy());
+            retValue.add(copies);
+        }
+        return retValue;
+    }
+
+    public int getNumEnvs() {
+        return envs.length;
+    }
+
+    public int getObservationSpace() {
+        return envs[0].getObservationSpace();
+    }
+
+    /**
+     * @return the number of leaves in the action tree (only known after reset() has been called)
+     */
+    public int getActionSpace() {
+        return envs[0].getActionSpace();
+    }
+
+    public PyTAG getEnv(int env) {
+        return envs[env];
+    }
+
+    /**
+     * @return the player to take the next decision in each environment
+     */
+    public int[] getPlayerIDs() {
+        int[] retValue = new int[envs.length];
+        for (int i = 0; i < envs.length; i++)
+            retValue[i] = envs[i].getPlayerID();
+        return retValue;
+    }
+
+    /**
+     * @return the results of the last episode to finish in env (or null if none has)
+     */
+    public CoreConstants.GameResult[] getLastResults(int env) {
+        return lastResults[env];
+    }
+
+    /**
+     * @return the number of episodes that have finished in env
+     */
+    public int getEpisodes(int env) {
+        return episodes[env];
+    }
+
+    /**
+     * Resets all the environments, and writes the first observation and action mask of each.
+     */
+    public void reset(double[] observations, int[] masks) throws Exception {
+        checkBuffers(observations, null, null, null);
+        run(env -> envs[env].reset());
+        isReset = true;
+        // (the size of the action space is only known once the action trees have been created)
+        checkBuffers(null, masks, null, null);
+        for (int env = 0; env < envs.length; env++)
+            write(env, observations, masks);
+    }
+
+    /**
+     * Takes one action in each environment (and then runs any built-in players until the next decision for a
+     * PythonAgent), resetting any environments that finish.
+     *
+     * @param actions      - the index of the leaf in the action tree to play in each environment
+     * @param observations - the next observation in each environment
+     * @param masks        - the next action mask in each environment
+     * @param rewards      - the score (after the action) of the player that took the action
+     * @param dones        - true for each environment in which the episode finished
+     */
+    public void step(int[] actions, double[] observations, int[] masks, double[] rewards, boolean[] dones) throws Exception {
+        if (!isReset)
+            throw new Exception("Need to reset the environments before calling step");
+        if (actions.length != envs.length)
+            throw new IllegalArgumentException("Expected " + envs.length + " actions, but got " + actions.length);
+        checkBuffers(observations, masks, rewards, dones);
+        run(env -> {
+            PyTAG pyTAG = envs[env];
+            int player = pyTAG.getPlayerID();
+            pyTAG.step(actions[env]);
+            rewards[env] = pyTAG.getReward(player);
+            dones[env] = pyTAG.isDone();
+            if (dones[env]) {
+                lastResults[env] = pyTAG.getPlayerResults().clone();
+                episodes[env]++;
+                pyTAG.reset();
+            }
+            write(env, observations, masks);
+        });
+    }
+
+    private void write(int env, double[] observations, int[] masks) throws Exception {
+        if (observations != null)
+            envs[env].writeObservationVector(observations, env * getObservationSpace());
+        if (masks != null)
+            envs[env].writeActionMask(masks, env * getActionSpace());
+    }
+
+    private void checkBuffers(double[] observations, int[] masks, double[] rewards, boolean[] dones) {
+        if (observations != null && observations.length < envs.length * getObservationSpace())
+            throw new IllegalArgumentException("Observation buffer is too small: " + observations.length);
+        if (masks != null && masks.length < envs.length * getActionSpace())
+            throw new IllegalArgumentException("Action mask buffer is too small: " + masks.length);
+        if (rewards != null && rewards.length < envs.length)
+            throw new IllegalArgumentException("Reward buffer is too small: " + rewards.length);
+        if (dones != null && dones.length < envs.length)
+            throw new IllegalArgumentException("Done buffer is too small: " + dones.length);
+    }
+
+    private interface EnvTask {
+        void run(int env) throws Exception;
+    }
+
+    private void run(EnvTask task) throws Exception {
+        if (nThreads == 1) {
+            for (int env = 0; env < envs.length; env++)
+                task.run(env);
+            return;
+        }
+        if (executor == null)
+            executor = Executors.newFixedThreadPool(nThreads, r -> {
+                Thread t = new Thread(r, "PyTAG-env");
+                t.setDaemon(true);
+                return t;
+            });
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < nThreads; t++) {
+            int from = envs.length * t / nThreads;
+            int to = envs.length * (t + 1) / nThreads;
+            tasks.add(() -> {
+                for (int env = from; env < to; env++)
+                    task.run(env);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while stepping PyTAG environments", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+        executor = null;
+    }
+}
@@ -0,0 +1,81 @@
+package core.components;
+
+import core.interfaces.IComponentContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A read-only lookup from componentID to Component, for every component in a game state (including all those nested
+ * inside Decks, Areas and other containers).
+ * <p>
+ * Component IDs in one game state are usually close together, so these are normally held in an array indexed by
+ * (componentID - lowest ID). If the IDs are too spread out for that (for example if many new components have
+ * been created during a long game) then a HashMap is used instead.
+ */
+public final class ComponentIndex {
+
+    private final Component[] dense;
+    private final int offset;
+    private final HashMap<Integer, Component> sparse;
+
+    private ComponentIndex(Component[] dense, int offset, HashMap<Integer, Component> sparse) {
+        this.dense = dense;
+        this.offset = offset;
+        this.sparse = sparse;
+    }
+
+    /**
+     * Builds the index. If two components share an ID, then the later one in the list is kept
+     * (as with Area.putComponents()).
+     *
+     * @param topLevelComponents - components of the game state; anything they contain is added too
+     * @return - the index
+     */
+    public static ComponentIndex of(List<? extends Component> topLevelComponents) {
+        List<Component> all = new ArrayList<>();
+        for (Component c : topLevelComponents)
+            addWithNested(c, all);
+
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for (Component c : all) {
+            min = Math.min(min, c.getComponentID());
+            max = Math.max(max, c.getComponentID());
+        }
+        long range = all.isEmpty() ? 0 : (long) max - min + 1;
+        if (range <= Math.max(64, 4L * all.size())) {
+            Component[] dense = new Component[(int) range];
+            for (Component c : all)
+                dense[c.getComponentID() - min] = c;
+            return new ComponentIndex(dense, min, null);
+        }
+        HashMap<Integer, Component> sparse = new HashMap<>();
+        for (Component c : all)
+            sparse.put(c.getComponentID(), c);
+        return new ComponentIndex(null, 0, sparse);
+    }
+
+    private static void addWithNested(Component c, List<Component> all) {
+        if (c == null)
+            return;
+        all.add(c);
+        if (c instanceof IComponentContainer) {
+            for (Component nested : ((IComponentContainer<?>) c).getComponents())
+                addWithNested(nested, all);
+        }
+    }
+
+    /**
+     * @param componentID - ID of the component to look up
+     * @return - the component, or null if there is none with this ID
+     */
+    public Component get(int componentID) {
+        if (dense == null)
+            return sparse.get(componentID);
+        int i = componentID - offset;
+        if (i < 0 || i >= dense.length)
+            return null;
+        return dense[i];
+    }
+}
@@ -2,6 +2,7 @@ package core.components;
 
 import core.CoreConstants;
 import core.interfaces.IComponentContainer;
+import core.interfaces.ILongStateKey;
 import core.properties.PropertyString;
 import core.properties.PropertyVector2D;
 import org.json.simple.JSONArray;
@@ -14,6 +15,7 @@ import utilities.Vector2D;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import static core.CoreConstants.imgHash;
@@ -26,6 +28,11 @@ public class GridBoard<T extends Component> extends Component implements ICompon
 
     private Component[][] grid;  // 2D grid representation of this board
 
+    // Zobrist hashing of the grid contents. This is off (null) unless a game sets the key of each element with
+    // setElementKey(); the hash is then updated by setElement() in constant time.
+    private ToLongFunction<? super T> elementKey;
+    private long zobristHash;
+
     protected GridBoard() {
         super(CoreConstants.ComponentType.BOARD);
     }
@@ -69,6 +76,8 @@ public class GridBoard<T extends Component> extends Component implements ICompon
         this.width = orig.getWidth();
         this.height = orig.getHeight();
         this.grid = orig.grid.clone();
+        this.elementKey = orig.elementKey;
+        this.zobristHash = orig.zobristHash;
     }
 
     /**
@@ -122,6 +131,48 @@ public class GridBoard<T extends Component> extends Component implements ICompon
             if (w >= 0) System.arraycopy(this.grid[i], 0, grid[i + offsetY], offsetX, w);
         }
         this.grid = grid;
+        recomputeZobristHash();
+    }
+
+    /**
+     * Switches on Zobrist hashing of this grid (see getZobristHash()).
+     *
+     * @param elementKey - gives a 64-bit key for the contents of each element. Two elements that are interchangeable
+     *                   in the game (for example two "x" Tokens) should have the same key. The key of an element
+     *                   must not change while it is on the grid (or setElement() must be called again when it does).
+     *                   Null switches hashing off.
+     */
+    public void setElementKey(ToLongFunction<? super T> elementKey) {
+        this.elementKey = elementKey;
+        recomputeZobristHash();
+    }
+
+    /**
+     * A 64-bit Zobrist hash of the grid contents: the XOR of a pseudo-random key for each (position, element key)
+     * pair, with empty (null) cells contributing nothing. This is kept up to date by setElement() in constant time,
+     * so is cheap to use as a transposition key (with the usual small chance of two grids having the same hash).
+     *
+     * @return - the hash, or 0 if setElementKey() has not been called
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    private long cellHash(int x, int y, Component value) {
+        if (value == null)
+            return 0;
+        @SuppressWarnings("unchecked")
+        long key = elementKey.applyAsLong((T) value);
+        return ILongStateKey.mix(key ^ ILongStateKey.mix(((long) y << 32 | x) + 0x632be59bd9b4e019L));
+    }
+
+    private void recomputeZobristHash() {
+        zobristHash = 0;
+        if (elementKey == null || grid == null)
+            return;
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                zobristHash ^= cellHash(x, y, grid[y][x]);
     }
 
     /**
@@ -134,6 +185,8 @@ public class GridBoard<T extends Component> extends Component implements ICompon
      */
     public boolean setElement(int x, int y, T value) {
         if (x >= 0 && x < width && y >= 0 && y < height) {
+            if (elementKey != null)
+                zobristHash ^= cellHash(x, y, grid[y][x]) ^ cellHash(x, y, value);
             grid[y][x] = value;
             return true;
         } else
@@ -162,7 +215,7 @@ public class GridBoard<T extends Component> extends Component implements ICompon
     }
 
     /**
-     * Retrieves the grid.
+     * Retrieves the grid. This should not be changed directly, as that would bypass the Zobrist hash.
      *
      * @return - 2D grid.
      */
@@ -237,12 +290,15 @@ public class GridBoard<T extends Component> extends Component implements ICompon
         }
         GridBoard<T> g = new GridBoard<>(gridCopy, componentID);
         copyComponentTo(g);
+        g.elementKey = elementKey;
+        g.zobristHash = zobristHash;
         return g;
     }
 
     public GridBoard<T> emptyCopy() {
         GridBoard<T> g = new GridBoard<>(getWidth(), getHeight(), componentID);
         copyComponentTo(g);
+        g.elementKey = elementKey;
         return g;
     }
 
@@ -302,6 +358,7 @@ public class GridBoard<T extends Component> extends Component implements ICompon
         }
 
         this.grid = new Component[height][width];
+        this.zobristHash = 0;
 
         JSONArray grids = (JSONArray) board.get("grid");
         int y = 0;
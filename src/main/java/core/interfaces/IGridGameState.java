@@ -10,4 +10,10 @@ public interface IGridGameState<T extends Component> {
     default int getHeight() { return getGridBoard().getHeight(); }
 
     GridBoard<T> getGridBoard();
+
+    /**
+     * @return the Zobrist hash of the grid (see GridBoard.getZobristHash()); this is only valid for games that
+     * call setElementKey() on the board when it is created.
+     */
+    default long getZobristHash() { return getGridBoard().getZobristHash(); }
 }
@@ -0,0 +1,64 @@
+package core.interfaces;
+
+import core.AbstractGameState;
+
+/**
+ * A 64-bit key for a game state, for use in transposition tables (for example by MCGS). This is an alternative to
+ * IStateKey that avoids building a String for every state looked up.
+ * <p>
+ * As with Zobrist hashing, two different states can have the same key. With 64 bits this is very unlikely to
+ * happen in a search of a few million states, but it is not impossible; where it does the states are treated
+ * as the same.
+ * <p>
+ * The String key is just the hex form of the long key, so any ILongStateKey can be used where an IStateKey is needed.
+ */
+public interface ILongStateKey extends IStateKey {
+
+    long getLongKey(AbstractGameState state);
+
+    @Override
+    default String getKey(AbstractGameState state) {
+        return Long.toHexString(getLongKey(state));
+    }
+
+    /**
+     * @return the 64-bit key for state using key; if key is not an ILongStateKey, this is a hash of its String key
+     */
+    static long longKey(IStateKey key, AbstractGameState state) {
+        if (key instanceof ILongStateKey)
+            return ((ILongStateKey) key).getLongKey(state);
+        return hashString(key.getKey(state));
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a String.
+     */
+    static long hashString(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * A key for a feature vector and player, the equivalent of the String key
+     * String.format("%d-%s", player, Arrays.toString(features)) used by the feature-based IStateKeys.
+     */
+    static long hashFeatures(int player, double[] features) {
+        long h = mix(0x9e3779b97f4a7c15L ^ player);
+        for (double f : features)
+            h = mix(h ^ Double.doubleToLongBits(f)) + 0x9e3779b97f4a7c15L;
+        return mix(h ^ features.length);
+    }
+
+    /**
+     * The finalisation step of SplitMix64; all bits of the result depend on all bits of x.
+     */
+    static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
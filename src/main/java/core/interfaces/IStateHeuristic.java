@@ -3,6 +3,8 @@ package core.interfaces;
 
 import core.AbstractGameState;
 
+import java.util.List;
+
 public interface IStateHeuristic {
 
     /**
@@ -13,4 +15,22 @@ public interface IStateHeuristic {
      * @return - value of given state.
      */
     double evaluateState(AbstractGameState gs, int playerId);
+
+    /**
+     * Scores a batch of states for all players at once. MCTS uses this when MCTSParams.leafBatchSize > 1.
+     * A heuristic that is cheaper to evaluate in batches (for example a learned model, or one evaluated out of
+     * process) should override this; by default each state is evaluated separately.
+     * @param states - game states to evaluate and score.
+     * @return - the value of each state for each player, indexed [state][player].
+     */
+    default double[][] evaluateStates(List<AbstractGameState> states) {
+        double[][] scores = new double[states.size()][];
+        for (int i = 0; i < states.size(); i++) {
+            AbstractGameState state = states.get(i);
+            scores[i] = new double[state.getNPlayers()];
+            for (int p = 0; p < scores[i].length; p++)
+                scores[i][p] = evaluateState(state, p);
+        }
+        return scores;
+    }
 }
\ No newline at end of file
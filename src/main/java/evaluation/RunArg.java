@@ -22,6 +22,12 @@ public enum RunArg {
             "\t This may be useful if you want to use the same destDir for multiple experiments.",
             false,
             new Usage[]{Usage.RunGames}),
+    asyncListeners("(Optional) If greater than zero (the default is 0), then each listener is run on its own background\n" +
+            "\t thread, with a buffer of this many events waiting to be processed. The game waits if the buffer is full,\n" +
+            "\t and at the end of each game until all its events have been processed. This only applies to listeners whose\n" +
+            "\t metrics use nothing but the events (for example not MCTSMetrics); any others are run on the game thread.",
+            0,
+            new Usage[]{Usage.RunGames}),
     byTeam("If true (the default) and the game supports teams, then one player type will be assigned to all players on a team.\n" +
             "\t If false, then each player will be assigned a player type independently.",
             true,
@@ -96,6 +102,14 @@ public enum RunArg {
     nPlayers("The number of players in each game. Overrides playerRange.",
             -1,
             new Usage[]{Usage.ParameterSearch, Usage.RunGames}),
+    nThreads("The number of games to run in parallel (default is 1). Each game gets its own copies of the players\n" +
+            "\t and forward model. Results and listener data are processed in the order the games were set up, so they\n" +
+            "\t do not depend on the number of threads (> 1). They only match a run with one thread for players whose\n" +
+            "\t copies play exactly as the original would (not, for example, ones that draw from a shared Random).\n" +
+            "\t Games are run one at a time if any listener's metrics use more than the events (for example MCTSMetrics).\n" +
+            "\t In ParameterSearch this is also the number of settings NTBEA evaluates before each update of its model.",
+            1,
+            new Usage[]{Usage.RunGames, Usage.ParameterSearch}),
     neighbourhood("The size of neighbourhood to look at in NTBEA. Default is min(50, |searchSpace|/100) ",
             50,
             new Usage[]{Usage.ParameterSearch}),
@@ -3,6 +3,7 @@ package evaluation;
 import core.AbstractParameters;
 import core.AbstractPlayer;
 import core.interfaces.IGameRunner;
+import evaluation.listeners.AsyncGameListener;
 import evaluation.listeners.IGameListener;
 import evaluation.tournaments.AbstractTournament;
 import evaluation.tournaments.RandomRRTournament;
@@ -135,6 +136,12 @@ public class RunGames implements IGameRunner {
                 //noinspection unchecked
                 for (String listenerClass : ((List<String>) config.get(listener))) {
                     IGameListener gameTracker = IGameListener.createListener(listenerClass, (String) config.get(metrics));
+                    if ((int) config.get(asyncListeners) > 0) {
+                        if (gameTracker.canRunAsync())
+                            gameTracker = new AsyncGameListener(gameTracker, (int) config.get(asyncListeners));
+                        else
+                            System.out.println("Running " + listenerClass + " synchronously, as it uses the Game as well as the events");
+                    }
                     tournament.addListener(gameTracker);
                     String outputDir = (String) config.get(destDir);
                     List<String> directories = new ArrayList<>(Arrays.asList(outputDir.split(Pattern.quote(File.separator))));
@@ -2,11 +2,11 @@ package evaluation.features;
 
 import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
-import core.interfaces.IStateKey;
+import core.interfaces.ILongStateKey;
 
 import java.util.Arrays;
 
-public class StateKeyFromFeatureVector  implements IStateKey {
+public class StateKeyFromFeatureVector implements ILongStateKey {
 
     public final IStateFeatureVector featureVector;
 
@@ -19,4 +19,9 @@ public class StateKeyFromFeatureVector  implements IStateKey {
         double[] retValue = featureVector.featureVector(state, state.getCurrentPlayer());
         return String.format("%d-%s", state.getCurrentPlayer(), Arrays.toString(retValue));
     }
+
+    @Override
+    public long getLongKey(AbstractGameState state) {
+        return ILongStateKey.hashFeatures(state.getCurrentPlayer(), featureVector.featureVector(state, state.getCurrentPlayer()));
+    }
 }
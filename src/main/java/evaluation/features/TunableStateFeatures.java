@@ -2,14 +2,14 @@ package evaluation.features;
 
 import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
-import core.interfaces.IStateKey;
+import core.interfaces.ILongStateKey;
 import evaluation.optimisation.TunableParameters;
 import games.loveletter.features.LLStateFeaturesTunable;
 
 import java.util.Arrays;
 import java.util.stream.IntStream;
 
-public abstract class TunableStateFeatures extends TunableParameters implements IStateFeatureVector, IStateKey {
+public abstract class TunableStateFeatures extends TunableParameters implements IStateFeatureVector, ILongStateKey {
 
     private final String[] allNames;
 
@@ -89,4 +89,9 @@ public abstract class TunableStateFeatures extends TunableParameters implements
         double[] retValue = featureVector(state, state.getCurrentPlayer());
         return String.format("%d-%s", state.getCurrentPlayer(), Arrays.toString(retValue));
     }
+
+    @Override
+    public long getLongKey(AbstractGameState state) {
+        return ILongStateKey.hashFeatures(state.getCurrentPlayer(), featureVector(state, state.getCurrentPlayer()));
+    }
 }
@@ -0,0 +1,21 @@
+package evaluation.features;
+
+import core.AbstractGameState;
+import core.interfaces.IGridGameState;
+import core.interfaces.ILongStateKey;
+
+/**
+ * A state key for games played on a single GridBoard (IGridGameState) that keeps a Zobrist hash of it, such as
+ * TicTacToe, Connect4 and Stratego. This is the hash of the grid and the current player, and takes constant time
+ * to compute (unlike keys built from a feature vector).
+ * It ignores anything in the state that is not on the grid.
+ */
+public class ZobristStateKey implements ILongStateKey {
+
+    @Override
+    public long getLongKey(AbstractGameState state) {
+        if (!(state instanceof IGridGameState))
+            throw new AssertionError("ZobristStateKey can only be used with an IGridGameState: " + state.getGameType());
+        return ILongStateKey.mix(((IGridGameState<?>) state).getZobristHash() + state.getCurrentPlayer());
+    }
+}
@@ -0,0 +1,249 @@
+package evaluation.listeners;
+
+import core.Game;
+import core.interfaces.IGameEvent;
+import evaluation.metrics.Event;
+
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static evaluation.metrics.Event.GameEvent.GAME_OVER;
+
+/**
+ * Passes events on to another listener on a background thread, so that the time the listener takes (for example
+ * to run a large set of metrics) is not added to the game loop.
+ * <p>
+ * Each event is stored, as copied by the listener's copyEvent(), in a bounded ring buffer that is emptied by the
+ * background thread. If the buffer is full then the game thread waits for space (and the wait is counted, see
+ * getBlockedEvents()), so a slow listener slows down the game rather than using up memory.
+ * <p>
+ * GAME_OVER is a barrier: onEvent() does not return until that event (and every event before it) has been
+ * processed, so the listener is up to date once a game has finished. report(), reset(), init(), setGame() and
+ * setOutputDirectory() also wait for all queued events to be processed before being passed on. Any exception thrown
+ * by the listener on the background thread is thrown again by the next of these.
+ * <p>
+ * Events of a type that is not in the listener's getEventsOfInterest() are not queued (or copied). The copy is
+ * made on the game thread, so a listener should copy as little of the state as it can. A MetricsGameListener only
+ * copies it for events that one of its metrics needs it for (see AbstractMetric.needsState()).
+ * <p>
+ * The listener sees the Game as it is when each event is processed, not when it was raised, so only listeners for
+ * which canRunAsync() is true can be wrapped. close() stops the background thread once the listener is no longer
+ * needed.
+ */
+public class AsyncGameListener implements IGameListener {
+
+    private final IGameListener listener;
+    private final Set<IGameEvent> eventsOfInterest;
+    private final Event[] buffer;
+    private int head, count;
+    // true while the background thread is processing an event it has taken from the buffer
+    private boolean processing;
+    private long blockedEvents;
+    private Throwable error;
+    private Thread thread;
+    // set by close() to tell the background thread to stop once the buffer is empty
+    private boolean closing;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+
+    /**
+     * @param listener - the listener to pass events on to
+     * @param capacity - the maximum number of events waiting to be processed
+     */
+    public AsyncGameListener(IGameListener listener, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1 : " + capacity);
+        if (!listener.canRunAsync())
+            throw new IllegalArgumentException(listener.getClass().getSimpleName() + " cannot be run asynchronously");
+        this.listener = listener;
+        this.buffer = new Event[capacity];
+        this.eventsOfInterest = listener.getEventsOfInterest();
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        if (eventsOfInterest == null || eventsOfInterest.contains(event.type))
+            enqueue(event);
+        if (event.type == GAME_OVER)
+            flush();
+    }
+
+    private void enqueue(Event event) {
+        Event snapshot = listener.copyEvent(event);
+        lock.lock();
+        try {
+            if (thread == null)
+                start();
+            if (count == buffer.length) {
+                blockedEvents++;
+                while (count == buffer.length)
+                    notFull.awaitUninterruptibly();
+            }
+            buffer[(head + count) % buffer.length] = snapshot;
+            count++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every queued event has been processed by the listener
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            while (count > 0 || processing)
+                drained.awaitUninterruptibly();
+            if (error != null) {
+                Throwable e = error;
+                error = null;
+                if (e instanceof RuntimeException)
+                    throw (RuntimeException) e;
+                if (e instanceof Error)
+                    throw (Error) e;
+                throw new RuntimeException(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for every queued event to be processed, and then stops the background thread. A later event will start
+     * a new one.
+     */
+    public void close() {
+        flush();
+        Thread stopping;
+        lock.lock();
+        try {
+            stopping = thread;
+            thread = null;
+            closing = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (stopping != null) {
+            try {
+                stopping.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void start() {
+        closing = false;
+        thread = new Thread(this::processEvents, "GameListener-" + listener.getClass().getSimpleName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void processEvents() {
+        while (true) {
+            Event event;
+            lock.lock();
+            try {
+                while (count == 0 && !closing)
+                    notEmpty.awaitUninterruptibly();
+                if (count == 0)
+                    return;
+                event = buffer[head];
+                buffer[head] = null;
+                head = (head + 1) % buffer.length;
+                count--;
+                processing = true;
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                listener.onEvent(event);
+            } catch (Throwable e) {
+                lock.lock();
+                try {
+                    if (error == null)
+                        error = e;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            lock.lock();
+            try {
+                processing = false;
+                if (count == 0)
+                    drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return the number of events for which the game thread had to wait for space in the buffer
+     */
+    public long getBlockedEvents() {
+        lock.lock();
+        try {
+            return blockedEvents;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public IGameListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public boolean canRunAsync() {
+        return true;
+    }
+
+    @Override
+    public Set<IGameEvent> getEventsOfInterest() {
+        return eventsOfInterest;
+    }
+
+    @Override
+    public void report() {
+        flush();
+        listener.report();
+    }
+
+    @Override
+    public boolean setOutputDirectory(String... nestedDirectories) {
+        flush();
+        return listener.setOutputDirectory(nestedDirectories);
+    }
+
+    @Override
+    public void setGame(Game game) {
+        flush();
+        listener.setGame(game);
+    }
+
+    @Override
+    public Game getGame() {
+        return listener.getGame();
+    }
+
+    @Override
+    public void reset() {
+        flush();
+        listener.reset();
+    }
+
+    @Override
+    public void init(Game game, int nPlayersPerGame, Set<String> playerNames) {
+        flush();
+        listener.init(game, nPlayersPerGame, playerNames);
+    }
+}
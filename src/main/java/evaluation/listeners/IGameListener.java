@@ -1,6 +1,7 @@
 package evaluation.listeners;
 
 import core.Game;
+import core.interfaces.IGameEvent;
 import evaluation.metrics.AbstractMetric;
 import evaluation.metrics.Event;
 import evaluation.metrics.GameMetrics;
@@ -41,6 +42,31 @@ public interface IGameListener {
 
     Game getGame();
 
+    /**
+     * @return true if this listener can be wrapped in an AsyncGameListener, i.e. it only uses the events it is given
+     * and not the current state of the Game (see AbstractMetric.canRunAsync()). The default is false.
+     */
+    default boolean canRunAsync() {
+        return false;
+    }
+
+    /**
+     * @return the types of event this listener does anything with, or null (the default) if it may respond to any
+     * of them. Events of other types may then be skipped without being copied, for example by AsyncGameListener.
+     */
+    default Set<IGameEvent> getEventsOfInterest() {
+        return null;
+    }
+
+    /**
+     * Copies an event so that this listener can process it later on another thread (see AsyncGameListener, and
+     * RoundRobinTournament when games are run in parallel). This is called on the game thread, so should copy no more
+     * of the state than the listener needs. The default copies all of it.
+     */
+    default Event copyEvent(Event event) {
+        return event.copy();
+    }
+
     /**
      * Create listener based on given class, logger and metrics class. TODO: more than 1 metrics class
      *
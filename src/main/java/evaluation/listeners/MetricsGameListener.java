@@ -105,6 +105,37 @@ public class MetricsGameListener implements IGameListener {
         return success;
     }
 
+    @Override
+    public Set<IGameEvent> getEventsOfInterest() {
+        return eventsOfInterest;
+    }
+
+    /**
+     * The state is only copied if one of the metrics that listen to this type of event needs it (see
+     * AbstractMetric.needsState()). The others are given the chance to take what they need from it first.
+     */
+    @Override
+    public Event copyEvent(Event event) {
+        boolean copyState = false;
+        for (AbstractMetric metric : metrics.values())
+            if (metric.listens(event.type) && metric.needsState())
+                copyState = true;
+        Event copy = event.copy(copyState);
+        for (AbstractMetric metric : metrics.values())
+            if (metric.listens(event.type))
+                metric.addSnapshot(event, copy);
+        return copy;
+    }
+
+    /**
+     * @return true if every metric can be run asynchronously (subclasses that respond to events themselves should
+     * check that they can too, and may need to add to getEventsOfInterest())
+     */
+    @Override
+    public boolean canRunAsync() {
+        return metrics != null && metrics.values().stream().allMatch(AbstractMetric::canRunAsync);
+    }
+
     /**
      * This is called when all processing is finished, for example after running a sequence of games
      * As such, no state is provided.
@@ -148,13 +148,13 @@ public abstract class AbstractMetric {
      * @param e event for which the data is recorded
      */
     public void addDefaultData(Event e) {
-        dataLogger.addData("GameID", String.valueOf(e.state.getGameID()));
-        dataLogger.addData("GameName", e.state.getGameType().name());
-        dataLogger.addData("PlayerCount", String.valueOf(e.state.getNPlayers()));
-        dataLogger.addData("GameSeed", String.valueOf(e.state.getGameParameters().getRandomSeed()));
-        dataLogger.addData("Tick", e.state.getGameTick());
-        dataLogger.addData("Turn", e.state.getTurnCounter());
-        dataLogger.addData("Round", e.state.getRoundCounter());
+        dataLogger.addData("GameID", String.valueOf(e.getGameID()));
+        dataLogger.addData("GameName", e.getGameType().name());
+        dataLogger.addData("PlayerCount", String.valueOf(e.getNPlayers()));
+        dataLogger.addData("GameSeed", String.valueOf(e.getGameSeed()));
+        dataLogger.addData("Tick", e.getTick());
+        dataLogger.addData("Turn", e.getTurn());
+        dataLogger.addData("Round", e.getRound());
         dataLogger.addData("Event", e.type.name());
     }
 
@@ -167,6 +167,47 @@ public abstract class AbstractMetric {
         return eventTypes;
     }
 
+    /**
+     * @return true if this metric only uses the event it is given (and the names of the players from the Game),
+     * so that it can be run by an AsyncGameListener on a copy of the state after the game has moved on. The Game's
+     * timings and action space sizes are on the event (see Event.statistics). Metrics that look at anything else in
+     * the Game (such as the internals of the players) must not override this.
+     */
+    public boolean canRunAsync() {
+        return false;
+    }
+
+    /**
+     * @return true (the default) if _run() uses the state of the event, so that a copy of the state must be queued
+     * with the event when it is run later by an AsyncGameListener. Metrics that only use the summary of the state
+     * kept on a copy of the event (see Event.copy(boolean)), and anything they take in snapshot(), should return
+     * false, as copying the state may take much longer than the metric itself.
+     */
+    public boolean needsState() {
+        return true;
+    }
+
+    /**
+     * Called on the game thread, with the original event, when this metric will be run later on a copy of it (see
+     * MetricsGameListener.copyEvent()). Anything _run() needs from the state that is not in the summary kept on the
+     * copy can be returned here, and is then available from Event.getSnapshot(this). The default is null.
+     *
+     * @param e - the event, with the live game state
+     * @return the data this metric needs from the state of e, or null
+     */
+    public Object snapshot(Event e) {
+        return null;
+    }
+
+    /**
+     * Takes the snapshot() of this metric from an event, and keeps it on the copy that will be queued.
+     */
+    public void addSnapshot(Event original, Event copy) {
+        Object snapshot = snapshot(original);
+        if (snapshot != null)
+            copy.addSnapshot(this, snapshot);
+    }
+
     /**
      * Standard name for this metric, using the class name. If parameterized metric, different format applies.
      */
@@ -1,12 +1,13 @@
 package evaluation.metrics;
 import core.AbstractGameState;
+import core.CoreConstants;
 import core.actions.AbstractAction;
 import core.actions.LogEvent;
 import core.interfaces.IGameEvent;
+import games.GameType;
+import utilities.Pair;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 public class Event
 {
@@ -42,6 +43,49 @@ public class Event
     public AbstractGameState state;
     public AbstractAction action;
     public int playerID;
+    // Set by the Game on the ACTION_CHOSEN, ACTION_TAKEN and GAME_OVER events it raises, and null otherwise.
+    // Metrics should use this rather than the Game, which may have moved on by the time a stored event is processed.
+    public GameStatistics statistics;
+    // For a copy (see copy()), a summary of the original state. This is all that is kept if the state is not copied,
+    // and the game ID and random seed are not kept by state.copy() in any case.
+    private boolean copied;
+    private int gameID, nPlayers, tick, turn, round;
+    private long gameSeed;
+    private GameType gameType;
+    private double[] gameScores;
+    private int[] ordinalPositions;
+    private CoreConstants.GameResult[] playerResults;
+    private boolean actionInProgress;
+    private String actionDescription;
+    // Anything else metrics took from the original state (see AbstractMetric.snapshot())
+    private Map<AbstractMetric, Object> snapshots;
+
+    /**
+     * The timings and action space sizes recorded by the Game up to the point an event was raised. This does not
+     * change once created, so it is shared by copies of the event.
+     */
+    public static class GameStatistics {
+        // Time taken (in nanoseconds) by the last copy of the state for a player, computeAvailableActions() and
+        // next(), and by the agents in total so far
+        public final double copyTime, actionComputeTime, nextTime, agentTime;
+        // The number of actions available for this decision (on ACTION_CHOSEN and ACTION_TAKEN), or -1
+        public final int actionSpaceSize;
+        // The sum of the number of actions taken in each turn so far
+        public final int nActionsPerTurn;
+        // (player, number of actions available) for each decision in the game (on GAME_OVER only, otherwise null)
+        public final List<Pair<Integer, Integer>> actionSpaceSizes;
+
+        public GameStatistics(double copyTime, double actionComputeTime, double nextTime, double agentTime,
+                              int actionSpaceSize, int nActionsPerTurn, List<Pair<Integer, Integer>> actionSpaceSizes) {
+            this.copyTime = copyTime;
+            this.actionComputeTime = actionComputeTime;
+            this.nextTime = nextTime;
+            this.agentTime = agentTime;
+            this.actionSpaceSize = actionSpaceSize;
+            this.nActionsPerTurn = nActionsPerTurn;
+            this.actionSpaceSizes = actionSpaceSizes;
+        }
+    }
 
     public static Event createEvent(IGameEvent type,
                                     AbstractGameState gameState,
@@ -56,6 +100,129 @@ public class Event
         return e;
     }
 
+    /**
+     * @return a copy of this event, with copies of its state and action, that can be processed after the game has
+     * moved on
+     */
+    public Event copy() {
+        return copy(true);
+    }
+
+    /**
+     * Copies this event so that it can be processed after the game has moved on. The copy has a summary of the state
+     * (the getters below), and the copy of the state itself is only made if copyState is true, as it may take much
+     * longer than anything else.
+     *
+     * @param copyState - if false, the state of the copy is null
+     * @return a copy of this event, with a copy of its action
+     */
+    public Event copy(boolean copyState) {
+        Event e = createEvent(type, state == null || !copyState ? null : state.copy(),
+                action == null ? null : action.copy(), playerID);
+        e.statistics = statistics;
+        e.snapshots = snapshots;
+        if (state != null || copied) {
+            e.copied = true;
+            e.gameID = getGameID();
+            e.gameSeed = getGameSeed();
+            e.gameType = getGameType();
+            e.nPlayers = getNPlayers();
+            e.tick = getTick();
+            e.turn = getTurn();
+            e.round = getRound();
+            e.gameScores = new double[e.nPlayers];
+            e.ordinalPositions = new int[e.nPlayers];
+            for (int i = 0; i < e.nPlayers; i++) {
+                e.gameScores[i] = getGameScore(i);
+                e.ordinalPositions[i] = getOrdinalPosition(i);
+            }
+            e.playerResults = getPlayerResults().clone();
+            e.actionInProgress = isActionInProgress();
+            e.actionDescription = getActionDescription();
+        }
+        return e;
+    }
+
+    /**
+     * Keeps something a metric took from the state of the original event, for when it processes this copy.
+     */
+    void addSnapshot(AbstractMetric metric, Object snapshot) {
+        if (snapshots == null)
+            snapshots = new HashMap<>();
+        snapshots.put(metric, snapshot);
+    }
+
+    /**
+     * @return what the metric took from the state of the original event (see AbstractMetric.snapshot()), or null if
+     * this is not a copy, or it took nothing
+     */
+    public Object getSnapshot(AbstractMetric metric) {
+        return snapshots == null ? null : snapshots.get(metric);
+    }
+
+    /**
+     * @return the ID of the game this event came from (which may differ from state.getGameID() for a copy)
+     */
+    public int getGameID() {
+        return copied ? gameID : state.getGameID();
+    }
+
+    /**
+     * @return the random seed of the game this event came from (a copied state is given a new seed)
+     */
+    public long getGameSeed() {
+        return copied ? gameSeed : state.getGameParameters().getRandomSeed();
+    }
+
+    public GameType getGameType() {
+        return copied ? gameType : state.getGameType();
+    }
+
+    public int getNPlayers() {
+        return copied ? nPlayers : state.getNPlayers();
+    }
+
+    public int getTick() {
+        return copied ? tick : state.getGameTick();
+    }
+
+    public int getTurn() {
+        return copied ? turn : state.getTurnCounter();
+    }
+
+    public int getRound() {
+        return copied ? round : state.getRoundCounter();
+    }
+
+    public double getGameScore(int playerId) {
+        return copied ? gameScores[playerId] : state.getGameScore(playerId);
+    }
+
+    public int getOrdinalPosition(int playerId) {
+        return copied ? ordinalPositions[playerId] : state.getOrdinalPosition(playerId);
+    }
+
+    public CoreConstants.GameResult[] getPlayerResults() {
+        return copied ? playerResults : state.getPlayerResults();
+    }
+
+    /**
+     * @return true if an extended action sequence was in progress in the state of the event
+     */
+    public boolean isActionInProgress() {
+        return copied ? actionInProgress : state.isActionInProgress();
+    }
+
+    /**
+     * @return the description of the action in the state of the event (AbstractAction.getString()), or null if
+     * there is no action
+     */
+    public String getActionDescription() {
+        if (copied)
+            return actionDescription;
+        return action == null ? null : action.getString(state);
+    }
+
     public static Event createEvent(IGameEvent type)
     {
         return Event.createEvent(type, null, null, -1);
@@ -29,23 +29,33 @@ public class GameMetrics implements IMetricsCollection {
             double sum = 0;
             int leaderID = -1;
             int secondID = -1;
-            for (int i = 0; i < e.state.getNPlayers(); i++) {
-                double score = e.state.getGameScore(i);
+            for (int i = 0; i < e.getNPlayers(); i++) {
+                double score = e.getGameScore(i);
                 sum += score;
                 records.put("Player-" + i, score);
                 records.put("PlayerName-" + i, listener.getGame().getPlayers().get(i).toString());
-                if (e.state.getOrdinalPosition(i) == 1) leaderID = i;
-                if (e.state.getNPlayers() > 1 && e.state.getOrdinalPosition(i) == 2) secondID = i;
+                if (e.getOrdinalPosition(i) == 1) leaderID = i;
+                if (e.getNPlayers() > 1 && e.getOrdinalPosition(i) == 2) secondID = i;
             }
-            records.put("Average", sum / e.state.getNPlayers());
+            records.put("Average", sum / e.getNPlayers());
             if (secondID != -1) {
-                records.put("LeaderGap", e.state.getGameScore(leaderID) - e.state.getGameScore(secondID));
+                records.put("LeaderGap", e.getGameScore(leaderID) - e.getGameScore(secondID));
             } else {
                 records.put("LeaderGap", 0.0);
             }
             return true;
         }
 
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return new HashSet<>(Arrays.asList(ACTION_CHOSEN, ROUND_OVER, GAME_OVER));
@@ -75,13 +85,23 @@ public class GameMetrics implements IMetricsCollection {
 
         @Override
         public boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            for (int i = 0; i < e.state.getNPlayers(); i++) {
-                records.put("Player-" + i, e.state.getGameScore(i));
+            for (int i = 0; i < e.getNPlayers(); i++) {
+                records.put("Player-" + i, e.getGameScore(i));
                 records.put("PlayerName-" + i, listener.getGame().getPlayers().get(i).toString());
             }
             return true;
         }
 
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(GAME_OVER);
@@ -102,10 +122,27 @@ public class GameMetrics implements IMetricsCollection {
     public static class StateSpace extends AbstractMetric {
         @Override
         public boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            records.put("Size", countComponents(e.state).a);
+            // (the count is taken on the game thread when the event is copied, see snapshot())
+            Object size = e.getSnapshot(this);
+            records.put("Size", size != null ? size : countComponents(e.state).a);
             return true;
         }
 
+        @Override
+        public Object snapshot(Event e) {
+            return countComponents(e.state).a;
+        }
+
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return new HashSet<>(Arrays.asList(ACTION_CHOSEN, Event.GameEvent.ABOUT_TO_START));
@@ -123,12 +160,22 @@ public class GameMetrics implements IMetricsCollection {
     public static class PlayerType extends AbstractMetric {
         @Override
         public boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            for (int i = 0; i < e.state.getNPlayers(); i++) {
+            for (int i = 0; i < e.getNPlayers(); i++) {
                 records.put("PlayerType-" + i, listener.getGame().getPlayers().get(i).toString());
             }
             return true;
         }
 
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return new HashSet<>(Collections.singletonList(GAME_OVER));
@@ -150,13 +197,33 @@ public class GameMetrics implements IMetricsCollection {
 
         @Override
         protected boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            AbstractGameState gs = e.state;
+            // (the percentage is found on the game thread when the event is copied, see snapshot())
+            Object percentage = e.getSnapshot(this);
+            records.put("Percentage", percentage != null ? percentage : hiddenPercentage(e.state));
+            return true;
+        }
+
+        @Override
+        public Object snapshot(Event e) {
+            return hiddenPercentage(e.state);
+        }
+
+        private static double hiddenPercentage(AbstractGameState gs) {
             int player = gs.getCurrentPlayer();
             Pair<Integer, int[]> allComp = countComponents(gs);
-            records.put("Percentage", (allComp.b[player] / (double) allComp.a) * 100.0);
+            return (allComp.b[player] / (double) allComp.a) * 100.0;
+        }
+
+        @Override
+        public boolean canRunAsync() {
             return true;
         }
 
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(ACTION_CHOSEN);
@@ -185,13 +252,24 @@ public class GameMetrics implements IMetricsCollection {
 
         @Override
         protected boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            records.put("Next (ms)", listener.getGame().getNextTime() / 1e3);
-            records.put("Copy (ms)", listener.getGame().getCopyTime() / 1e3);
-            records.put("Actions Available Compute (ms)", listener.getGame().getActionComputeTime() / 1e3);
-            records.put("Agent (ms)", listener.getGame().getAgentTime() / 1e3);
+            if (e.statistics == null) return false;
+            records.put("Next (ms)", e.statistics.nextTime / 1e3);
+            records.put("Copy (ms)", e.statistics.copyTime / 1e3);
+            records.put("Actions Available Compute (ms)", e.statistics.actionComputeTime / 1e3);
+            records.put("Agent (ms)", e.statistics.agentTime / 1e3);
             return true;
         }
 
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(Event.GameEvent.ACTION_TAKEN);
@@ -212,14 +290,24 @@ public class GameMetrics implements IMetricsCollection {
 
         @Override
         protected boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            for (int i = 0; i < e.state.getNPlayers(); i++) {
-                records.put("Player-" + i, e.state.getOrdinalPosition(i));
-                records.put("Player-" + i + " rank", String.valueOf(e.state.getOrdinalPosition(i)));
+            for (int i = 0; i < e.getNPlayers(); i++) {
+                records.put("Player-" + i, e.getOrdinalPosition(i));
+                records.put("Player-" + i + " rank", String.valueOf(e.getOrdinalPosition(i)));
                 records.put("PlayerName-" + i, listener.getGame().getPlayers().get(i).toString());
             }
             return true;
         }
 
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(Event.GameEvent.GAME_OVER);
@@ -240,8 +328,9 @@ public class GameMetrics implements IMetricsCollection {
 
         @Override
         protected boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
+            if (e.statistics == null || e.statistics.actionSpaceSizes == null) return false;
 
-            List<Pair<Integer, Integer>> actionSpaceRecord = listener.getGame().getActionSpaceSize();
+            List<Pair<Integer, Integer>> actionSpaceRecord = e.statistics.actionSpaceSizes;
             TAGStatSummary statsDecisionsAll = actionSpaceRecord.stream()
                     .map(r -> r.b)
                     .collect(new TAGSummariser());
@@ -250,12 +339,22 @@ public class GameMetrics implements IMetricsCollection {
                     .filter(size -> size > 1)
                     .collect(new TAGSummariser());
 
-            records.put("ActionsPerTurn (Sum)", listener.getGame().getNActionsPerTurn());
+            records.put("ActionsPerTurn (Sum)", e.statistics.nActionsPerTurn);
             records.put("Decisions", statsDecisions.n());
             records.put("DecisionPoints (Mean)", statsDecisions.n() * 1.0 / statsDecisionsAll.n());
             return true;
         }
 
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(Event.GameEvent.GAME_OVER);
@@ -274,28 +373,32 @@ public class GameMetrics implements IMetricsCollection {
 
         @Override
         public boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            Game g = listener.getGame();
-            AbstractForwardModel fm = g.getForwardModel();
-            AbstractAction a = e.action.copy();
-            AbstractPlayer currentPlayer = g.getPlayers().get(e.playerID);
-            int size = fm.computeAvailableActions(e.state, currentPlayer.getParameters().actionSpace).size();
-
-            if (e.state.isActionInProgress()) {
-                e.action = null;
-            }
+            if (e.statistics == null) return false;
+            AbstractPlayer currentPlayer = listener.getGame().getPlayers().get(e.playerID);
+            int size = e.statistics.actionSpaceSize;
 
-            records.put("Player-" + e.playerID, e.action == null ? null : e.action.toString());
-            records.put(currentPlayer.toString(), e.action == null ? null : e.action.toString());
+            AbstractAction action = e.isActionInProgress() ? null : e.action;
+
+            records.put("Player-" + e.playerID, action == null ? null : action.toString());
+            records.put(currentPlayer.toString(), action == null ? null : action.toString());
             records.put("Size-" + currentPlayer, size);
 
-            records.put("Actions Played", e.action == null ? null : e.action.toString());
-            records.put("Actions Played Description", e.action == null ? null : e.action.getString(e.state));
+            records.put("Actions Played", action == null ? null : action.toString());
+            records.put("Actions Played Description", action == null ? null : e.getActionDescription());
             records.put("Action Space Size", size);
+            return true;
+        }
 
-            e.action = a;
+        @Override
+        public boolean canRunAsync() {
             return true;
         }
 
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(ACTION_CHOSEN);
@@ -338,10 +441,9 @@ public class GameMetrics implements IMetricsCollection {
 
         @Override
         public boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
-            Game g = listener.getGame();
-            AbstractForwardModel fm = g.getForwardModel();
-            AbstractPlayer currentPlayer = g.getPlayers().get(e.playerID);
-            int size = fm.computeAvailableActions(e.state, currentPlayer.getParameters().actionSpace).size();
+            if (e.statistics == null) return false;
+            AbstractPlayer currentPlayer = listener.getGame().getPlayers().get(e.playerID);
+            int size = e.statistics.actionSpaceSize;
 
             records.put("Player", e.playerID);
             records.put("PlayerType", currentPlayer.toString());
@@ -349,10 +451,20 @@ public class GameMetrics implements IMetricsCollection {
 
             records.put("Action", e.action == null ? null : e.action.toString());
             records.put("ActionClass", e.action.getClass().getSimpleName());
-            records.put("ActionDescription", e.action == null ? null : e.action.getString(e.state));
+            records.put("ActionDescription", e.getActionDescription());
+            return true;
+        }
+
+        @Override
+        public boolean canRunAsync() {
             return true;
         }
 
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(ACTION_CHOSEN);
@@ -386,8 +498,8 @@ public class GameMetrics implements IMetricsCollection {
         public boolean _run(MetricsGameListener listener, Event e, Map<String, Object> records) {
             // iterate through player results in game state and find the winner
             int winner = -1;
-            for (int i = 0; i < e.state.getNPlayers(); i++) {
-                if (e.state.getPlayerResults()[i] == CoreConstants.GameResult.WIN_GAME) {
+            for (int i = 0; i < e.getNPlayers(); i++) {
+                if (e.getPlayerResults()[i] == CoreConstants.GameResult.WIN_GAME) {
                     winner = i;
                     break;
                 }
@@ -396,6 +508,16 @@ public class GameMetrics implements IMetricsCollection {
             return true;
         }
 
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean needsState() {
+            return false;
+        }
+
         @Override
         public Set<IGameEvent> getDefaultEventTypes() {
             return Collections.singleton(GAME_OVER);
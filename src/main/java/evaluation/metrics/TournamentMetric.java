@@ -41,6 +41,22 @@ public class TournamentMetric extends AbstractMetric {
         return wrappedMetric.getDefaultEventTypes();
     }
 
+    @Override
+    public boolean canRunAsync() {
+        return wrappedMetric.canRunAsync();
+    }
+
+    @Override
+    public boolean needsState() {
+        return wrappedMetric.needsState();
+    }
+
+    @Override
+    public void addSnapshot(Event original, Event copy) {
+        // the wrapped metric looks for its snapshot under its own key
+        wrappedMetric.addSnapshot(original, copy);
+    }
+
     public void reset() {
         super.reset();
         for (IDataLogger logger : dataLoggers.values()) {
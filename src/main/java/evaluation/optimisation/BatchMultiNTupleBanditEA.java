@@ -0,0 +1,99 @@
+package evaluation.optimisation;
+
+import evodef.BanditLandscapeModel;
+import evodef.MultiSolutionEvaluator;
+import evodef.SearchSpace;
+import ntbea.MultiNTupleBanditEA;
+import ntbea.NTupleBanditEA;
+import ntbea.NTupleSystem;
+
+import java.util.*;
+
+import static evaluation.optimisation.BatchNTupleBanditEA.*;
+
+/**
+ * The equivalent of BatchNTupleBanditEA for MultiNTupleBanditEA, where each game has a different setting for each
+ * player and all of them are added to the same landscape model.
+ * <p>
+ * The first game in each batch uses the current setting for every player. Game j (for j > 0) uses the j-th best
+ * distinct neighbour of each player's current setting. The results are added to the model in batch order, and in
+ * player order within each game.
+ */
+public class BatchMultiNTupleBanditEA extends MultiNTupleBanditEA {
+
+    final int batchSize;
+    final int maxNeighbours;
+    final Random rnd;
+    double epsilon = 0.5;
+
+    public BatchMultiNTupleBanditEA(BanditLandscapeModel model, double kExplore, int nNeighbours, int nPlayers,
+                                    int batchSize, long seed) {
+        super(model, kExplore, nNeighbours, nPlayers);
+        if (batchSize < 1)
+            throw new AssertionError("Batch size must be at least 1: " + batchSize);
+        this.batchSize = batchSize;
+        this.maxNeighbours = nNeighbours;
+        this.rnd = new Random(seed);
+    }
+
+    @Override
+    public NTupleBanditEA setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+        return super.setEpsilon(epsilon);
+    }
+
+    @Override
+    public double[] runTrial(MultiSolutionEvaluator evaluator, int nEvals) {
+        if (!(evaluator instanceof GameMultiPlayerEvaluator))
+            return super.runTrial(evaluator, nEvals);
+        GameMultiPlayerEvaluator gameEvaluator = (GameMultiPlayerEvaluator) evaluator;
+        SearchSpace searchSpace = evaluator.searchSpace();
+        int nNeighbours = neighbourhoodSize(searchSpace, maxNeighbours);
+        if (banditLandscapeModel == null)
+            banditLandscapeModel = new NTupleSystem(searchSpace);
+        banditLandscapeModel.setEpsilon(epsilon);
+
+        List<int[]> points = new ArrayList<>(playerCount);
+        for (int p = 0; p < playerCount; p++)
+            points.add(randomPoint(searchSpace, rnd));
+        for (int done = 0; done < nEvals; ) {
+            int n = Math.min(batchSize, nEvals - done);
+            List<List<int[]>> batch = new ArrayList<>(n);
+            batch.add(points);
+            if (n > 1) {
+                List<List<int[]>> neighbours = new ArrayList<>(playerCount);
+                for (int[] point : points)
+                    neighbours.add(bestNeighbours(banditLandscapeModel, kExplore, point, n - 1, nNeighbours, rnd));
+                for (int j = 0; j < n - 1; j++) {
+                    List<int[]> settings = new ArrayList<>(playerCount);
+                    for (int p = 0; p < playerCount; p++)
+                        settings.add(neighbours.get(p).get(j));
+                    batch.add(settings);
+                }
+            }
+
+            List<List<int[]>> games = new ArrayList<>(n * nSamples);
+            for (List<int[]> settings : batch)
+                games.addAll(Collections.nCopies(nSamples, settings));
+            List<double[]> results = gameEvaluator.evaluateAll(games);
+            for (int i = 0; i < n; i++) {
+                for (int p = 0; p < playerCount; p++) {
+                    double total = 0.0;
+                    for (int s = 0; s < nSamples; s++) {
+                        double[] result = results.get(i * nSamples + s);
+                        if (result.length != playerCount)
+                            throw new AssertionError("Discrepancy in Player Count - expecting " + playerCount + " results from evaluation");
+                        total += result[p];
+                    }
+                    banditLandscapeModel.addPoint(batch.get(i).get(p), total / nSamples);
+                }
+            }
+            done += n;
+            List<int[]> nextPoints = new ArrayList<>(playerCount);
+            for (int[] point : points)
+                nextPoints.add(bestNeighbours(banditLandscapeModel, kExplore, point, 1, nNeighbours, rnd).get(0));
+            points = nextPoints;
+        }
+        return banditLandscapeModel.getBestOfSampled();
+    }
+}
@@ -0,0 +1,152 @@
+package evaluation.optimisation;
+
+import evodef.BanditLandscapeModel;
+import evodef.SearchSpace;
+import evodef.SearchSpaceUtil;
+import evodef.SolutionEvaluator;
+import ntbea.NTupleBanditEA;
+import ntbea.NTupleSystem;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A version of NTupleBanditEA that evaluates batchSize settings at once, so that the games for them can be run in
+ * parallel by GameEvaluator.evaluateAll().
+ * <p>
+ * Each batch is the current point, plus the batchSize - 1 distinct neighbours of it with the highest UCB value in the
+ * landscape model (the original only evaluates the best of these). The model is updated with the results in that
+ * order once the whole batch is complete, and the next point is then the best neighbour of the current one, as in
+ * NTupleBanditEA. With a batchSize of 1 this follows the same procedure as NTupleBanditEA.
+ * <p>
+ * Unlike NTupleBanditEA (which uses unseeded static random number generators) the starting point and mutations use
+ * a Random with the given seed. Given the same seed and batchSize, the sequence of points evaluated, and the order in
+ * which the model is updated, do not depend on the number of threads or on the order games finish in.
+ */
+public class BatchNTupleBanditEA extends NTupleBanditEA {
+
+    final int batchSize;
+    final int maxNeighbours;
+    final Random rnd;
+    double epsilon = 0.5;
+
+    public BatchNTupleBanditEA(BanditLandscapeModel model, double kExplore, int nNeighbours, int batchSize, long seed) {
+        super(model, kExplore, nNeighbours);
+        if (batchSize < 1)
+            throw new AssertionError("Batch size must be at least 1: " + batchSize);
+        this.batchSize = batchSize;
+        this.maxNeighbours = nNeighbours;
+        this.rnd = new Random(seed);
+    }
+
+    @Override
+    public NTupleBanditEA setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+        return super.setEpsilon(epsilon);
+    }
+
+    @Override
+    public double[] runTrial(SolutionEvaluator evaluator, int nEvals) {
+        if (!(evaluator instanceof GameEvaluator))
+            return super.runTrial(evaluator, nEvals);
+        GameEvaluator gameEvaluator = (GameEvaluator) evaluator;
+        SearchSpace searchSpace = evaluator.searchSpace();
+        int nNeighbours = neighbourhoodSize(searchSpace, maxNeighbours);
+        if (banditLandscapeModel == null)
+            banditLandscapeModel = new NTupleSystem(searchSpace);
+        banditLandscapeModel.setEpsilon(epsilon);
+
+        int[] point = seed == null ? randomPoint(searchSpace, rnd) : seed;
+        for (int done = 0; done < nEvals; ) {
+            int n = Math.min(batchSize, nEvals - done);
+            List<int[]> batch = new ArrayList<>(n);
+            batch.add(point);
+            if (n > 1)
+                batch.addAll(bestNeighbours(banditLandscapeModel, kExplore, point, n - 1, nNeighbours, rnd));
+
+            List<int[]> games = new ArrayList<>(n * nSamples);
+            for (int[] settings : batch)
+                games.addAll(Collections.nCopies(nSamples, settings));
+            double[] results = gameEvaluator.evaluateAll(games);
+            for (int i = 0; i < n; i++) {
+                double total = 0.0;
+                for (int s = 0; s < nSamples; s++)
+                    total += results[i * nSamples + s];
+                banditLandscapeModel.addPoint(batch.get(i), total / nSamples);
+            }
+            done += n;
+            point = bestNeighbours(banditLandscapeModel, kExplore, point, 1, nNeighbours, rnd).get(0);
+        }
+        return banditLandscapeModel.getBestOfSampled();
+    }
+
+    /**
+     * The same limits on the number of neighbours considered as NTupleBanditEA.
+     */
+    static int neighbourhoodSize(SearchSpace searchSpace, int maxNeighbours) {
+        return Math.max(5, (int) Math.min(maxNeighbours, SearchSpaceUtil.size(searchSpace) / 4));
+    }
+
+    static int[] randomPoint(SearchSpace searchSpace, Random rnd) {
+        int[] point = new int[searchSpace.nDims()];
+        for (int i = 0; i < point.length; i++)
+            point[i] = rnd.nextInt(searchSpace.nValues(i));
+        return point;
+    }
+
+    /**
+     * Mutates each dimension with probability 1 / nDims, and always at least one (if any can be changed).
+     */
+    static int[] mutate(SearchSpace searchSpace, int[] point, Random rnd) {
+        int[] retValue = point.clone();
+        int nDims = searchSpace.nDims();
+        boolean changed = false;
+        for (int i = 0; i < nDims; i++) {
+            if (searchSpace.nValues(i) > 1 && rnd.nextDouble() < 1.0 / nDims) {
+                retValue[i] = differentValue(searchSpace.nValues(i), point[i], rnd);
+                changed = true;
+            }
+        }
+        if (!changed) {
+            int[] mutable = mutableDimensions(searchSpace);
+            if (mutable.length > 0) {
+                int i = mutable[rnd.nextInt(mutable.length)];
+                retValue[i] = differentValue(searchSpace.nValues(i), point[i], rnd);
+            }
+        }
+        return retValue;
+    }
+
+    private static int differentValue(int nValues, int current, Random rnd) {
+        int value = rnd.nextInt(nValues - 1);
+        return value >= current ? value + 1 : value;
+    }
+
+    private static int[] mutableDimensions(SearchSpace searchSpace) {
+        return IntStream.range(0, searchSpace.nDims()).filter(i -> searchSpace.nValues(i) > 1).toArray();
+    }
+
+    /**
+     * Samples nNeighbours mutations of point, and returns the k distinct ones with the highest UCB value (mean
+     * estimate plus kExplore times the exploration estimate). If there are fewer than k distinct neighbours, then
+     * the list is filled by repeating them from the best.
+     */
+    static List<int[]> bestNeighbours(BanditLandscapeModel model, double kExplore, int[] point, int k, int nNeighbours, Random rnd) {
+        SearchSpace searchSpace = model.getSearchSpace();
+        Map<List<Integer>, int[]> distinct = new LinkedHashMap<>();
+        for (int i = 0; i < nNeighbours; i++) {
+            int[] neighbour = mutate(searchSpace, point, rnd);
+            distinct.putIfAbsent(Arrays.stream(neighbour).boxed().toList(), neighbour);
+        }
+        List<int[]> candidates = new ArrayList<>(distinct.values());
+        Map<int[], Double> ucb = new IdentityHashMap<>();
+        for (int[] candidate : candidates)
+            ucb.put(candidate, model.getMeanEstimate(candidate) + kExplore * model.getExplorationEstimate(candidate)
+                    + 1e-6 * rnd.nextDouble());
+        candidates.sort(Comparator.comparingDouble(c -> -ucb.get(c)));
+        List<int[]> retValue = new ArrayList<>(k);
+        for (int i = 0; i < k; i++)
+            retValue.add(candidates.get(i % candidates.size()));
+        return retValue;
+    }
+}
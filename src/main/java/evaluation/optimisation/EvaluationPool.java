@@ -0,0 +1,66 @@
+package evaluation.optimisation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs the games of an NTBEA batch on a fixed pool of worker threads, returning their results in the order the
+ * tasks were given. With a single thread the tasks are just run in turn on the calling thread.
+ * <p>
+ * Everything that uses a random number generator shared across games (the seeds, the choice of opponents) must be
+ * done before the tasks are created, so that the results do not depend on the order the workers finish in.
+ */
+class EvaluationPool {
+
+    private final int nThreads;
+    private ExecutorService executor;
+
+    EvaluationPool(int nThreads) {
+        this.nThreads = Math.max(1, nThreads);
+    }
+
+    int nThreads() {
+        return nThreads;
+    }
+
+    <T> List<T> runAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            if (nThreads == 1 || tasks.size() == 1) {
+                for (Callable<T> task : tasks)
+                    results.add(task.call());
+                return results;
+            }
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(nThreads, r -> {
+                    Thread t = new Thread(r, "NTBEA-evaluation");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            for (Future<T> future : executor.invokeAll(tasks))
+                results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during NTBEA evaluation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+        executor = null;
+    }
+}
@@ -12,6 +12,7 @@ import evodef.SolutionEvaluator;
 import games.GameType;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
@@ -37,6 +38,7 @@ public class GameEvaluator implements SolutionEvaluator {
     IStateHeuristic stateHeuristic;
     IGameHeuristic gameHeuristic;
     List<IGameListener> listeners = new ArrayList<>();
+    EvaluationPool pool = new EvaluationPool(1);
 
     /**
      * GameEvaluator
@@ -94,6 +96,35 @@ public class GameEvaluator implements SolutionEvaluator {
      */
     @Override
     public double evaluate(int[] settings) {
+        try {
+            return prepareGame(settings).call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Evaluates a batch of settings, with one game for each. The games are set up in order on this thread (so the
+     * seeds and opponents are exactly those that calling evaluate() on each in turn would give), and then run in
+     * parallel if setThreads() has been given more than one thread.
+     *
+     * @param batch the settings to evaluate; the same settings can appear more than once
+     * @return the game score for each entry in batch, in the same order
+     */
+    public double[] evaluateAll(List<int[]> batch) {
+        List<Callable<Double>> games = new ArrayList<>(batch.size());
+        for (int[] settings : batch)
+            games.add(prepareGame(settings));
+        return pool.runAll(games).stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Sets up the game for one evaluation, and returns the task that runs it and scores the result.
+     * Anything that uses rnd or nEvals is done here, and not in the returned task.
+     */
+    private Callable<Double> prepareGame(int[] settings) {
         if (debug)
             System.out.printf("Starting evaluation %d of %s at %tT%n", nEvals,
                     Arrays.toString(settings), System.currentTimeMillis());
@@ -101,7 +132,8 @@ public class GameEvaluator implements SolutionEvaluator {
         boolean tuningPlayer = configuredThing instanceof AbstractPlayer;
         boolean tuningGame = configuredThing instanceof Game;
 
-        Game newGame = tuningGame ? (Game) configuredThing : game.createGameInstance(nPlayers, gameParams);
+        // each game gets its own parameters, as reset() changes the random seed in them
+        Game newGame = tuningGame ? (Game) configuredThing : game.createGameInstance(nPlayers, gameParams == null ? null : gameParams.copy());
         // we assign one player to each team (the default for a game is each player being their own team of 1)
         int nTeams = newGame.getGameState().getNTeams();
         List<AbstractPlayer> allPlayers = new ArrayList<>(nTeams);
@@ -128,22 +160,39 @@ public class GameEvaluator implements SolutionEvaluator {
 
         // always reset the random seed for each new game
         newGame.reset(allPlayers, rnd.nextLong());
+        nEvals++;
 
-        newGame.run();
-        int playerOnTeam = -1;
-        for (int p = 0; p < newGame.getGameState().getNPlayers(); p++) {
-            if (newGame.getGameState().getTeam(p) == playerIndex) {
-                playerOnTeam = p;
+        return () -> {
+            newGame.run();
+            int playerOnTeam = -1;
+            for (int p = 0; p < newGame.getGameState().getNPlayers(); p++) {
+                if (newGame.getGameState().getTeam(p) == playerIndex) {
+                    playerOnTeam = p;
+                }
             }
-        }
-        if (playerOnTeam == -1)
-            throw new AssertionError("No Player found on team " + playerIndex);
-        double retValue = tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerOnTeam);
+            if (playerOnTeam == -1)
+                throw new AssertionError("No Player found on team " + playerIndex);
+            return tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerOnTeam);
+        };
+    }
+
+    /**
+     * @param nThreads the number of games from a batch to run at once in evaluateAll()
+     */
+    public void setThreads(int nThreads) {
+        pool.shutdown();
+        pool = new EvaluationPool(nThreads);
+    }
 
-    //    System.out.println("GameEvaluator: " + retValue);
+    public int getThreads() {
+        return pool.nThreads();
+    }
 
-        nEvals++;
-        return retValue;
+    /**
+     * Stops the worker threads (if any). They are started again if needed.
+     */
+    public void shutdown() {
+        pool.shutdown();
     }
 
     public void addListener(IGameListener listener) {
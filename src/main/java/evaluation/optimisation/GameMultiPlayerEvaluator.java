@@ -9,6 +9,7 @@ import evodef.SearchSpace;
 import games.GameType;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Game Evaluator is used for NTBEA optimisation of parameters. It implements the SolutionEvaluator interface.
@@ -24,6 +25,7 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
     int nEvals = 0;
     Random rnd;
     IStateHeuristic stateHeuristic;
+    EvaluationPool pool = new EvaluationPool(1);
 
 
     /**
@@ -63,7 +65,30 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
     public double[] evaluate(List<int[]> settings) {
    //     System.out.printf("Starting evaluation %d of %n\t%s at %tT%n", nEvals,
      //           settings.stream().map(Arrays::toString).collect(joining(",\n\t")), System.currentTimeMillis());
+        try {
+            return prepareGame(settings).call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    /**
+     * Evaluates a batch of settings (each with one entry per team), with one game for each. The games are set up in
+     * order on this thread, so that they have the same seeds as calling evaluate() on each in turn, and then run in
+     * parallel if setThreads() has been given more than one thread.
+     *
+     * @return the result of each game, in the same order as batch
+     */
+    public List<double[]> evaluateAll(List<List<int[]>> batch) {
+        List<Callable<double[]>> games = new ArrayList<>(batch.size());
+        for (List<int[]> settings : batch)
+            games.add(prepareGame(settings));
+        return pool.runAll(games);
+    }
+
+    private Callable<double[]> prepareGame(List<int[]> settings) {
         Game newGame = game.createGameInstance(nPlayers);
         int nTeams = newGame.getGameState().getNTeams();
         List<AbstractPlayer> allPlayers = new ArrayList<>(nTeams);
@@ -74,19 +99,37 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
         }
 
         newGame.reset(allPlayers, rnd.nextLong());
+        nEvals++;
 
-        newGame.run();
-        AbstractGameState finalState = newGame.getGameState();
+        return () -> {
+            newGame.run();
+            AbstractGameState finalState = newGame.getGameState();
 
-        nEvals++;
-        double[] retValue = new double[nPlayers];
-        for (int i = 0; i < nPlayers; i++) {
-            int team = finalState.getTeam(i);
-            retValue[team] = stateHeuristic.evaluateState(finalState, i);
-        }
+            double[] retValue = new double[nPlayers];
+            for (int i = 0; i < nPlayers; i++) {
+                int team = finalState.getTeam(i);
+                retValue[team] = stateHeuristic.evaluateState(finalState, i);
+            }
+
+            //   System.out.printf("Result : %s%n", Arrays.toString(retValue));
+            return retValue;
+        };
+    }
+
+    /**
+     * @param nThreads the number of games from a batch to run at once in evaluateAll()
+     */
+    public void setThreads(int nThreads) {
+        pool.shutdown();
+        pool = new EvaluationPool(nThreads);
+    }
+
+    public int getThreads() {
+        return pool.nThreads();
+    }
 
-     //   System.out.printf("Result : %s%n", Arrays.toString(retValue));
-        return retValue;
+    public void shutdown() {
+        pool.shutdown();
     }
 
     /**
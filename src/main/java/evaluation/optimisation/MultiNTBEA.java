@@ -4,6 +4,7 @@ import evodef.SearchSpace;
 import games.GameType;
 import ntbea.MultiNTupleBanditEA;
 import ntbea.NTupleSystem;
+import utilities.Pair;
 
 import java.util.*;
 import java.util.stream.IntStream;
@@ -18,7 +19,9 @@ public class MultiNTBEA extends NTBEA {
         super(parameters, game, nPlayers);
         params.evalGames = 0;  // these are not used in the multi-player case (yet)
 
-        searchFramework = new MultiNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, nPlayers);
+        searchFramework = params.nThreads > 1
+                ? new BatchMultiNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, nPlayers, params.nThreads, params.seed)
+                : new MultiNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, nPlayers);
 
         // Initialise the GameEvaluator that will do all the heavy lifting
         multiPlayerEvaluator = new GameMultiPlayerEvaluator(
@@ -28,6 +31,16 @@ public class MultiNTBEA extends NTBEA {
                 stateHeuristic,
                 params.seed
         );
+        multiPlayerEvaluator.setThreads(params.nThreads);
+    }
+
+    @Override
+    public Pair<Object, int[]> run() {
+        try {
+            return super.run();
+        } finally {
+            multiPlayerEvaluator.shutdown();
+        }
     }
 
     @Override
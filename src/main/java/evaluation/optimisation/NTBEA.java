@@ -58,7 +58,10 @@ public class NTBEA {
         landscapeModel.setUse3Tuple(params.useThreeTuples);
         landscapeModel.addTuples();
 
-        searchFramework = new NTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize);
+        // with more than one thread we evaluate a batch of settings at a time, one game on each thread
+        searchFramework = params.nThreads > 1
+                ? new BatchNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, params.nThreads, params.seed)
+                : new NTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize);
         this.game = game;
         this.nPlayers = nPlayers;
         // Set up opponents
@@ -110,6 +113,7 @@ public class NTBEA {
                 gameHeuristic,
                 true
         );
+        evaluator.setThreads(params.nThreads);
     }
 
     public void setOpponents(List<AbstractPlayer> opponents) {
@@ -167,6 +171,7 @@ public class NTBEA {
                 config.put(matchups, gamesPerMatchup);
                 config.put(byTeam, false);
                 config.put(RunArg.distinctRandomSeeds, 0);
+                config.put(RunArg.nThreads, params.nThreads);
                 RoundRobinTournament tournament = new RoundRobinTournament(players, game, nPlayers, params.gameParams,
                         NO_SELF_PLAY, config);
                 tournament.verbose = false;
@@ -214,6 +219,7 @@ public class NTBEA {
             // we don't log the final run to file to avoid duplication
             printDetailsOfRun(bestResult);
         }
+        evaluator.shutdown();
         return new Pair<>(params.searchSpace.getAgent(bestResult.b), bestResult.b);
     }
 
@@ -258,8 +264,7 @@ public class NTBEA {
 
     protected Pair<Double, Double> evaluateWinner(int[] winnerSettings) {
 
-        double[] results = IntStream.range(0, params.evalGames)
-                .mapToDouble(answer -> evaluator.evaluate(winnerSettings)).toArray();
+        double[] results = evaluator.evaluateAll(Collections.nCopies(params.evalGames, winnerSettings));
 
         double avg = Arrays.stream(results).average().orElse(0.0);
         double stdErr = Math.sqrt(Arrays.stream(results)
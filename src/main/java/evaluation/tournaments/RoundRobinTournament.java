@@ -1,10 +1,15 @@
 package evaluation.tournaments;
 
+import core.AbstractGameState;
 import core.AbstractParameters;
 import core.AbstractPlayer;
+import core.Game;
+import core.interfaces.IGameEvent;
 import evaluation.RunArg;
+import evaluation.listeners.AsyncGameListener;
 import evaluation.listeners.IGameListener;
 import evaluation.listeners.TournamentMetricsGameListener;
+import evaluation.metrics.Event;
 import evaluation.tournaments.AbstractTournament.TournamentMode;
 import games.GameType;
 import utilities.LinearRegression;
@@ -13,6 +18,7 @@ import utilities.Pair;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -47,6 +53,11 @@ public class RoundRobinTournament extends AbstractTournament {
     String seedFile;
     Random seedRnd = new Random(randomSeed);
 
+    // Games run in parallel when nThreads > 1. These are set up and processed in the order they were created
+    protected int nThreads;
+    private ExecutorService executor;
+    private final Deque<PendingGame> pendingGames = new ArrayDeque<>();
+
 
     /**
      * Create a round robin tournament, which plays all agents against all others.
@@ -87,6 +98,7 @@ public class RoundRobinTournament extends AbstractTournament {
         this.byTeam = (boolean) config.getOrDefault(RunArg.byTeam, false);
         this.tournamentSeeds = (int) config.getOrDefault(RunArg.distinctRandomSeeds, 0);
         this.seedFile = (String) config.getOrDefault(RunArg.seedFile, "");
+        this.nThreads = (int) config.getOrDefault(RunArg.nThreads, 1);
         if (!seedFile.isEmpty()) {
             this.gameSeeds = loadSeedsFromFile();
             if (gameSeeds.isEmpty()) {
@@ -114,6 +126,12 @@ public class RoundRobinTournament extends AbstractTournament {
         for (IGameListener gameTracker : listeners) {
             gameTracker.init(game, nPlayers, agentNames);
             game.addListener(gameTracker);
+            if (nThreads > 1 && !gameTracker.canRunAsync()) {
+                // the listener would only see the Game as it is at the end of each game (see EventRecorder)
+                System.out.println("Running games one at a time, as " + gameTracker.getClass().getSimpleName() +
+                        " uses the Game as well as the events");
+                nThreads = 1;
+            }
         }
 
         LinkedList<Integer> matchUp = new LinkedList<>();
@@ -132,9 +150,13 @@ public class RoundRobinTournament extends AbstractTournament {
             createAndRunMatchUp(matchUp);
         }
         reportResults();
+        shutdownExecutor();
 
-        for (IGameListener listener : listeners)
+        for (IGameListener listener : listeners) {
             listener.report();
+            if (listener instanceof AsyncGameListener)
+                ((AsyncGameListener) listener).close();
+        }
     }
 
     protected List<Integer> loadSeedsFromFile() {
@@ -244,22 +266,14 @@ public class RoundRobinTournament extends AbstractTournament {
         for (int agentID : agentIDsInThisGame)
             matchUpPlayers.add(tournamentMode == SELF_PLAY ? this.agents.get(agentID).copy() : this.agents.get(agentID));
 
-        if (verbose) {
-            StringBuffer sb = new StringBuffer();
-            sb.append("[");
-            for (int agentID : agentIDsInThisGame)
-                sb.append(this.agents.get(agentID).toString()).append(",");
-            sb.setCharAt(sb.length() - 1, ']');
-            System.out.println(sb);
+        if (nThreads > 1) {
+            // The games are queued up here, and processed in order (with startMatchUp) once they have been run
+            for (int i = 0; i < nGames; i++)
+                submitGame(agentIDsInThisGame, matchUpPlayers, seeds.get(i), i == 0);
+            return;
         }
 
-        // TODO : Not sure this is the ideal place for this...ask Raluca
-        Set<String> agentNames = agents.stream().map(AbstractPlayer::toString).collect(Collectors.toSet());
-        for (IGameListener listener : listeners) {
-            if (listener instanceof TournamentMetricsGameListener) {
-                ((TournamentMetricsGameListener) listener).tournamentInit(game, nPlayers, agentNames, new HashSet<>(matchUpPlayers));
-            }
-        }
+        startMatchUp(game, agentIDsInThisGame, matchUpPlayers);
 
         // Run the game N = gamesPerMatchUp times with these players
         for (int i = 0; i < nGames; i++) {
@@ -274,61 +288,99 @@ public class RoundRobinTournament extends AbstractTournament {
             }
 
             game.run();  // Always running tournaments without visuals
-            GameResult[] results = game.getGameState().getPlayerResults();
-
-            int numDraws = 0;
-            for (int j = 0; j < matchUpPlayers.size(); j++) {
-                nGamesPlayed[agentIDsInThisGame.get(j)] += 1;
-                for (int k = 0; k < matchUpPlayers.size(); k++) {
-                    if (k != j) {
-                        nGamesPlayedPerOpponent[agentIDsInThisGame.get(j)][agentIDsInThisGame.get(k)] += 1;
-                    }
+            recordResults(game, agentIDsInThisGame);
+        }
+    }
+
+    /**
+     * Called once before the results of the first game of a matchup are recorded.
+     */
+    private void startMatchUp(Game gameForListeners, List<Integer> agentIDsInThisGame, List<AbstractPlayer> matchUpPlayers) {
+        if (verbose) {
+            StringBuffer sb = new StringBuffer();
+            sb.append("[");
+            for (int agentID : agentIDsInThisGame)
+                sb.append(this.agents.get(agentID).toString()).append(",");
+            sb.setCharAt(sb.length() - 1, ']');
+            System.out.println(sb);
+        }
+
+        // TODO : Not sure this is the ideal place for this...ask Raluca
+        Set<String> agentNames = agents.stream().map(AbstractPlayer::toString).collect(Collectors.toSet());
+        for (IGameListener listener : listeners) {
+            if (listener instanceof AsyncGameListener) {
+                // wait for the events from earlier games before the listener is set up for the new players
+                ((AsyncGameListener) listener).flush();
+                listener = ((AsyncGameListener) listener).getListener();
+            }
+            if (listener instanceof TournamentMetricsGameListener) {
+                ((TournamentMetricsGameListener) listener).tournamentInit(gameForListeners, nPlayers, agentNames, new HashSet<>(matchUpPlayers));
+            }
+        }
+    }
+
+    /**
+     * Updates the tournament statistics with the results of a finished game.
+     *
+     * @param finishedGame       - the game that has just been run
+     * @param agentIDsInThisGame - IDs of agents participating in this run.
+     */
+    private void recordResults(Game finishedGame, List<Integer> agentIDsInThisGame) {
+        AbstractGameState state = finishedGame.getGameState();
+        GameResult[] results = state.getPlayerResults();
+        int nAgents = agentIDsInThisGame.size();
+
+        int numDraws = 0;
+        for (int j = 0; j < nAgents; j++) {
+            nGamesPlayed[agentIDsInThisGame.get(j)] += 1;
+            for (int k = 0; k < nAgents; k++) {
+                if (k != j) {
+                    nGamesPlayedPerOpponent[agentIDsInThisGame.get(j)][agentIDsInThisGame.get(k)] += 1;
                 }
+            }
 
-                // now we need to be careful if we have a team game, as the agents are indexed by Team, not player
-                if (byTeam) {
-                    for (int player = 0; player < game.getGameState().getNPlayers(); player++) {
-                        if (game.getGameState().getTeam(player) == j) {
-                            numDraws += updatePoints(results, agentIDsInThisGame, agentIDsInThisGame.get(j), player);
-                            break; // we stop after one player on the team to avoid double counting
-                        }
+            // now we need to be careful if we have a team game, as the agents are indexed by Team, not player
+            if (byTeam) {
+                for (int player = 0; player < state.getNPlayers(); player++) {
+                    if (state.getTeam(player) == j) {
+                        numDraws += updatePoints(finishedGame, results, agentIDsInThisGame, agentIDsInThisGame.get(j), player);
+                        break; // we stop after one player on the team to avoid double counting
                     }
-                } else {
-                    numDraws += updatePoints(results, agentIDsInThisGame, agentIDsInThisGame.get(j), j);
                 }
+            } else {
+                numDraws += updatePoints(finishedGame, results, agentIDsInThisGame, agentIDsInThisGame.get(j), j);
             }
+        }
 
-            if (numDraws > 0) {
-                double pointsPerDraw = 1.0 / numDraws;
-                for (int j = 0; j < matchUpPlayers.size(); j++) {
-                    if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDsInThisGame.get(j)] += pointsPerDraw;
-                    if (results[j] == GameResult.DRAW_GAME)
-                        pointsPerPlayerSquared[agentIDsInThisGame.get(j)] += pointsPerDraw * pointsPerDraw;
-                }
+        if (numDraws > 0) {
+            double pointsPerDraw = 1.0 / numDraws;
+            for (int j = 0; j < nAgents; j++) {
+                if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDsInThisGame.get(j)] += pointsPerDraw;
+                if (results[j] == GameResult.DRAW_GAME)
+                    pointsPerPlayerSquared[agentIDsInThisGame.get(j)] += pointsPerDraw * pointsPerDraw;
             }
+        }
 
-            if (verbose) {
-                StringBuffer sb = new StringBuffer();
-                sb.append("[");
-                for (int j = 0; j < matchUpPlayers.size(); j++) {
-                    for (int player = 0; player < game.getGameState().getNPlayers(); player++) {
-                        if (game.getGameState().getTeam(player) == j) {
-                            sb.append(results[player]).append(",");
-                            break; // we stop after one player on the team to avoid double counting
-                        }
+        if (verbose) {
+            StringBuffer sb = new StringBuffer();
+            sb.append("[");
+            for (int j = 0; j < nAgents; j++) {
+                for (int player = 0; player < state.getNPlayers(); player++) {
+                    if (state.getTeam(player) == j) {
+                        sb.append(results[player]).append(",");
+                        break; // we stop after one player on the team to avoid double counting
                     }
                 }
-                sb.setCharAt(sb.length() - 1, ']');
-                System.out.println(sb);
             }
-
+            sb.setCharAt(sb.length() - 1, ']');
+            System.out.println(sb);
         }
-        totalGamesRun += nGames;
+        totalGamesRun++;
     }
 
-    private int updatePoints(GameResult[] results, List<Integer> matchUpPlayers, int j, int player) {
+    private int updatePoints(Game finishedGame, GameResult[] results, List<Integer> matchUpPlayers, int j, int player) {
         // j is the index of the agent in the matchup; player is the corresponding player number in the game
-        int ordinalPos = game.getGameState().getOrdinalPosition(player);
+        int ordinalPos = finishedGame.getGameState().getOrdinalPosition(player);
         rankPerPlayer[j] += ordinalPos;
         rankPerPlayerSquared[j] += ordinalPos * ordinalPos;
 
@@ -348,6 +400,161 @@ public class RoundRobinTournament extends AbstractTournament {
     }
 
 
+    /**
+     * Sets up a game on this thread, and queues it to be run by the executor. Each game has its own Game instance
+     * (and hence forward model), and its own copies of the agents. The game ID, seed and any randomised parameters
+     * are therefore decided here in the same order as they would be by evaluateMatchUp() with a single thread.
+     * <p>
+     * No more than 2 * nThreads games are queued at once; once this is reached the oldest is waited for and processed.
+     */
+    private void submitGame(List<Integer> agentIDsInThisGame, List<AbstractPlayer> matchUpPlayers, int seed, boolean firstOfMatchUp) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(nThreads, r -> {
+                Thread t = new Thread(r, "Tournament-game");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        List<AbstractPlayer> players = new ArrayList<>();
+        for (AbstractPlayer player : matchUpPlayers) {
+            AbstractPlayer copy = player.copy();
+            // the name is used in results and metrics, and is not always kept by copy()
+            copy.setName(player.toString());
+            players.add(copy);
+        }
+        Game gameCopy = game.getGameType().createGameInstance(nPlayers, game.getGameState().getGameParameters().copy());
+        EventRecorder recorder = null;
+        if (!listeners.isEmpty()) {
+            recorder = new EventRecorder(listeners);
+            gameCopy.addListener(recorder);
+        }
+        gameCopy.reset(players, seed);
+        if (randomGameParams)
+            gameCopy.getGameState().getGameParameters().randomize();
+
+        pendingGames.add(new PendingGame(gameCopy, agentIDsInThisGame, players, firstOfMatchUp, recorder,
+                executor.submit(gameCopy::run)));
+        while (pendingGames.size() > 2 * nThreads)
+            processNextPendingGame();
+    }
+
+    /**
+     * Waits for the oldest queued game to finish, then passes its events on to the listeners and records its results.
+     */
+    private void processNextPendingGame() {
+        PendingGame next = pendingGames.poll();
+        if (next == null)
+            return;
+        try {
+            next.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for tournament game", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        if (next.firstOfMatchUp)
+            startMatchUp(next.game, next.agentIDs, next.players);
+        if (randomGameParams)
+            System.out.println("Game parameters: " + next.game.getGameState().getGameParameters());
+        if (next.recorder != null)
+            next.recorder.replay(next.game, game);
+        recordResults(next.game, next.agentIDs);
+    }
+
+    /**
+     * Processes all games still queued. This is called before any results are reported.
+     */
+    protected void waitForPendingGames() {
+        while (!pendingGames.isEmpty())
+            processNextPendingGame();
+    }
+
+    private void shutdownExecutor() {
+        if (executor != null)
+            executor.shutdownNow();
+        executor = null;
+    }
+
+    private static class PendingGame {
+        final Game game;
+        final List<Integer> agentIDs;
+        final List<AbstractPlayer> players;
+        final boolean firstOfMatchUp;
+        final EventRecorder recorder;
+        final Future<?> future;
+
+        PendingGame(Game game, List<Integer> agentIDs, List<AbstractPlayer> players, boolean firstOfMatchUp,
+                    EventRecorder recorder, Future<?> future) {
+            this.game = game;
+            this.agentIDs = new ArrayList<>(agentIDs);
+            this.players = players;
+            this.firstOfMatchUp = firstOfMatchUp;
+            this.recorder = recorder;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Stands in for the tournament listeners on a game run by the executor. The listeners are not thread-safe, so
+     * each event is stored and passed on once the game has finished, in the order the games were set up. Each
+     * listener is given its own copies of the events it responds to, made by its copyEvent(), so that the state is
+     * only copied (and kept until the game is replayed) for listeners that need it.
+     * <p>
+     * The listeners see the finished Game, so this is only used if all of them can run asynchronously (see
+     * IGameListener.canRunAsync()); otherwise run() falls back to a single thread.
+     */
+    private static class EventRecorder implements IGameListener {
+        final List<IGameListener> listeners;
+        // the events recorded for each of the listeners, in the same order
+        final List<List<Event>> events = new ArrayList<>();
+        Game game;
+
+        EventRecorder(List<IGameListener> listeners) {
+            this.listeners = new ArrayList<>(listeners);
+            for (int i = 0; i < listeners.size(); i++)
+                events.add(new ArrayList<>());
+        }
+
+        @Override
+        public void onEvent(Event event) {
+            for (int i = 0; i < listeners.size(); i++) {
+                Set<IGameEvent> eventsOfInterest = listeners.get(i).getEventsOfInterest();
+                if (eventsOfInterest == null || eventsOfInterest.contains(event.type))
+                    events.get(i).add(listeners.get(i).copyEvent(event));
+            }
+        }
+
+        void replay(Game finishedGame, Game tournamentGame) {
+            for (int i = 0; i < listeners.size(); i++) {
+                IGameListener listener = listeners.get(i);
+                listener.setGame(finishedGame);
+                for (Event event : events.get(i))
+                    listener.onEvent(event);
+                listener.setGame(tournamentGame);
+                events.get(i).clear();
+            }
+        }
+
+        @Override
+        public void report() {
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+    }
+
     protected void calculateFinalResults() {
         finalWinRanking = new LinkedHashMap<>();
         finalOrdinalRanking = new LinkedHashMap<>();
@@ -372,6 +579,7 @@ public class RoundRobinTournament extends AbstractTournament {
     }
 
     protected void reportResults() {
+        waitForPendingGames();
         calculateFinalResults();
         boolean toFile = resultsFile != null && !resultsFile.equals("");
         ArrayList<String> dataDump = new ArrayList<>();
@@ -5,6 +5,7 @@ import core.actions.AbstractAction;
 import core.actions.SetGridValueAction;
 import core.components.GridBoard;
 import core.components.Token;
+import core.interfaces.ILongStateKey;
 import core.forwardModels.SequentialActionForwardModel;
 import utilities.Pair;
 
@@ -22,6 +23,7 @@ public class Connect4ForwardModel extends SequentialActionForwardModel {
         int gridSize = c4gp.gridSize;
         Connect4GameState state = (Connect4GameState) firstState;
         state.gridBoard = new GridBoard<>(gridSize, gridSize, new Token(Connect4Constants.emptyCell));
+        state.gridBoard.setElementKey(t -> ILongStateKey.hashString(t.getTokenType()));
         state.winnerCells = new LinkedList<>();
     }
 
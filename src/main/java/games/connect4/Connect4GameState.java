@@ -101,7 +101,7 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), gridBoard);
+        return Objects.hash(super.hashCode(), gridBoard.getZobristHash());
     }
 
     @Override
@@ -2,12 +2,12 @@ package games.connect4;
 import core.AbstractGameState;
 import core.components.Token;
 import core.interfaces.IStateFeatureVector;
-import core.interfaces.IStateKey;
+import core.interfaces.ILongStateKey;
 
 import java.util.Arrays;
 import java.util.stream.IntStream;
 
-public class Connect4StateVector implements IStateFeatureVector, IStateKey {
+public class Connect4StateVector implements IStateFeatureVector, ILongStateKey {
     // assume the grid is 8x8 ... if not, write a new StateVector
     private final String[] names = (String[]) IntStream.range(0, 8).boxed().flatMap(row ->
             IntStream.range(0, 3).mapToObj(col -> String.format("%d:%d", row, col))
@@ -41,4 +41,9 @@ public class Connect4StateVector implements IStateFeatureVector, IStateKey {
         double[] retValue = featureVector(state, state.getCurrentPlayer());
         return String.format("%d-%s", state.getCurrentPlayer(), Arrays.toString(retValue));
     }
+
+    @Override
+    public long getLongKey(AbstractGameState state) {
+        return ILongStateKey.hashFeatures(state.getCurrentPlayer(), featureVector(state, state.getCurrentPlayer()));
+    }
 }
@@ -33,6 +33,8 @@ public class StrategoForwardModel extends StandardForwardModel implements ITreeA
         StrategoParams params = (StrategoParams) firstState.getGameParameters();
         StrategoGameState state = (StrategoGameState) firstState;
         state.gridBoard = new GridBoard<>(params.gridSize, params.gridSize);
+        // Pieces are moved (and revealed) in place, so only their type and alliance go into the hash
+        state.gridBoard.setElementKey(p -> (long) p.getPieceType().ordinal() << 8 | p.getPieceAlliance().ordinal());
 
         StrategoConstants.PieceSetups[] setups = StrategoConstants.PieceSetups.values();
         StrategoConstants.PieceSetups RedSetup = setups[state.getRnd().nextInt(setups.length)];
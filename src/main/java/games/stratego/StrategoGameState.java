@@ -4,13 +4,14 @@ import core.AbstractGameState;
 import core.AbstractParameters;
 import core.components.Component;
 import core.components.GridBoard;
+import core.interfaces.IGridGameState;
 import games.GameType;
 import games.stratego.components.Piece;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class StrategoGameState extends AbstractGameState{
+public class StrategoGameState extends AbstractGameState implements IGridGameState<Piece> {
     GridBoard<Piece> gridBoard;
 
     /**
@@ -90,9 +91,10 @@ public class StrategoGameState extends AbstractGameState{
 
     @Override
     public int hashCode() {
-        return gridBoard.hashCode();
+        return Long.hashCode(gridBoard.getZobristHash());
     }
 
+    @Override
     public GridBoard<Piece> getGridBoard() {
         return gridBoard;
     }
@@ -8,6 +8,7 @@ import core.actions.ActionSpace;
 import core.actions.SetGridValueAction;
 import core.components.GridBoard;
 import core.components.Token;
+import core.interfaces.ILongStateKey;
 import core.interfaces.ITreeActionSpace;
 import utilities.ActionTreeNode;
 
@@ -24,6 +25,7 @@ public class TicTacToeForwardModel extends StandardForwardModel implements ITree
         int gridSize = tttgp.gridSize;
         TicTacToeGameState state = (TicTacToeGameState) firstState;
         state.gridBoard = new GridBoard<>(gridSize, gridSize, new Token(TicTacToeConstants.emptyCell));
+        state.gridBoard.setElementKey(t -> ILongStateKey.hashString(t.getTokenType()));
     }
 
 
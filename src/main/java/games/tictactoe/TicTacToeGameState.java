@@ -71,7 +71,7 @@ public class TicTacToeGameState extends AbstractGameState implements IPrintable,
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), gridBoard);
+        return Objects.hash(super.hashCode(), gridBoard.getZobristHash());
     }
     @Override
     public String toString() {
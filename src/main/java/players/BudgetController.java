@@ -0,0 +1,247 @@
+package players;
+
+import core.AbstractGameState;
+import utilities.ElapsedCpuChessTimer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Decides when an anytime search with a time budget (BUDGET_TIME) should stop, and keeps statistics on how often
+ * (and by how much) the budget is overrun. This is used by MCTSPlayer, RHEAPlayer and RMHCPlayer.
+ * <p>
+ * The time taken by each iteration of the current decision is recorded in a histogram with four buckets for each
+ * doubling of time. The search stops once the time left is no more than the iterationQuantile of these times
+ * (see PlayerParameters), or no more than breakMS. Using a high quantile rather than the mean iteration time
+ * means that we stop in time even when a few iterations take much longer than the rest.
+ * <p>
+ * If the player's chess clock (see ElapsedCpuChessTimer) has less time on it than the budget, then the time on the
+ * clock is used as a hard deadline instead.
+ * <p>
+ * Time is the CPU time of the thread running the search (as for ElapsedCpuTimer and the chess clocks), or
+ * wall-clock time if PlayerParameters.wallClockBudget is set. A controller should only be used by one thread.
+ * <p>
+ * Typical use is:
+ * <pre>
+ *     controller.startDecision(params, state, playerID);
+ *     do {
+ *         ... one iteration ...
+ *         controller.endIteration();
+ *     } while (!controller.budgetExhausted());
+ *     controller.endDecision();
+ * </pre>
+ */
+public class BudgetController {
+
+    private static final boolean OS_WIN = System.getProperty("os.name").contains("Windows");
+    private static final int BUCKETS_PER_DOUBLING = 4;
+    private static final int N_BUCKETS = 64 * BUCKETS_PER_DOUBLING;
+    private static final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+    // Iteration times for the current decision
+    private final long[] histogram = new long[N_BUCKETS];
+    private int iterations;
+    private long quantileNanos;
+    // the number of iterations when quantileNanos was last calculated
+    private int quantileIterations;
+
+    private double quantile = 1.0;
+    private long limitNanos, breakNanos;
+    private boolean wallClock;
+    private long decisionStart, iterationStart;
+
+    // Overrun statistics (for all decisions since the last reset())
+    private int decisions, overruns;
+    private long totalOverrunNanos, maxOverrunNanos, lastOverrunNanos;
+
+    /**
+     * Starts timing a decision with a budget of params.budget milliseconds
+     *
+     * @param params   - breakMS, iterationQuantile and wallClockBudget are also used
+     * @param state    - the state the decision is taken in; if playerID has a chess clock on this then the time left
+     *                 on it is a hard limit
+     * @param playerID - the player taking the decision
+     */
+    public void startDecision(PlayerParameters params, AbstractGameState state, int playerID) {
+        startDecision(params.budget, params, state, playerID);
+    }
+
+    /**
+     * As startDecision(params, state, playerID), but with a budget of budgetMillis instead of params.budget
+     */
+    public void startDecision(int budgetMillis, PlayerParameters params, AbstractGameState state, int playerID) {
+        long limit = budgetMillis * 1000000L;
+        ElapsedCpuChessTimer[] clocks = state == null ? null : state.getPlayerTimer();
+        if (clocks != null && playerID >= 0 && playerID < clocks.length && clocks[playerID] != null)
+            limit = Math.min(limit, clocks[playerID].remainingTime());
+        startDecision(limit, params.breakMS, params.iterationQuantile, params.wallClockBudget);
+    }
+
+    /**
+     * Starts timing a decision.
+     *
+     * @param limitNanos - the time available for the decision
+     * @param breakMS    - the search stops when there are fewer than this many milliseconds left
+     * @param quantile   - the quantile of past iteration times used as the time the next iteration will take
+     * @param wallClock  - true to use wall-clock time, false for the CPU time of this thread
+     */
+    public void startDecision(long limitNanos, int breakMS, double quantile, boolean wallClock) {
+        if (quantile <= 0.0 || quantile > 1.0)
+            throw new AssertionError("Iteration quantile must be in (0, 1] : " + quantile);
+        this.limitNanos = limitNanos;
+        this.breakNanos = breakMS * 1000000L;
+        this.quantile = quantile;
+        this.wallClock = wallClock;
+        Arrays.fill(histogram, 0);
+        iterations = 0;
+        quantileIterations = 0;
+        quantileNanos = 0;
+        decisionStart = now();
+        iterationStart = decisionStart;
+    }
+
+    /**
+     * Marks the start of the first iteration, if there is other work to do (that should not count as an iteration)
+     * between startDecision() and the first iteration.
+     */
+    public void startIteration() {
+        iterationStart = now();
+    }
+
+    /**
+     * Records the end of an iteration. The next one is assumed to start straight away.
+     */
+    public void endIteration() {
+        long time = now();
+        recordIteration(time - iterationStart);
+        iterationStart = time;
+    }
+
+    void recordIteration(long nanos) {
+        histogram[bucket(nanos)]++;
+        iterations++;
+    }
+
+    /**
+     * @return true if there is not enough time left for another iteration
+     */
+    public boolean budgetExhausted() {
+        long remaining = remainingNanos();
+        return remaining <= breakNanos || remaining <= getIterationQuantileNanos();
+    }
+
+    /**
+     * Records the end of the decision, and whether (and by how much) the time limit was overrun.
+     */
+    public void endDecision() {
+        decisions++;
+        lastOverrunNanos = Math.max(0, elapsedNanos() - limitNanos);
+        if (lastOverrunNanos > 0) {
+            overruns++;
+            totalOverrunNanos += lastOverrunNanos;
+            maxOverrunNanos = Math.max(maxOverrunNanos, lastOverrunNanos);
+        }
+    }
+
+    public long elapsedNanos() {
+        return now() - decisionStart;
+    }
+
+    public long remainingNanos() {
+        return limitNanos - elapsedNanos();
+    }
+
+    /**
+     * @return the time limit for the current decision (the budget, or less if the chess clock has less time left)
+     */
+    public long getLimitNanos() {
+        return limitNanos;
+    }
+
+    /**
+     * @return the time we expect the next iteration to take. This is the upper bound of the histogram bucket that
+     * holds the iterationQuantile of the iteration times so far (so is at most 25% above the true quantile), or 0
+     * before the first iteration.
+     */
+    public long getIterationQuantileNanos() {
+        if (quantileIterations != iterations) {
+            quantileIterations = iterations;
+            long target = (long) Math.ceil(quantile * iterations);
+            long seen = 0;
+            for (int b = 0; b < N_BUCKETS; b++) {
+                seen += histogram[b];
+                if (seen >= target) {
+                    quantileNanos = upperBound(b);
+                    break;
+                }
+            }
+        }
+        return quantileNanos;
+    }
+
+    /**
+     * @return the number of iterations in the current decision
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getDecisions() {
+        return decisions;
+    }
+
+    public int getOverruns() {
+        return overruns;
+    }
+
+    public double getLastOverrunMillis() {
+        return lastOverrunNanos / 1e6;
+    }
+
+    public double getMeanOverrunMillis() {
+        return overruns == 0 ? 0.0 : totalOverrunNanos / 1e6 / overruns;
+    }
+
+    public double getMaxOverrunMillis() {
+        return maxOverrunNanos / 1e6;
+    }
+
+    /**
+     * Clears the overrun statistics (for example at the start of a game)
+     */
+    public void reset() {
+        decisions = 0;
+        overruns = 0;
+        totalOverrunNanos = 0;
+        maxOverrunNanos = 0;
+        lastOverrunNanos = 0;
+    }
+
+    private long now() {
+        if (wallClock || OS_WIN)
+            return System.nanoTime();
+        return bean.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Bucket 4k + f (for f = 0..3) holds times from (4 + f) * 2^(k-2) up to (but not including) (5 + f) * 2^(k-2)
+     * nanoseconds. That is, k is the position of the highest set bit, and f is the value of the next two bits.
+     */
+    static int bucket(long nanos) {
+        if (nanos < 1) return 0;
+        int k = 63 - Long.numberOfLeadingZeros(nanos);
+        int f = k >= 2 ? (int) (nanos >>> (k - 2)) & 3 : (int) (nanos << (2 - k)) & 3;
+        return k * BUCKETS_PER_DOUBLING + f;
+    }
+
+    /**
+     * @return the smallest time in the bucket above
+     */
+    static long upperBound(int bucket) {
+        int k = bucket / BUCKETS_PER_DOUBLING;
+        int f = bucket % BUCKETS_PER_DOUBLING;
+        if (k >= 61) return Long.MAX_VALUE;
+        return ((5L + f) << k) >> 2;
+    }
+}
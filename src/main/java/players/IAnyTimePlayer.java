@@ -4,4 +4,10 @@ public interface IAnyTimePlayer {
 
     void setBudget(int budget);
     int getBudget();
+
+    /**
+     * @return the controller that decides when to stop searching with BUDGET_TIME, and records how often the time
+     * budget has been overrun
+     */
+    BudgetController getBudgetController();
 }
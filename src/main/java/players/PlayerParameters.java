@@ -18,6 +18,11 @@ public class PlayerParameters extends TunableParameters {
     // this is intended mainly for competition situations, in which overrunning the time limit leads to disqualification.
     // setting breakMS to some number greater than zero then adds a safety margin
     public int breakMS = 0;
+    // With BUDGET_TIME the search stops when the time left is less than this quantile of the time taken by the
+    // iterations so far (see BudgetController). Higher values make it less likely that the budget is overrun.
+    public double iterationQuantile = 0.95;
+    // If true then BUDGET_TIME is measured in wall-clock time rather than the CPU time of the thread searching
+    public boolean wallClockBudget = false;
     // resetSeedEachGame is a dangerous parameter. If true then the random seed will be reset at the start of each game.
     // otherwise the Random() object will be used from the old game, ensuring that we do not take exactly the same
     // set of actions
@@ -34,6 +39,8 @@ public class PlayerParameters extends TunableParameters {
         addTunableParameter("budgetType", PlayerConstants.BUDGET_FM_CALLS, Arrays.asList(PlayerConstants.values()));
         addTunableParameter("budget", 4000, Arrays.asList(100, 300, 1000, 3000, 10000, 30000, 100000));
         addTunableParameter("breakMS", 0);
+        addTunableParameter("iterationQuantile", 0.95, Arrays.asList(0.5, 0.9, 0.95, 0.99, 1.0));
+        addTunableParameter("wallClockBudget", false);
         addTunableParameter("actionSpaceStructure", ActionSpace.Structure.Default, Arrays.asList(ActionSpace.Structure.values()));
         addTunableParameter("actionSpaceFlexibility", ActionSpace.Flexibility.Default, Arrays.asList(ActionSpace.Flexibility.values()));
         addTunableParameter("actionSpaceContext", ActionSpace.Context.Default, Arrays.asList(ActionSpace.Context.values()));
@@ -57,6 +64,8 @@ public class PlayerParameters extends TunableParameters {
         budget = (int) getParameterValue("budget");
         resetSeedEachGame = (boolean) getParameterValue("resetSeedEachGame");
         breakMS = (int) getParameterValue("breakMS");
+        iterationQuantile = (double) getParameterValue("iterationQuantile");
+        wallClockBudget = (boolean) getParameterValue("wallClockBudget");
         noiseEpsilon = (double) getParameterValue("epsilon");
         budgetType = (PlayerConstants) getParameterValue("budgetType");
         actionSpace = new ActionSpace ((ActionSpace.Structure) getParameterValue("actionSpaceStructure"),
@@ -1,10 +1,13 @@
 package players.heuristics;
 
+import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 
 import java.io.*;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Provides a wrapper around an IStateFeatureVector and an array of coefficients
@@ -41,6 +44,58 @@ public abstract class AbstractStateHeuristic implements IStateHeuristic {
         loadModel(coefficientsFile);
     }
 
+    /**
+     * Computes the linear predictor (the bias plus the coefficients times the features) for each of the states for
+     * which useModel is true, for every player. The feature vectors are first all extracted into a single array, and
+     * the predictors are then computed in one pass over it. A feature vector whose length does not match the
+     * coefficients is not put in the array; its predictor is computed on its own, as in evaluateState().
+     *
+     * @return - the predictor for each state and player, indexed [state][player] (null for a state not using the model)
+     */
+    protected double[][] linearPredictors(List<AbstractGameState> states, Predicate<AbstractGameState> useModel) {
+        int nFeatures = coefficients.length - 1;
+        double[][] retValue = new double[states.size()][];
+        int rows = 0;
+        for (int i = 0; i < states.size(); i++) {
+            AbstractGameState state = states.get(i);
+            if (useModel.test(state)) {
+                retValue[i] = new double[state.getNPlayers()];
+                rows += retValue[i].length;
+            }
+        }
+        double[] phi = new double[rows * nFeatures];
+        boolean[] computed = new boolean[rows];
+        int row = 0;
+        for (int i = 0; i < states.size(); i++) {
+            if (retValue[i] == null) continue;
+            for (int p = 0; p < retValue[i].length; p++, row++) {
+                double[] stateFeatures = features.featureVector(states.get(i), p);
+                if (stateFeatures.length == nFeatures) {
+                    System.arraycopy(stateFeatures, 0, phi, row * nFeatures, nFeatures);
+                } else {
+                    double value = coefficients[0];
+                    for (int f = 0; f < stateFeatures.length; f++)
+                        value += stateFeatures[f] * coefficients[f + 1];
+                    retValue[i][p] = value;
+                    computed[row] = true;
+                }
+            }
+        }
+        row = 0;
+        for (double[] predictors : retValue) {
+            if (predictors == null) continue;
+            for (int p = 0; p < predictors.length; p++, row++) {
+                if (computed[row]) continue;
+                double value = coefficients[0]; // the bias term
+                int offset = row * nFeatures;
+                for (int f = 0; f < nFeatures; f++)
+                    value += phi[offset + f] * coefficients[f + 1];
+                predictors[p] = value;
+            }
+        }
+        return retValue;
+    }
+
     private void loadModel(String coefficientsFile) {
         if (coefficientsFile.isEmpty()) {
             // in this case will default to the defaultHeuristic
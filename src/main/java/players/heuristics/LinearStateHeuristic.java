@@ -5,6 +5,8 @@ import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 import utilities.Utils;
 
+import java.util.List;
+
 
 public class LinearStateHeuristic extends AbstractStateHeuristic {
 
@@ -36,4 +38,23 @@ public class LinearStateHeuristic extends AbstractStateHeuristic {
             return defaultHeuristic.evaluateState(state, playerId);
         return 0;
     }
+
+    @Override
+    public double[][] evaluateStates(List<AbstractGameState> states) {
+        // sub-classes that change evaluateState() are evaluated one state at a time
+        if (coefficients == null || getClass() != LinearStateHeuristic.class)
+            return super.evaluateStates(states);
+        double[][] retValue = linearPredictors(states, s -> defaultHeuristic == null || s.isNotTerminal());
+        for (int i = 0; i < states.size(); i++) {
+            if (retValue[i] == null) {
+                retValue[i] = new double[states.get(i).getNPlayers()];
+                for (int p = 0; p < retValue[i].length; p++)
+                    retValue[i][p] = defaultHeuristic.evaluateState(states.get(i), p);
+            } else {
+                for (int p = 0; p < retValue[i].length; p++)
+                    retValue[i][p] = Utils.clamp(retValue[i][p], minValue, maxValue);
+            }
+        }
+        return retValue;
+    }
 }
@@ -4,6 +4,8 @@ import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 
+import java.util.List;
+
 
 public class LogisticStateHeuristic extends AbstractStateHeuristic {
 
@@ -28,4 +30,16 @@ public class LogisticStateHeuristic extends AbstractStateHeuristic {
         }
         return 1.0 / ( 1.0 + Math.exp(-retValue));
     }
+
+    @Override
+    public double[][] evaluateStates(List<AbstractGameState> states) {
+        // sub-classes that change evaluateState() are evaluated one state at a time
+        if (coefficients == null || getClass() != LogisticStateHeuristic.class)
+            return super.evaluateStates(states);
+        double[][] retValue = linearPredictors(states, s -> true);
+        for (double[] values : retValue)
+            for (int p = 0; p < values.length; p++)
+                values[p] = 1.0 / (1.0 + Math.exp(-values[p]));
+        return retValue;
+    }
 }
@@ -8,6 +8,7 @@ import libsvm.svm_model;
 import libsvm.svm_node;
 
 import java.io.IOException;
+import java.util.List;
 
 public class SVMStateHeuristic implements IStateHeuristic {
 
@@ -77,4 +78,33 @@ public class SVMStateHeuristic implements IStateHeuristic {
         double result = svm.svm_predict(model, data);
         return result;
     }
+
+    @Override
+    public double[][] evaluateStates(List<AbstractGameState> states) {
+        // sub-classes that change evaluateState() are evaluated one state at a time
+        if (model == null || getClass() != SVMStateHeuristic.class)
+            return IStateHeuristic.super.evaluateStates(states);
+        // the same svm_nodes are used for every state in the batch
+        svm_node[] data = null;
+        double[][] retValue = new double[states.size()][];
+        for (int i = 0; i < states.size(); i++) {
+            AbstractGameState state = states.get(i);
+            retValue[i] = new double[state.getNPlayers()];
+            for (int p = 0; p < retValue[i].length; p++) {
+                double[] phi = features.featureVector(state, p);
+                if (data == null || data.length != phi.length + 1) {
+                    data = new svm_node[phi.length + 1];
+                    for (int j = 0; j < data.length; j++) {
+                        data[j] = new svm_node();
+                        data[j].index = j;
+                    }
+                    data[0].value = 1.0; // bias
+                }
+                for (int j = 0; j < phi.length; j++)
+                    data[j + 1].value = phi[j];
+                retValue[i][p] = svm.svm_predict(model, data);
+            }
+        }
+        return retValue;
+    }
 }
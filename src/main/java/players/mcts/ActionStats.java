@@ -26,4 +26,51 @@ public class ActionStats {
         nVisits++;
     }
 
+    /**
+     * Adds the statistics from another ActionStats into this one (used to merge trees searched in parallel)
+     */
+    public void add(ActionStats other) {
+        for (int i = 0; i < totValue.length; i++) {
+            totValue[i] += other.totValue[i];
+            squaredTotValue[i] += other.squaredTotValue[i];
+        }
+        nVisits += other.nVisits;
+        validVisits += other.validVisits;
+    }
+
+    /**
+     * Virtual loss is used in tree-parallel search. While one thread is rolling out below this action, we record
+     * some extra visits with a poor value so that other threads are pushed to explore elsewhere.
+     * The same visits and value must be passed to removeVirtualLoss() once the iteration is backed up.
+     */
+    public void addVirtualLoss(int visits, double value) {
+        if (visits == 0) return;
+        for (int i = 0; i < totValue.length; i++)
+            totValue[i] += visits * value;
+        nVisits += visits;
+    }
+
+    public void removeVirtualLoss(int visits, double value) {
+        if (visits == 0) return;
+        for (int i = 0; i < totValue.length; i++)
+            totValue[i] -= visits * value;
+        nVisits -= visits;
+    }
+
+    /**
+     * Sets all statistics back to zero (used when the ActionStats is re-used by a NodePool)
+     */
+    public void reset() {
+        Arrays.fill(totValue, 0.0);
+        Arrays.fill(squaredTotValue, 0.0);
+        nVisits = 0;
+        validVisits = 0;
+    }
+
+    public ActionStats copy() {
+        ActionStats retValue = new ActionStats(totValue.length);
+        retValue.add(this);
+        return retValue;
+    }
+
 }
@@ -3,10 +3,6 @@ package players.mcts;
 import core.interfaces.IActionHeuristic;
 import core.interfaces.IActionKey;
 import players.simple.BoltzmannActionPlayer;
-import utilities.Pair;
-
-import java.util.List;
-import java.util.Map;
 
 public class MASTPlayer extends BoltzmannActionPlayer implements IMASTUser {
 
@@ -15,7 +11,16 @@ public class MASTPlayer extends BoltzmannActionPlayer implements IMASTUser {
         super(new MASTActionHeuristic(null, actionKey, defaultValue), temperature, epsilon, seed);
     }
     @Override
-    public void setStats(List<Map<Object, Pair<Integer, Double>>> MASTStats) {
+    public void setStats(MASTStore MASTStats) {
         ((MASTActionHeuristic)this.actionHeuristic).MASTStatistics = MASTStats;
     }
+
+    @Override
+    public MASTPlayer copy() {
+        // Unlike BoltzmannActionPlayer we are not stateless, as the MAST statistics are specific to one tree
+        MASTActionHeuristic heuristic = (MASTActionHeuristic) actionHeuristic;
+        MASTPlayer retValue = new MASTPlayer(heuristic.actionKey, temperature, epsilon, rnd.nextLong(), heuristic.defaultValue);
+        retValue.setStats(heuristic.MASTStatistics);
+        return retValue;
+    }
 }
@@ -0,0 +1,182 @@
+package players.mcts;
+
+import core.actions.AbstractAction;
+import core.interfaces.IActionKey;
+
+/**
+ * MAST statistics (the number of visits to, and the total value of, each action) for each player.
+ * This is used by MCTSPlayer, RHEAPlayer and MASTPlayer.
+ * <p>
+ * Actions are stored under an int key. This is IActionKey.hash(action) if an IActionKey is used, and
+ * action.hashCode() if not (see key()); two actions with the same key share their statistics.
+ * The statistics for each player are held in primitive arrays using open addressing with linear probing, so an
+ * update or a lookup does not allocate or box anything, and decay() changes them in place.
+ */
+public class MASTStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Table[] tables;
+
+    public MASTStore(int nPlayers) {
+        tables = new Table[nPlayers];
+        for (int p = 0; p < nPlayers; p++)
+            tables[p] = new Table(INITIAL_CAPACITY);
+    }
+
+    private MASTStore(Table[] tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * @param actionKey - the IActionKey used to group actions (or null to use the actions themselves)
+     * @return the key that MAST statistics for action are stored under
+     */
+    public static int key(IActionKey actionKey, AbstractAction action) {
+        return actionKey == null ? action.hashCode() : actionKey.hash(action);
+    }
+
+    /**
+     * Adds one visit with the specified value to the statistics for key
+     */
+    public void update(int player, int key, double value) {
+        Table table = tables[player];
+        int slot = table.slot(key);
+        if (!table.occupied[slot]) {
+            table.add(slot, key);
+            slot = table.slot(key);  // the table may have been resized
+        }
+        table.visits[slot]++;
+        table.values[slot] += value;
+    }
+
+    public int getVisits(int player, int key) {
+        Table table = tables[player];
+        int slot = table.slot(key);
+        return table.occupied[slot] ? table.visits[slot] : 0;
+    }
+
+    public double getTotValue(int player, int key) {
+        Table table = tables[player];
+        int slot = table.slot(key);
+        return table.occupied[slot] ? table.values[slot] : 0.0;
+    }
+
+    /**
+     * @return the mean value for key, or defaultValue if it has no visits
+     */
+    public double getMean(int player, int key, double defaultValue) {
+        Table table = tables[player];
+        int slot = table.slot(key);
+        if (table.occupied[slot] && table.visits[slot] > 0)
+            return table.values[slot] / table.visits[slot];
+        return defaultValue;
+    }
+
+    /**
+     * Decays all the statistics by gamma (in the same way as Utils.decay()). The number of visits is multiplied by
+     * gamma and rounded down, and the total value is scaled to keep the same mean.
+     * Nothing is changed unless 0 <= gamma < 1.
+     */
+    public void decay(double gamma) {
+        if (gamma < 0.0 || gamma >= 1.0)
+            return;
+        for (Table table : tables) {
+            for (int slot = 0; slot < table.keys.length; slot++) {
+                if (!table.occupied[slot] || table.visits[slot] == 0)
+                    continue;
+                int newCount = (int) (table.visits[slot] * gamma);
+                table.values[slot] = newCount == 0 ? 0.0 : table.values[slot] * newCount / table.visits[slot];
+                table.visits[slot] = newCount;
+            }
+        }
+    }
+
+    /**
+     * @return the number of keys with statistics for player
+     */
+    public int size(int player) {
+        return tables[player].size;
+    }
+
+    public int getNPlayers() {
+        return tables.length;
+    }
+
+    public MASTStore copy() {
+        Table[] newTables = new Table[tables.length];
+        for (int p = 0; p < tables.length; p++)
+            newTables[p] = tables[p].copy();
+        return new MASTStore(newTables);
+    }
+
+    private static class Table {
+        int[] keys;
+        boolean[] occupied;
+        int[] visits;
+        double[] values;
+        int size;
+        int mask, shift;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            occupied = new boolean[capacity];
+            visits = new int[capacity];
+            values = new double[capacity];
+            mask = capacity - 1;
+            shift = Integer.numberOfLeadingZeros(mask);
+        }
+
+        /**
+         * @return the slot holding key, or the empty slot it would be added in
+         */
+        int slot(int key) {
+            // Fibonacci hashing, so that keys that differ only in their high bits are spread out
+            int slot = (key * 0x9E3779B9) >>> shift;
+            while (occupied[slot] && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        void add(int slot, int key) {
+            keys[slot] = key;
+            occupied[slot] = true;
+            size++;
+            if (size >= (keys.length >> 2) * 3)
+                resize();
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            boolean[] oldOccupied = occupied;
+            int[] oldVisits = visits;
+            double[] oldValues = values;
+            int capacity = oldKeys.length << 1;
+            keys = new int[capacity];
+            occupied = new boolean[capacity];
+            visits = new int[capacity];
+            values = new double[capacity];
+            mask = capacity - 1;
+            shift = Integer.numberOfLeadingZeros(mask);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldOccupied[i]) {
+                    int slot = slot(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    occupied[slot] = true;
+                    visits[slot] = oldVisits[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        Table copy() {
+            Table retValue = new Table(keys.length);
+            System.arraycopy(keys, 0, retValue.keys, 0, keys.length);
+            System.arraycopy(occupied, 0, retValue.occupied, 0, occupied.length);
+            System.arraycopy(visits, 0, retValue.visits, 0, visits.length);
+            System.arraycopy(values, 0, retValue.values, 0, values.length);
+            retValue.size = size;
+            return retValue;
+        }
+    }
+}
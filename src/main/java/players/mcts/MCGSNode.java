@@ -2,13 +2,16 @@ package players.mcts;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import core.interfaces.ILongStateKey;
 
 import java.util.*;
 
 public class MCGSNode extends SingleTreeNode {
 
-    private final Map<String, MCGSNode> transpositionMap = new HashMap<>();
-    public List<String> trajectory = new ArrayList<>();
+    // Only the root node has a transposition table, and records the trajectory (the keys of the states passed through)
+    private TranspositionTable transpositionTable;
+    private long[] trajectory;
+    private int trajectoryLength;
 
     protected MCGSNode() {
     }
@@ -16,17 +19,25 @@ public class MCGSNode extends SingleTreeNode {
     @Override
     protected void instantiate(SingleTreeNode parent, AbstractAction actionToReach, AbstractGameState state) {
         super.instantiate(parent, actionToReach, state);
+        if (parent == null) {
+            transpositionTable = new TranspositionTable(params.MCGSTableSize, params.MCGSReplacement);
+            trajectory = new long[16];
+        }
         // the only additional instantiation we need to do is to add the state to the transposition table
         addToTranspositionTable(this, state);
     }
 
+    private long stateKey(AbstractGameState state) {
+        return ILongStateKey.longKey(params.MCGSStateKey, state);
+    }
+
     private void addToTranspositionTable(MCGSNode node, AbstractGameState keyState) {
-        String key = params.MCGSStateKey.getKey(keyState);
+        long key = stateKey(keyState);
         MCGSNode graphRoot = (MCGSNode) root;
-        if (graphRoot.transpositionMap.containsKey(key)) {
+        if (graphRoot.transpositionTable.containsKey(key)) {
             throw new AssertionError("Unexpected?");
         }
-        graphRoot.transpositionMap.put(key, node);
+        graphRoot.transpositionTable.put(key, node);
      //   System.out.println("Adding to transposition table: " + key);
     }
 
@@ -42,14 +53,13 @@ public class MCGSNode extends SingleTreeNode {
         // we create the new node here; so that the backup does not create new nodes (which is in line with the main MCTS algorithm).
         // this enforces (for the moment) the rule that each iteration adds one new node.
         MCGSNode graphRoot = (MCGSNode) root;
-        String key = params.MCGSStateKey.getKey(nextState);
-        if (graphRoot.transpositionMap.containsKey(key)) {
+        MCGSNode existing = graphRoot.transpositionTable.get(stateKey(nextState));
+        if (existing != null) {
             if (params.MCGSExpandAfterClash) {
                 throw new AssertionError("Unexpected?");
             } else {
-                MCGSNode retValue =  graphRoot.transpositionMap.get(key);
-                retValue.setActionsFromOpenLoopState(openLoopState);
-                return retValue;
+                existing.setActionsFromOpenLoopState(openLoopState);
+                return existing;
             }
         }
         return createChildNode(actionCopy, nextState);
@@ -58,8 +68,7 @@ public class MCGSNode extends SingleTreeNode {
     @Override
     protected SingleTreeNode nextNodeInTree(AbstractAction actionChosen) {
         // we look up the node in the transposition table using the feature vector for the openLoopState
-        String key = params.MCGSStateKey.getKey(openLoopState);
-        MCGSNode nextNode = ((MCGSNode) root).transpositionMap.get(key);
+        MCGSNode nextNode = ((MCGSNode) root).transpositionTable.get(stateKey(openLoopState));
 
         if (nextNode != null) {
             if (actionValues.get(actionChosen).nVisits == 0) {
@@ -82,8 +91,10 @@ public class MCGSNode extends SingleTreeNode {
             // We only track this while in the tree (we could do the rollout as well, but at the overhead
             // of featureVector calculations
             MCGSNode mcgsRoot = (MCGSNode) root;
-            String key = params.MCGSStateKey.getKey(gs);
-            mcgsRoot.trajectory.add(key);
+            long key = stateKey(gs);
+            if (mcgsRoot.trajectoryLength == mcgsRoot.trajectory.length)
+                mcgsRoot.trajectory = Arrays.copyOf(mcgsRoot.trajectory, mcgsRoot.trajectoryLength * 2);
+            mcgsRoot.trajectory[mcgsRoot.trajectoryLength++] = key;
 //            System.out.println("Adding to trajectory: " + key);
         }
         super.advanceState(gs, act, inRollout);
@@ -100,25 +111,31 @@ public class MCGSNode extends SingleTreeNode {
         double[] result = processResultsForParanoidOrSelfOnly(delta);
         MCGSNode nRoot = (MCGSNode) root;
         // trajectory is the sequence of state representations that we have passed through
-        if (nRoot.trajectory.size() != nRoot.actionsInTree.size()) {
+        if (nRoot.trajectoryLength != nRoot.actionsInTree.size()) {
             throw new AssertionError("Trajectory and actionsInTree should be the same size " +
-                    nRoot.trajectory.size() + " != " + nRoot.actionsInTree.size());
+                    nRoot.trajectoryLength + " != " + nRoot.actionsInTree.size());
         }
 
-        for (int i = 0; i < nRoot.trajectory.size(); i++) {
-            String key = nRoot.trajectory.get(i);
-            MCGSNode node = nRoot.transpositionMap.get(key);
+        for (int i = 0; i < nRoot.trajectoryLength; i++) {
+            MCGSNode node = nRoot.transpositionTable.get(nRoot.trajectory[i]);
             AbstractAction action = nRoot.actionsInTree.get(i).b;
             if (node == null) {
+                // this is only possible if the node has been dropped from a full transposition table
+                if (nRoot.transpositionTable.getEvictions() > 0)
+                    continue;
                 throw new AssertionError("Node should not be null");
             }
             node.backUpSingleNode(action, result);
         }
-        nRoot.trajectory.clear();
+        nRoot.trajectoryLength = 0;
+    }
+
+    public Map<Long, MCGSNode> getTranspositionMap() {
+        return transpositionTable.toMap();
     }
 
-    public Map<String, MCGSNode> getTranspositionMap() {
-        return new HashMap<>(transpositionMap);
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
     }
 
 }
@@ -24,6 +24,25 @@ public class MCTSEnums {
         UCB, UCB_Tuned, AlphaGo, EXP3, RegretMatching, Hedge
     }
 
+    public enum ParallelMode {
+        None, Root, Tree
+        // Root grows one independent tree per thread, and merges the root statistics at the end
+        // Tree grows a single shared tree, using virtual loss to spread the threads out
+    }
+
+    public enum TranspositionReplacement {
+        Grow, KeepExisting, LeastVisited
+        // Grow doubles the size of the MCGS transposition table whenever it is full, so never loses a node
+        // KeepExisting does not store new states once their part of the table is full (they are still searched)
+        // LeastVisited replaces the least visited node in the part of the table the new state would go in
+    }
+
+    public enum NodeLimit {
+        StopExpanding, PruneLeastVisited
+        // StopExpanding adds no more nodes once the tree is full, so later iterations roll out from the edge of the tree
+        // PruneLeastVisited removes the least visited subtrees (a tenth of the tree) to make room for new nodes
+    }
+
     public enum RolloutTermination {
         DEFAULT, END_TURN, START_TURN, END_ROUND;
     }
@@ -27,7 +27,8 @@ public class MCTSMetrics implements IMetricsCollection {
                             .findFirst().orElse(null);
                 }
                 if (root == null) return false;
-                TreeStatistics treeStats = new TreeStatistics(root);
+                // (with pondering, part of the tree may already be being searched on another thread)
+                TreeStatistics treeStats = root == mctsPlayer.root ? mctsPlayer.getTreeStatistics() : new TreeStatistics(root);
                 int visits = root.getVisits();
                 if (visits == 0) visits = 1;
                 records.put("PlayerType", mctsPlayer.toString());
@@ -38,6 +39,8 @@ public class MCTSMetrics implements IMetricsCollection {
                 records.put("MeanNodeDepth", treeStats.meanNodeDepth);
                 records.put("Nodes", treeStats.totalNodes);
                 records.put("OneActionNodes", treeStats.oneActionNodes);
+                records.put("RefusedExpansions", treeStats.refusedExpansions);
+                records.put("PrunedNodes", treeStats.prunedNodes);
                 records.put("MeanActionsAtNode", treeStats.meanActionsAtNode);
                 records.put("RolloutLength", mctsPlayer.root.rolloutActionsTaken / (double) visits);
                 records.put("NodeClashes", mctsPlayer.root.nodeClash);
@@ -48,6 +51,19 @@ public class MCTSMetrics implements IMetricsCollection {
                 records.put("fmCalls", mctsPlayer.root.fmCallsCount / visits);
                 records.put("copyCalls", mctsPlayer.root.copyCount / visits);
                 records.put("time", mctsPlayer.root.timeTaken);
+                // (only set with BUDGET_TIME and no parallel search)
+                records.put("BudgetOverrun", mctsPlayer.getBudgetController().getLastOverrunMillis());
+                records.put("DeterminisationTime", mctsPlayer.root.determinisationNanos / 1e6);
+                records.put("DeterminisationFraction", mctsPlayer.root.searchNanos > 0 ?
+                        mctsPlayer.root.determinisationNanos / (double) mctsPlayer.root.searchNanos : 0.0);
+                int[] threadIterations = mctsPlayer.root.threadIterations;
+                records.put("Threads", threadIterations == null ? 1 : threadIterations.length);
+                records.put("ThreadIterations", threadIterations == null ? String.valueOf(root.getVisits()) :
+                        Arrays.stream(threadIterations).mapToObj(String::valueOf).collect(Collectors.joining("|")));
+                records.put("IterationsPerSecond", mctsPlayer.root.timeTaken > 0 ? root.getVisits() * 1000.0 / mctsPlayer.root.timeTaken : 0.0);
+                // (totals for the game so far, both 0 unless MCTSParams.ponder is set)
+                records.put("PonderTime", mctsPlayer.getPonderTime());
+                records.put("PonderIterations", mctsPlayer.getPonderIterations());
                 return true;
             }
             return false;
@@ -69,6 +85,8 @@ public class MCTSMetrics implements IMetricsCollection {
             cols.put("MeanNodeDepth", Double.class);
             cols.put("Nodes", Integer.class);
             cols.put("OneActionNodes", Integer.class);
+            cols.put("RefusedExpansions", Integer.class);
+            cols.put("PrunedNodes", Integer.class);
             cols.put("MeanActionsAtNode", Double.class);
             cols.put("RolloutLength", Double.class);
             cols.put("NodeClashes", Integer.class);
@@ -78,6 +96,14 @@ public class MCTSMetrics implements IMetricsCollection {
             cols.put("fmCalls", Integer.class);
             cols.put("copyCalls", Integer.class);
             cols.put("time", Double.class);
+            cols.put("BudgetOverrun", Double.class);
+            cols.put("DeterminisationTime", Double.class);
+            cols.put("DeterminisationFraction", Double.class);
+            cols.put("Threads", Integer.class);
+            cols.put("ThreadIterations", String.class);
+            cols.put("IterationsPerSecond", Double.class);
+            cols.put("PonderTime", Double.class);
+            cols.put("PonderIterations", Integer.class);
             return cols;
         }
     }
@@ -61,8 +61,21 @@ public class MCTSParams extends PlayerParameters {
     public IActionKey MASTActionKey;
     public IStateKey MCGSStateKey;
     public boolean MCGSExpandAfterClash = true;
+    public int MCGSTableSize = 1024;
+    public MCTSEnums.TranspositionReplacement MCGSReplacement = MCTSEnums.TranspositionReplacement.Grow;
     public double MASTDefaultValue = 0.0;
     public double firstPlayUrgency = 1000000000.0;
+    public MCTSEnums.ParallelMode parallelMode = MCTSEnums.ParallelMode.None;
+    public int nThreads = 1;
+    public int virtualLoss = 1;
+    public boolean reuseTree = false;
+    public boolean ponder = false;  // search in the background while other players decide (this also re-uses the tree)
+    public boolean poolNodes = false;  // re-use tree nodes between decisions (a tree is then only valid until the next decision)
+    public int maxNodes = 0;  // the most nodes a tree may have (0 for no limit)
+    public int maxMemory = 0;  // the tree stops growing once the JVM heap in use after a garbage collection exceeds this many MB (0 for no limit)
+    public MCTSEnums.NodeLimit nodeLimit = MCTSEnums.NodeLimit.StopExpanding;  // what to do when either limit is reached
+    public int leafBatchSize = 1;  // iterations whose rollouts are evaluated together by heuristic.evaluateStates() (1 for no batching)
+    public int determinisations = 0;  // with Information_Set, cycle through this many determinisations (0 for a new one every iteration); per thread with ParallelMode.Tree
 
     public MCTSParams() {
         addTunableParameter("K", Math.sqrt(2), Arrays.asList(0.0, 0.1, 1.0, Math.sqrt(2), 3.0, 10.0));
@@ -105,7 +118,20 @@ public class MCTSParams extends PlayerParameters {
         addTunableParameter("MASTDefaultValue", 0.0);
         addTunableParameter("MCGSStateKey", IStateKey.class);
         addTunableParameter("MCGSExpandAfterClash", true);
+        addTunableParameter("MCGSTableSize", 1024);
+        addTunableParameter("MCGSReplacement", MCTSEnums.TranspositionReplacement.Grow, Arrays.asList(MCTSEnums.TranspositionReplacement.values()));
         addTunableParameter("FPU", 1000000000.0);
+        addTunableParameter("parallelMode", MCTSEnums.ParallelMode.None, Arrays.asList(MCTSEnums.ParallelMode.values()));
+        addTunableParameter("nThreads", 1);
+        addTunableParameter("virtualLoss", 1, Arrays.asList(0, 1, 3, 10));
+        addTunableParameter("reuseTree", false);
+        addTunableParameter("ponder", false);
+        addTunableParameter("poolNodes", false);
+        addTunableParameter("maxNodes", 0);
+        addTunableParameter("maxMemory", 0);
+        addTunableParameter("nodeLimit", MCTSEnums.NodeLimit.StopExpanding, Arrays.asList(MCTSEnums.NodeLimit.values()));
+        addTunableParameter("determinisations", 0, Arrays.asList(0, 10, 30, 100));
+        addTunableParameter("leafBatchSize", 1, Arrays.asList(1, 4, 16, 64));
     }
 
     @Override
@@ -160,10 +186,23 @@ public class MCTSParams extends PlayerParameters {
         heuristic = (IStateHeuristic) getParameterValue("heuristic");
         MCGSStateKey = (IStateKey) getParameterValue("MCGSStateKey");
         MCGSExpandAfterClash = (boolean) getParameterValue("MCGSExpandAfterClash");
+        MCGSTableSize = (int) getParameterValue("MCGSTableSize");
+        MCGSReplacement = (MCTSEnums.TranspositionReplacement) getParameterValue("MCGSReplacement");
         rolloutPolicyParams = (TunableParameters) getParameterValue("rolloutPolicyParams");
         opponentModelParams = (TunableParameters) getParameterValue("opponentModelParams");
         // we then null those elements of params which are constructed (lazily) from the above
         firstPlayUrgency = (double) getParameterValue("FPU");
+        parallelMode = (MCTSEnums.ParallelMode) getParameterValue("parallelMode");
+        nThreads = (int) getParameterValue("nThreads");
+        virtualLoss = (int) getParameterValue("virtualLoss");
+        reuseTree = (boolean) getParameterValue("reuseTree");
+        ponder = (boolean) getParameterValue("ponder");
+        poolNodes = (boolean) getParameterValue("poolNodes");
+        maxNodes = (int) getParameterValue("maxNodes");
+        maxMemory = (int) getParameterValue("maxMemory");
+        nodeLimit = (MCTSEnums.NodeLimit) getParameterValue("nodeLimit");
+        determinisations = (int) getParameterValue("determinisations");
+        leafBatchSize = (int) getParameterValue("leafBatchSize");
         opponentModel = null;
         rolloutPolicy = null;
     }
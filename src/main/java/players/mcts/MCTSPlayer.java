@@ -8,15 +8,18 @@ import core.interfaces.IActionHeuristic;
 import evaluation.listeners.IGameListener;
 import core.interfaces.IStateHeuristic;
 import evaluation.metrics.Event;
+import players.BudgetController;
 import players.IAnyTimePlayer;
-import utilities.Pair;
-import utilities.Utils;
+import utilities.ElapsedCpuTimer;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import static players.mcts.MCTSEnums.OpponentTreePolicy.*;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.MultiTree;
@@ -26,7 +29,22 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
     // Heuristics used for the agent
     protected boolean debug = false;
     protected SingleTreeNode root;
-    List<Map<Object, Pair<Integer, Double>>> MASTStats;
+    MASTStore MASTStats;
+    private ParallelSearch parallelSearch;
+    private NodePool nodePool;
+    // The length of the game history when root was last searched from (used to re-use the tree)
+    private int historyAtRoot = -1;
+    // Pondering: the search continues from ponderRoot on a background thread while the other players decide
+    private ExecutorService ponderExecutor;
+    // each pondering task returns the CPU time (in nanoseconds) and the number of iterations it used
+    private Future<long[]> ponderTask;
+    private volatile boolean stopPondering;
+    private SingleTreeNode ponderRoot;
+    private long ponderNanos;
+    private int ponderIterations;
+    // the statistics of the tree for the last decision, taken before the node we ponder from was detached from it
+    private TreeStatistics decisionTreeStats;
+    private final BudgetController budgetController = new BudgetController();
 
     public MCTSPlayer() {
         this(new MCTSParams());
@@ -59,6 +77,14 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
         if (getParameters().advantageFunction instanceof AbstractPlayer)
             ((AbstractPlayer) getParameters().advantageFunction).initializePlayer(state);
         MASTStats = null;
+        stopPondering();
+        releaseTree(null);
+        root = null;
+        decisionTreeStats = null;
+        historyAtRoot = -1;
+        ponderNanos = 0;
+        ponderIterations = 0;
+        budgetController.reset();
         getParameters().getRolloutStrategy().initializePlayer(state);
         getParameters().getOpponentModel().initializePlayer(state);
     }
@@ -69,6 +95,13 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
      * example to run a check after each MCTS iteration
      */
     protected Supplier<? extends SingleTreeNode> getFactory() {
+        MCTSParams params = getParameters();
+        if (params.poolNodes && params.parallelMode == MCTSEnums.ParallelMode.None
+                && (params.opponentTreePolicy == OneTree || params.opponentTreePolicy == SelfOnly)) {
+            if (nodePool == null)
+                nodePool = new NodePool();
+            return nodePool;
+        }
         return () -> {
             if (getParameters().opponentTreePolicy == OMA || getParameters().opponentTreePolicy == OMA_All)
                 return new OMATreeNode();
@@ -83,34 +116,229 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
     public void registerUpdatedObservation(AbstractGameState gameState) {
         super.registerUpdatedObservation(gameState);
         // We did not take a decision, so blank out the previous set of data
-        root = null;
+        // (unless we are re-using the tree, in which case the action taken will be found in the history)
+        stopPondering();
+        decisionTreeStats = null;
+        if (!reuseTree() || !reuseRootNode(gameState)) {
+            releaseTree(null);
+            root = null;
+            return;
+        }
+        historyAtRoot = gameState.getHistory().size();
+        if (getParameters().ponder)
+            ponder(root);
+    }
+
+    private boolean reuseTree() {
+        return getParameters().reuseTree || getParameters().ponder;
     }
 
 
     private void createRootNode(AbstractGameState gameState) {
+        releaseTree(null);
         if (getParameters().opponentTreePolicy == MultiTree)
             root = new MultiTreeNode(this, gameState, rnd);
         else
             root = SingleTreeNode.createRootNode(this, gameState, rnd, getFactory());
 
-        if (MASTStats != null)
-            root.MASTStatistics = MASTStats.stream()
-                    .map(m -> Utils.decay(m, getParameters().MASTGamma))
-                    .collect(Collectors.toList());
+        initialiseMAST(root, getParameters().getRolloutStrategy(), getParameters().getOpponentModel());
+    }
 
-        if (getParameters().getRolloutStrategy() instanceof IMASTUser) {
-            ((IMASTUser) getParameters().getRolloutStrategy()).setStats(root.MASTStatistics);
+    /**
+     * If we are using a NodePool, this returns all the nodes in the current tree, and in the tree we have been
+     * pondering from (which is detached from it), apart from those below keep to it. Neither tree must be used
+     * after this.
+     */
+    private void releaseTree(SingleTreeNode keep) {
+        if (nodePool != null && root != null && root.factory == nodePool) {
+            nodePool.release(root, keep);
+            if (ponderRoot != null && ponderRoot != root)
+                nodePool.release(ponderRoot, keep);
         }
-        if (getParameters().getOpponentModel() instanceof IMASTUser) {
-            ((IMASTUser) getParameters().getOpponentModel()).setStats(root.MASTStatistics);
+        ponderRoot = null;
+    }
+
+    /**
+     * If MCTSParams.reuseTree (or ponder) is set, this looks for the node in the tree from our last decision (or
+     * from the node we have been pondering from) that has been reached by the actions taken since (our own, and
+     * those of the other players), and makes that the root.
+     * This is only done with a OneTree opponentTreePolicy (and no parallel search), where the tree holds the
+     * actions of all players, and not with Closed_Loop (where the states stored in the tree would also need to
+     * match the game). It relies on the game history, so does nothing in competition mode.
+     *
+     * @return true if an existing node has become the root, false if a new root node is needed
+     */
+    private boolean reuseRootNode(AbstractGameState gameState) {
+        SingleTreeNode from = ponderRoot != null ? ponderRoot : root;
+        if (!reuseTree() || from == null || historyAtRoot < 0 || getParameters().opponentTreePolicy != OneTree
+                || getParameters().parallelMode != MCTSEnums.ParallelMode.None
+                || getParameters().information == MCTSEnums.Information.Closed_Loop
+                || gameState.getCoreGameParameters().competitionMode)
+            return false;
+        List<AbstractAction> history = gameState.getHistory();
+        if (history.size() < historyAtRoot)
+            return false;
+        SingleTreeNode newRoot = from.descendant(history.subList(historyAtRoot, history.size()), gameState.getCurrentPlayer());
+        if (newRoot == null || newRoot.decisionPlayer != gameState.getCurrentPlayer())
+            return false;
+        newRoot.promoteToRoot(gameState);
+        if (from == ponderRoot)
+            newRoot.setSearchComponents(rnd, getForwardModel(), getParameters().getRolloutStrategy(), getParameters().getOpponentModel());
+        releaseTree(newRoot);
+        root = newRoot;
+        initialiseMAST(root, getParameters().getRolloutStrategy(), getParameters().getOpponentModel());
+        return true;
+    }
+
+    /**
+     * Sets the MAST statistics on a new root node (decayed from those at the end of the last decision),
+     * and passes them to any rollout or opponent policy that uses them.
+     */
+    void initialiseMAST(SingleTreeNode node, AbstractPlayer rolloutPolicy, AbstractPlayer opponentModel) {
+        if (MASTStats != null) {
+            // (this can be called more than once for a decision, so we decay a copy)
+            node.MASTStatistics = MASTStats.copy();
+            node.MASTStatistics.decay(getParameters().MASTGamma);
+        }
+
+        if (rolloutPolicy instanceof IMASTUser) {
+            ((IMASTUser) rolloutPolicy).setStats(node.MASTStatistics);
         }
+        if (opponentModel instanceof IMASTUser) {
+            ((IMASTUser) opponentModel).setStats(node.MASTStatistics);
+        }
+    }
+
+    /**
+     * Called after a decision when MCTSParams.ponder is set. The node for the action we have chosen becomes the
+     * root of a search that runs on a background thread (see ponder()), until the next time we are given a state.
+     * <p>
+     * That node is detached from root, so that the game thread can still read root (for getDecisionStats() and
+     * MCTSMetrics) while the background search changes the nodes below it. The tree statistics are taken first
+     * (see getTreeStatistics()), as they cover the whole tree searched for the decision.
+     */
+    private void startPondering(AbstractAction action) {
+        AbstractGameState nextState = root.state.copy();
+        getForwardModel().next(nextState, action.copy());
+        if (!nextState.isNotTerminal())
+            return;
+        SingleTreeNode node = root.descendant(Collections.singletonList(action), nextState.getCurrentPlayer());
+        if (node == null || node.decisionPlayer != nextState.getCurrentPlayer())
+            return;
+        decisionTreeStats = new TreeStatistics(root);
+        root.children.get(action)[nextState.getCurrentPlayer()] = null;
+        node.promoteToRoot(nextState);
+        historyAtRoot = nextState.getHistory().size();
+        ponder(node);
+    }
+
+    /**
+     * Searches from node on a background thread until stopPondering() is called, or the usual budget for a
+     * decision has been used up (so a player never ponders for longer than it would think about a move).
+     * <p>
+     * The search has its own Random stream, forward model and rollout/opponent policies (as for a thread of a
+     * ParallelSearch); the player's own are put back on the tree if it is re-used (see reuseRootNode()).
+     * <p>
+     * The player timers in the game state measure the CPU time of the game thread only, so none of the time
+     * spent pondering is charged to any player. It is instead recorded here (see getPonderTime()), and the
+     * background thread runs at minimum priority to limit its effect on the wall-clock time of the other players.
+     */
+    private void ponder(SingleTreeNode node) {
+        ponderRoot = node;
+        stopPondering = false;
+        ParallelSearch.Worker worker = new ParallelSearch.Worker(this);
+        node.setSearchComponents(worker.rnd, worker.forwardModel, worker.rolloutPolicy, worker.opponentModel);
+        initialiseMAST(node, worker.rolloutPolicy, worker.opponentModel);
+        if (ponderExecutor == null)
+            ponderExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "MCTS-ponder");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+        ponderTask = ponderExecutor.submit(() -> {
+            // this measures the CPU time of the pondering thread
+            ElapsedCpuTimer timer = new ElapsedCpuTimer();
+            int visitsBefore = node.getVisits();
+            node.mctsSearch(getParameters().budget, () -> stopPondering);
+            return new long[]{timer.elapsedNanos(), node.getVisits() - visitsBefore};
+        });
+    }
+
+    /**
+     * Stops any background search, and waits for it to finish so that the tree can be used again.
+     * The time and iterations it used are then added to the totals for the game.
+     */
+    private void stopPondering() {
+        if (ponderTask == null)
+            return;
+        stopPondering = true;
+        try {
+            long[] used = ponderTask.get();
+            ponderNanos += used[0];
+            ponderIterations += (int) used[1];
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for MCTS pondering to stop", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            ponderTask = null;
+        }
+    }
+
+    /**
+     * @return the statistics of the tree searched for the last decision (taken before pondering started, if it has)
+     */
+    public TreeStatistics getTreeStatistics() {
+        return decisionTreeStats != null ? decisionTreeStats : new TreeStatistics(root);
+    }
+
+    /**
+     * @return the total CPU time (in milliseconds) spent pondering in the current game, up to the last time we were
+     * given a state
+     */
+    public double getPonderTime() {
+        return ponderNanos / 1e6;
+    }
+
+    /**
+     * @return the total number of MCTS iterations run while pondering in the current game, up to the last time we
+     * were given a state
+     */
+    public int getPonderIterations() {
+        return ponderIterations;
+    }
+
+    private ParallelSearch getParallelSearch() {
+        if (parallelSearch == null)
+            parallelSearch = new ParallelSearch(this);
+        return parallelSearch;
     }
 
     @Override
     public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> actions) {
+        decisionTreeStats = null;
         // Search for best action from the root
-        createRootNode(gameState);
-        root.mctsSearch();
+        switch (getParameters().parallelMode) {
+            case None:
+                stopPondering();
+                if (!reuseRootNode(gameState))
+                    createRootNode(gameState);
+                historyAtRoot = reuseTree() ? gameState.getHistory().size() : -1;
+                root.mctsSearch(getParameters().budget, () -> false, budgetController);
+                break;
+            case Root:
+                root = getParallelSearch().rootParallelSearch(gameState);
+                break;
+            case Tree:
+                root = getParallelSearch().treeParallelSearch(gameState);
+                break;
+        }
 
         if (getParameters().advantageFunction instanceof ITreeProcessor)
             ((ITreeProcessor) getParameters().advantageFunction).process(root);
@@ -128,7 +356,10 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
 
         if (!(root instanceof MCGSNode) && root.children.size() > 2 * actions.size() && !getParameters().actionSpace.equals(gameState.getCoreGameParameters().actionSpace))
             throw new AssertionError(String.format("Unexpectedly large number of children: %d with action size of %d", root.children.size(), actions.size()));
-        return root.bestAction();
+        AbstractAction retValue = root.bestAction();
+        if (getParameters().ponder && getParameters().parallelMode == MCTSEnums.ParallelMode.None)
+            startPondering(retValue);
+        return retValue;
     }
 
     @Override
@@ -139,7 +370,17 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
             ((IGameListener) getParameters().heuristic).onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
         if (getParameters().advantageFunction instanceof IGameListener)
             ((IGameListener) getParameters().advantageFunction).onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
-
+        if (parallelSearch != null) {
+            parallelSearch.shutdown();
+            parallelSearch = null;
+        }
+        stopPondering();
+        ponderRoot = null;
+        decisionTreeStats = null;
+        if (ponderExecutor != null) {
+            ponderExecutor.shutdownNow();
+            ponderExecutor = null;
+        }
     }
 
     @Override
@@ -196,6 +437,14 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
         return parameters.budget;
     }
 
+    /**
+     * With parallel search each thread has its own BudgetController, and this one is not used
+     */
+    @Override
+    public BudgetController getBudgetController() {
+        return budgetController;
+    }
+
     @Override
     public String toString() {
         return super.toString();
@@ -3,7 +3,6 @@ package players.mcts;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
-import utilities.Pair;
 import utilities.Utils;
 
 import java.util.*;
@@ -36,19 +35,15 @@ public class MultiTreeNode extends SingleTreeNode {
         this.decisionPlayer = state.getCurrentPlayer();
         this.params = player.getParameters();
         this.forwardModel = player.getForwardModel();
+        this.rolloutPolicy = params.getRolloutStrategy();
+        this.opponentModel = params.getOpponentModel();
         this.rnd = rnd;
         mctsPlayer = player;
         // only root node maintains MAST statistics
-        MASTStatistics = new ArrayList<>();
-        for (int i = 0; i < state.getNPlayers(); i++)
-            MASTStatistics.add(new HashMap<>());
+        MASTStatistics = new MASTStore(state.getNPlayers());
         MASTFunction = (a, s) -> {
-            Map<Object, Pair<Integer, Double>> MAST = MASTStatistics.get(decisionPlayer);
-            if (MAST.containsKey(a)) {
-                Pair<Integer, Double> stats = MAST.get(a);
-                return stats.b / (stats.a + params.noiseEpsilon);
-            }
-            return 0.0;
+            int key = MASTStore.key(params.MASTActionKey, a);
+            return MASTStatistics.getTotValue(decisionPlayer, key) / (MASTStatistics.getVisits(decisionPlayer, key) + params.noiseEpsilon);
         };
         instantiate(null, null, state);
 
@@ -107,7 +102,7 @@ public class MultiTreeNode extends SingleTreeNode {
                 // all actions after the expansion for a player are rollout actions
                 // note that different players will enter rollout at different times, which is why
                 // we cannot have a simple rollout() method as in SingleTree search
-                AbstractPlayer agent = currentActor == decisionPlayer ? params.getRolloutStrategy() : params.getOpponentModel();
+                AbstractPlayer agent = currentActor == decisionPlayer ? rolloutPolicy : opponentModel;
                 List<AbstractAction> availableActions = forwardModel.computeAvailableActions(currentState, mctsPlayer.getParameters().actionSpace);
                 if (availableActions.isEmpty())
                     throw new AssertionError("We should always have something to choose from");
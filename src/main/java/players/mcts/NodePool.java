@@ -0,0 +1,80 @@
+package players.mcts;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * A pool of SingleTreeNodes, and of the ActionStats they hold, that are re-used from one decision to the next
+ * instead of being left for the garbage collector. With large budgets a tree can have hundreds of thousands of
+ * nodes, each with its own maps and arrays; without a pool all of these become garbage after every decision.
+ * <p>
+ * This is used as the node factory by MCTSPlayer when MCTSParams.poolNodes is set. Nodes taken from the pool are
+ * reset by SingleTreeNode.clear() when they are released, so a search gives the same results with or without it.
+ * Once a tree has been released none of its nodes may be used again (so a tree is only valid until the next
+ * decision). This is not thread-safe, and only holds nodes of class SingleTreeNode.
+ */
+public class NodePool implements Supplier<SingleTreeNode> {
+
+    private final ArrayDeque<SingleTreeNode> freeNodes = new ArrayDeque<>();
+    private final ArrayDeque<ActionStats> freeStats = new ArrayDeque<>();
+    private int nodesCreated;
+
+    @Override
+    public SingleTreeNode get() {
+        SingleTreeNode node = freeNodes.pollLast();
+        if (node == null) {
+            node = new SingleTreeNode();
+            nodesCreated++;
+        }
+        return node;
+    }
+
+    ActionStats newActionStats(int nPlayers) {
+        ActionStats stats = freeStats.pollLast();
+        if (stats == null || stats.totValue.length != nPlayers)
+            return new ActionStats(nPlayers);
+        stats.reset();
+        return stats;
+    }
+
+    /**
+     * Returns root and all the nodes below it to the pool, apart from keep and the nodes below that.
+     *
+     * @param root - the root of the tree to release
+     * @param keep - a node in the tree that is still in use (for example the new root when re-using the tree),
+     *             or null to release the whole tree
+     */
+    public void release(SingleTreeNode root, SingleTreeNode keep) {
+        ArrayDeque<SingleTreeNode> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            SingleTreeNode node = queue.poll();
+            // params is only null once a node has been cleared, so this also stops us releasing a node twice
+            if (node == keep || node.params == null)
+                continue;
+            for (SingleTreeNode[] nodeArray : node.children.values()) {
+                if (nodeArray == null) continue;
+                for (SingleTreeNode child : nodeArray)
+                    if (child != null)
+                        queue.add(child);
+            }
+            freeStats.addAll(node.actionValues.values());
+            node.clear();
+            freeNodes.add(node);
+        }
+    }
+
+    /**
+     * @return the number of nodes currently available for re-use
+     */
+    public int size() {
+        return freeNodes.size();
+    }
+
+    /**
+     * @return the total number of nodes created by the pool (the most that have been in use at any one time)
+     */
+    public int getNodesCreated() {
+        return nodesCreated;
+    }
+}
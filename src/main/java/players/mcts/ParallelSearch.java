@@ -0,0 +1,288 @@
+package players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.actions.AbstractAction;
+import players.BudgetController;
+import utilities.ElapsedCpuTimer;
+import utilities.Pair;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static players.PlayerConstants.BUDGET_ITERATIONS;
+import static players.PlayerConstants.BUDGET_TIME;
+import static players.mcts.MCTSEnums.Information.Closed_Loop;
+import static players.mcts.MCTSEnums.OpponentTreePolicy.*;
+
+/**
+ * Runs the MCTS search for a single decision on params.nThreads threads.
+ * <p>
+ * Root parallelisation (ParallelMode.Root) grows one independent tree per thread. Each thread has its own copy of the
+ * state, forward model, rollout/opponent policies and Random stream. Once all are finished the root ActionStats are
+ * merged into the first tree, which is then used for bestAction() as normal.
+ * <p>
+ * Tree parallelisation (ParallelMode.Tree) grows a single shared tree. Selection, expansion and backup are done while
+ * holding a lock on the root, and virtual loss is added to every action on the selected path until the iteration is
+ * backed up so that other threads are pushed to different parts of the tree. The rollout (usually the bulk of the
+ * work) runs outside the lock on a private node owned by each thread. With Information_Set, each thread also takes
+ * its determinisations from that private node, so with params.determinisations set each thread cycles through a pool
+ * of that many of its own; the determinisation and search times are summed over the threads.
+ * <p>
+ * For all budget types other than BUDGET_TIME the budget is the total across all threads. With BUDGET_TIME each thread
+ * searches for the full time (each measuring its own CPU time), so iterations per decision scale with cores.
+ */
+public class ParallelSearch {
+
+    private final MCTSPlayer player;
+    private ExecutorService executor;
+    private int poolSize;
+
+    public ParallelSearch(MCTSPlayer player) {
+        this.player = player;
+    }
+
+    /**
+     * Grows params.nThreads independent trees, and merges their root statistics.
+     *
+     * @param gameState - the state to search from
+     * @return - the root of the first tree, with the merged statistics of all the others
+     */
+    public SingleTreeNode rootParallelSearch(AbstractGameState gameState) {
+        MCTSParams params = player.getParameters();
+        if (params.opponentTreePolicy == MultiTree)
+            throw new AssertionError("Root parallelisation is not supported with MultiTree");
+        int nThreads = Math.max(1, params.nThreads);
+
+        // The roots are all created on this thread, so that the game state is only ever copied by one thread
+        List<SingleTreeNode> roots = new ArrayList<>();
+        for (int i = 0; i < nThreads; i++) {
+            Worker worker = new Worker(player);
+            SingleTreeNode root = SingleTreeNode.createRootNode(player, gameState, worker.rnd, player.getFactory(),
+                    worker.forwardModel, worker.rolloutPolicy, worker.opponentModel);
+            player.initialiseMAST(root, worker.rolloutPolicy, worker.opponentModel);
+            roots.add(root);
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < nThreads; i++) {
+            SingleTreeNode root = roots.get(i);
+            int budget = shareOfBudget(params, i, nThreads);
+            tasks.add(() -> {
+                root.mctsSearch(budget);
+                return null;
+            });
+        }
+        runAll(tasks, nThreads);
+
+        SingleTreeNode retValue = roots.get(0);
+        retValue.mergeRootStatistics(roots.subList(1, nThreads));
+        return retValue;
+    }
+
+    /**
+     * Grows a single tree using params.nThreads threads.
+     *
+     * @param gameState - the state to search from
+     * @return - the root of the shared tree
+     */
+    public SingleTreeNode treeParallelSearch(AbstractGameState gameState) {
+        MCTSParams params = player.getParameters();
+        if (params.opponentTreePolicy != OneTree && params.opponentTreePolicy != SelfOnly)
+            throw new AssertionError("Tree parallelisation is only supported with OneTree or SelfOnly: " + params.opponentTreePolicy);
+        int nThreads = Math.max(1, params.nThreads);
+
+        SingleTreeNode root = SingleTreeNode.createRootNode(player, gameState, player.getRnd(), player.getFactory());
+        player.initialiseMAST(root, root.rolloutPolicy, root.opponentModel);
+        root.initialiseRoot();
+        root.searchNanos = 0;
+        root.threadIterations = new int[nThreads];
+
+        SharedTreeSearch search = new SharedTreeSearch(root);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < nThreads; i++) {
+            int threadIndex = i;
+            // Each thread has a private node used for rollouts, with its own copy of the root state
+            Worker worker = new Worker(player);
+            SingleTreeNode rolloutNode = SingleTreeNode.createRootNode(player, root.state, worker.rnd, SingleTreeNode::new,
+                    worker.forwardModel, worker.rolloutPolicy, worker.opponentModel);
+            player.initialiseMAST(rolloutNode, worker.rolloutPolicy, worker.opponentModel);
+            tasks.add(() -> {
+                search.run(threadIndex, rolloutNode);
+                return null;
+            });
+        }
+        runAll(tasks, nThreads);
+        return root;
+    }
+
+    /**
+     * The shared tree, and the loop run by each thread of a tree-parallel search
+     */
+    private static class SharedTreeSearch {
+        final SingleTreeNode root;
+        final MCTSParams params;
+        int iterations, iterationsStarted;
+
+        SharedTreeSearch(SingleTreeNode root) {
+            this.root = root;
+            this.params = root.params;
+        }
+
+        void run(int threadIndex, SingleTreeNode rolloutNode) {
+            ElapsedCpuTimer elapsedTimer = new ElapsedCpuTimer();
+            // each thread has its own time budget (measured in the CPU time of that thread)
+            BudgetController budgetController = new BudgetController();
+            if (params.budgetType == BUDGET_TIME)
+                budgetController.startDecision(params, root.state, root.decisionPlayer);
+            int decisionPlayer = root.decisionPlayer;
+            // rolloutNode.state is overwritten on each iteration, so we keep hold of the private copy of the root state
+            AbstractGameState threadRootState = rolloutNode.state;
+            long searchStart = System.nanoTime();
+            int threadIterations = 0;
+            boolean stop = false;
+            while (!stop) {
+                // The determinisation for the iteration is taken from this thread's private copy of the root state
+                AbstractGameState iterationState;
+                switch (params.information) {
+                    case Open_Loop:
+                        iterationState = threadRootState.copy();
+                        rolloutNode.copyCount++;
+                        break;
+                    case Information_Set:
+                        // each thread keeps its own pool of params.determinisations states
+                        rolloutNode.state = threadRootState;
+                        iterationState = rolloutNode.determinisation(threadIterations);
+                        break;
+                    default:
+                        iterationState = root.state;
+                }
+                threadIterations++;
+                double[] startingValues = IntStream.range(0, iterationState.getNPlayers())
+                        .mapToDouble(i -> params.heuristic.evaluateState(iterationState, i)).toArray();
+
+                SingleTreeNode selected;
+                List<Pair<Integer, AbstractAction>> actionsInTree;
+                double lossValue;
+                int lossVisits;
+                synchronized (root) {
+                    // with an iteration budget we claim the iteration before starting it, so we never overshoot
+                    if (params.budgetType == BUDGET_ITERATIONS && iterationsStarted >= params.budget)
+                        break;
+                    iterationsStarted++;
+                    root.setActionsFromOpenLoopState(params.information == Closed_Loop ? root.state : iterationState);
+                    root.actionsInTree = new ArrayList<>();
+                    root.actionsInRollout = new ArrayList<>();
+                    selected = root.treePolicy();
+                    actionsInTree = root.actionsInTree;
+                    // the lowest reward seen is used as the virtual loss, so none is applied until we have backed up once
+                    lossValue = root.lowReward;
+                    lossVisits = Double.isInfinite(lossValue) ? 0 : params.virtualLoss;
+                    root.applyToPath(actionsInTree, stats -> stats.addVirtualLoss(lossVisits, lossValue));
+                    // the rollout is then run from this thread's private node
+                    rolloutNode.state = selected.state;
+                    rolloutNode.openLoopState = selected.openLoopState;
+                }
+
+                int lastActorInTree = actionsInTree.isEmpty() ? decisionPlayer : actionsInTree.get(actionsInTree.size() - 1).a;
+                rolloutNode.actionsInRollout = new ArrayList<>();
+                double[] delta = rolloutNode.rollout(startingValues, lastActorInTree);
+                // rollout MAST statistics are kept per thread, so that rollout policies never read a map being updated
+                rolloutNode.updateMASTStatistics(new ArrayList<>(actionsInTree), new ArrayList<>(rolloutNode.actionsInRollout), delta);
+
+                synchronized (root) {
+                    root.applyToPath(actionsInTree, stats -> stats.removeVirtualLoss(lossVisits, lossValue));
+                    root.actionsInTree = actionsInTree;
+                    root.rolloutActionsTaken += rolloutNode.actionsInRollout.size();
+                    root.fmCallsCount += rolloutNode.fmCallsCount;
+                    root.copyCount += rolloutNode.copyCount;
+                    root.determinisationNanos += rolloutNode.determinisationNanos;
+                    rolloutNode.fmCallsCount = 0;
+                    rolloutNode.copyCount = 0;
+                    rolloutNode.determinisationNanos = 0;
+                    selected.backUp(delta);
+                    root.updateMASTStatistics(actionsInTree, rolloutNode.actionsInRollout, delta);
+                    iterations++;
+                    root.threadIterations[threadIndex]++;
+                    if (params.budgetType == BUDGET_TIME)
+                        stop = root.budgetExhausted(root.threadIterations[threadIndex], params.budget, budgetController);
+                    else
+                        stop = root.budgetExhausted(iterations, params.budget, budgetController);
+                    root.timeTaken = Math.max(root.timeTaken, elapsedTimer.elapsedMillis());
+                }
+            }
+            synchronized (root) {
+                // summed over the threads, so that DeterminisationFraction is the fraction of all search time
+                root.searchNanos += System.nanoTime() - searchStart;
+            }
+        }
+    }
+
+    /**
+     * The Random stream, forward model and rollout/opponent policies for a search on a thread other than the
+     * player's own (also used by MCTSPlayer for pondering). This must be created on the player's thread.
+     */
+    static class Worker {
+        final Random rnd;
+        final AbstractForwardModel forwardModel;
+        final AbstractPlayer rolloutPolicy, opponentModel;
+
+        Worker(MCTSPlayer player) {
+            MCTSParams params = player.getParameters();
+            rnd = new Random(player.getRnd().nextLong());
+            forwardModel = player.getForwardModel().copy();
+            rolloutPolicy = copyPolicy(params.getRolloutStrategy());
+            opponentModel = params.getOpponentModel() == params.getRolloutStrategy() ? rolloutPolicy : copyPolicy(params.getOpponentModel());
+        }
+
+        private AbstractPlayer copyPolicy(AbstractPlayer policy) {
+            AbstractPlayer retValue = policy.copy();
+            // Some policies are stateless apart from their Random, and return themselves from copy()
+            if (retValue != policy) {
+                retValue.getRnd().setSeed(rnd.nextLong());
+                retValue.setForwardModel(forwardModel);
+            }
+            return retValue;
+        }
+    }
+
+    private static int shareOfBudget(MCTSParams params, int thread, int nThreads) {
+        if (params.budgetType == BUDGET_TIME)
+            return params.budget;
+        return params.budget / nThreads + (thread < params.budget % nThreads ? 1 : 0);
+    }
+
+    private void runAll(List<Callable<Void>> tasks, int nThreads) {
+        if (executor == null || poolSize != nThreads) {
+            shutdown();
+            poolSize = nThreads;
+            executor = Executors.newFixedThreadPool(nThreads, r -> {
+                Thread t = new Thread(r, "MCTS-search");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during parallel MCTS search", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+        executor = null;
+    }
+}
@@ -3,9 +3,14 @@ package players.mcts;
 import core.*;
 import core.actions.AbstractAction;
 import core.interfaces.IStateHeuristic;
+import players.BudgetController;
 import players.PlayerConstants;
 import utilities.*;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.*;
 import java.util.function.*;
 import java.util.stream.IntStream;
@@ -21,6 +26,10 @@ import static utilities.Utils.*;
 
 public class SingleTreeNode {
 
+    // The heap memory pools, for the memory limit (see treeIsFull())
+    private static final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP).collect(toList());
+
     //  private final Map<AbstractAction, Integer> nValidVisits = new HashMap<>();
     // State in this node (closed loop)
     protected AbstractGameState state;
@@ -30,6 +39,9 @@ public class SingleTreeNode {
     protected MCTSParams params;
     protected AbstractForwardModel forwardModel;
     protected Random rnd;
+    // Policies used in rollouts (and for opponents in SelfOnly trees). These are held on the root so that
+    // parallel searches can give each thread its own copies
+    protected AbstractPlayer rolloutPolicy, opponentModel;
     // Number of FM calls and State copies up until this node
     protected int fmCallsCount;
     protected int copyCount;
@@ -56,6 +68,16 @@ public class SingleTreeNode {
     protected double highReward = Double.NEGATIVE_INFINITY;
     protected double lowReward = Double.POSITIVE_INFINITY;
     protected int nodeClash;
+    // Iterations run by each thread in a parallel search (null if the search was single-threaded)
+    int[] threadIterations;
+    // The number of nodes in the tree, the most it may have (0 for no limit), the number of times a node was not added
+    // because of this limit (StopExpanding), and the number of nodes removed to make room (PruneLeastVisited).
+    // These are only maintained on the root
+    int treeSize, nodeCap, refusedExpansions, prunedNodes;
+    // Determinisations of the root state used by an Information_Set search (see determinisation()), and the time
+    // spent creating them and in the whole search (only on the root). The pool is null until it is first needed
+    List<AbstractGameState> determinisationPool;
+    long determinisationNanos, searchNanos;
     // Root node of tree
     protected SingleTreeNode root;
     // Parent of this node
@@ -65,11 +87,11 @@ public class SingleTreeNode {
     // only ever have one position in the array populated: and similarly if we are using a SelfOnly tree).
     Map<AbstractAction, SingleTreeNode[]> children = new LinkedHashMap<>();
     Map<AbstractAction, ActionStats> actionValues = new HashMap<>();
-    List<Map<Object, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
+    MASTStore MASTStatistics; // (visits, totValue) for each action, for each player
     ToDoubleBiFunction<AbstractAction, AbstractGameState> advantageFunction = (a, s) -> advantagesOfActionsFromOLS.getOrDefault(a, 0.0);
     ToDoubleBiFunction<AbstractAction, AbstractGameState> MASTFunction;
     // The total value of all trajectories through this node (one element per player)
-    private Supplier<? extends SingleTreeNode> factory;
+    Supplier<? extends SingleTreeNode> factory;
     // Total value of this node
     protected List<Pair<Integer, AbstractAction>> actionsInTree;
     List<Pair<Integer, AbstractAction>> actionsInRollout;
@@ -80,16 +102,26 @@ public class SingleTreeNode {
     // Called in tree expansion
     public static SingleTreeNode createRootNode(MCTSPlayer player, AbstractGameState state, Random rnd, Supplier<? extends SingleTreeNode> factory) {
         MCTSParams mctsParams = player.getParameters();
+        return createRootNode(player, state, rnd, factory, player.getForwardModel(),
+                mctsParams.getRolloutStrategy(), mctsParams.getOpponentModel());
+    }
+
+    /**
+     * As createRootNode(player, state, rnd, factory), but with the forward model and rollout/opponent policies
+     * specified explicitly. This is used by parallel search, where each thread needs its own copies of these.
+     */
+    public static SingleTreeNode createRootNode(MCTSPlayer player, AbstractGameState state, Random rnd, Supplier<? extends SingleTreeNode> factory,
+                                                AbstractForwardModel forwardModel, AbstractPlayer rolloutPolicy, AbstractPlayer opponentModel) {
         SingleTreeNode retValue = factory.get();
         retValue.factory = factory;
         retValue.decisionPlayer = state.getCurrentPlayer();
         retValue.params = player.getParameters();
-        retValue.forwardModel = player.getForwardModel();
+        retValue.forwardModel = forwardModel;
+        retValue.rolloutPolicy = rolloutPolicy;
+        retValue.opponentModel = opponentModel;
         retValue.rnd = rnd;
         // only root node maintains MAST statistics
-        retValue.MASTStatistics = new ArrayList<>();
-        for (int i = 0; i < state.getNPlayers(); i++)
-            retValue.MASTStatistics.add(new HashMap<>());
+        retValue.MASTStatistics = new MASTStore(state.getNPlayers());
         MASTActionHeuristic MASTHeuristic = new MASTActionHeuristic(retValue.MASTStatistics, retValue.params.MASTActionKey, retValue.params.MASTDefaultValue);
         retValue.MASTFunction = MASTHeuristic::evaluateAction;
         retValue.instantiate(null, null, state);
@@ -109,6 +141,8 @@ public class SingleTreeNode {
         this.root = parent == null ? this : parent.root;
         this.params = root.params;
         this.forwardModel = root.forwardModel;
+        this.rolloutPolicy = root.rolloutPolicy;
+        this.opponentModel = root.opponentModel;
         this.rnd = root.rnd;
         this.round = state.getRoundCounter();
         this.turn = state.getTurnCounter();
@@ -121,8 +155,13 @@ public class SingleTreeNode {
         if (parent != null) {
             depth = parent.depth + 1;
             factory = parent.factory;
+            root.treeSize++;
         } else {
             depth = 0;
+            treeSize = 1;
+            nodeCap = params.maxNodes;
+            refusedExpansions = 0;
+            prunedNodes = 0;
         }
 
         if (params.information != Closed_Loop && (params.maintainMasterState || depth == 0)) {
@@ -144,6 +183,66 @@ public class SingleTreeNode {
         return state;
     }
 
+    private ActionStats newActionStats(int nPlayers) {
+        if (factory instanceof NodePool)
+            return ((NodePool) factory).newActionStats(nPlayers);
+        return new ActionStats(nPlayers);
+    }
+
+    /**
+     * Resets this node to the state it was in when constructed, so that it can be re-used by a NodePool.
+     * The children, actionValues and open loop action collections are cleared rather than replaced, so that they keep
+     * their capacity.
+     */
+    void clear() {
+        state = null;
+        openLoopState = null;
+        params = null;
+        forwardModel = null;
+        rnd = null;
+        rolloutPolicy = null;
+        opponentModel = null;
+        fmCallsCount = 0;
+        copyCount = 0;
+        paranoidPlayer = -1;
+        actionToReach = null;
+        nVisits = 0;
+        rolloutActionsTaken = 0;
+        rolloutDepth = 0;
+        roundAtStartOfRollout = 0;
+        turnAtStartOfRollout = 0;
+        lastActorInRollout = 0;
+        actionsFromOpenLoopState.clear();
+        advantagesOfActionsFromOLS.clear();
+        depth = 0;
+        decisionPlayer = 0;
+        round = 0;
+        turn = 0;
+        turnOwner = 0;
+        terminalNode = false;
+        timeTaken = 0.0;
+        highReward = Double.NEGATIVE_INFINITY;
+        lowReward = Double.POSITIVE_INFINITY;
+        nodeClash = 0;
+        threadIterations = null;
+        treeSize = 0;
+        nodeCap = 0;
+        refusedExpansions = 0;
+        prunedNodes = 0;
+        determinisationPool = null;
+        determinisationNanos = 0;
+        searchNanos = 0;
+        root = null;
+        parent = null;
+        children.clear();
+        actionValues.clear();
+        MASTStatistics = null;
+        MASTFunction = null;
+        factory = null;
+        actionsInTree = null;
+        actionsInRollout = null;
+    }
+
     private boolean terminalStateInSelfOnlyTree(AbstractGameState state) {
         // we then have some exceptions
         if (params.opponentTreePolicy.selfOnlyTree && parent != null)
@@ -154,21 +253,24 @@ public class SingleTreeNode {
     protected void setActionsFromOpenLoopState(AbstractGameState actionState) {
         openLoopState = actionState;
         if (actionState.getCurrentPlayer() == this.decisionPlayer && actionState.isNotTerminalForPlayer(decisionPlayer)) {
-            actionsFromOpenLoopState = forwardModel.computeAvailableActions(actionState, params.actionSpace);
+            // copied into our own list (rather than keeping the one returned) so that clear() can empty it
+            actionsFromOpenLoopState.clear();
+            actionsFromOpenLoopState.addAll(forwardModel.computeAvailableActions(actionState, params.actionSpace));
             //      System.out.printf("Setting OLS actions for P%d (%d)%n%s%n", decisionPlayer, actionState.getCurrentPlayer(),
 //                actionsFromOpenLoopState.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
             if (actionsFromOpenLoopState.size() != actionsFromOpenLoopState.stream().distinct().count())
                 throw new AssertionError("Duplicate actions found in action list: " +
                         actionsFromOpenLoopState.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
             if (params.expansionPolicy == MAST) {
-                advantagesOfActionsFromOLS = actionsFromOpenLoopState.stream()
-                        .collect(toMap(a -> a, a -> root.MASTFunction.applyAsDouble(a, actionState)));
+                advantagesOfActionsFromOLS.clear();
+                for (AbstractAction action : actionsFromOpenLoopState)
+                    advantagesOfActionsFromOLS.put(action, root.MASTFunction.applyAsDouble(action, actionState));
             } else {
                 if (params.advantageFunction != null) {
                     // advantagesOfActionsFromOLS = actionsFromOpenLoopState.stream()
                     //        .collect(toMap(a -> a, a -> params.advantageFunction.evaluateAction(a, actionState)));
                     double[] actionValues = params.advantageFunction.evaluateAllActions(actionsFromOpenLoopState, actionState);
-                    advantagesOfActionsFromOLS = new HashMap<>();
+                    advantagesOfActionsFromOLS.clear();
                     for (int i = 0; i < actionsFromOpenLoopState.size(); i++) {
                         advantagesOfActionsFromOLS.put(actionsFromOpenLoopState.get(i), actionValues[i]);
                     }
@@ -176,7 +278,7 @@ public class SingleTreeNode {
             }
             for (AbstractAction action : actionsFromOpenLoopState) {
                 if (!actionValues.containsKey(action)) {
-                    actionValues.put(action, new ActionStats(actionState.getNPlayers()));
+                    actionValues.put(action, newActionStats(actionState.getNPlayers()));
                     children.put(action.copy(), null); // mark a new node to be expanded
                     // This *does* rely on a good equals method being implemented for Actions
                     if (!children.containsKey(action))
@@ -192,71 +294,160 @@ public class SingleTreeNode {
         timeTaken = 0.0;
         nodeClash = 0;
         rolloutActionsTaken = 0;
+        threadIterations = null;
+        // the root state may have changed since the last search (if the tree is re-used)
+        if (determinisationPool != null)
+            determinisationPool.clear();
+        determinisationNanos = 0;
     }
 
     /**
      * Performs full MCTS search, using the defined budget limits.
      */
     public void mctsSearch() {
+        mctsSearch(params.budget);
+    }
+
+    /**
+     * Performs full MCTS search, using the specified budget (in the units of params.budgetType).
+     * Parallel searches use this to split a total budget across threads.
+     */
+    public void mctsSearch(int budget) {
+        mctsSearch(budget, () -> false);
+    }
+
+    /**
+     * As mctsSearch(budget), but also stops (at the end of an iteration) as soon as stopSearch returns true.
+     * This is used to interrupt a search running on another thread (for example when pondering).
+     */
+    public void mctsSearch(int budget, BooleanSupplier stopSearch) {
+        mctsSearch(budget, stopSearch, new BudgetController());
+    }
+
+    /**
+     * As mctsSearch(budget, stopSearch), with budgetController used to decide when to stop with BUDGET_TIME (and
+     * to record any overrun of the time budget).
+     */
+    public void mctsSearch(int budget, BooleanSupplier stopSearch, BudgetController budgetController) {
         initialiseRoot();
-        // Variables for tracking time budget
-        double avgTimeTaken;
-        long remaining;
-        int remainingLimit = params.breakMS;
         ElapsedCpuTimer elapsedTimer = new ElapsedCpuTimer();
-        if (params.budgetType == BUDGET_TIME) {
-            elapsedTimer.setMaxTimeMillis(params.budget);
-        }
+        if (params.budgetType == BUDGET_TIME)
+            budgetController.startDecision(budget, params, state, decisionPlayer);
 
+        long searchStart = System.nanoTime();
         // Tracking number of iterations for iteration budget
         int numIters = 0;
         boolean stop = false;
+        // MultiTree and MCGS have their own ways of tracking the path taken through the tree, so do not batch
+        boolean batch = params.leafBatchSize > 1 && !(this instanceof MultiTreeNode) && !(this instanceof MCGSNode);
         while (!stop) {
-            switch (params.information) {
-                case Closed_Loop:
-                    setActionsFromOpenLoopState(state);
-                    break;
-                case Open_Loop:
-                    setActionsFromOpenLoopState(state.copy());
-                    copyCount++;
-                    break;
-                case Information_Set:
-                    setActionsFromOpenLoopState(state.copy(decisionPlayer));
-                    copyCount++;
-                    break;
-            }
+            if (batch) {
+                // we never go over an iteration budget
+                int batchSize = params.budgetType == BUDGET_ITERATIONS ?
+                        Math.max(1, Math.min(params.leafBatchSize, budget - numIters)) : params.leafBatchSize;
+                batchSearchIterations(batchSize, numIters);
+                numIters += batchSize;
+            } else {
+                setActionsFromOpenLoopState(iterationState(numIters));
 
-            // New timer for this iteration
-            //      ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+                // New timer for this iteration
+                //      ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
 
-            //   System.out.println("Starting MCTS Search iteration " + numIters);
+                //   System.out.println("Starting MCTS Search iteration " + numIters);
 
-            // Selection + expansion: navigate tree until a node not fully expanded is found, add a new node to the tree
-            oneSearchIteration();
+                // Selection + expansion: navigate tree until a node not fully expanded is found, add a new node to the tree
+                oneSearchIteration();
 
-            // Finished iteration
-            numIters++;
+                // Finished iteration
+                numIters++;
+            }
             //       System.out.printf("MCTS Iteration %d, timeLeft: %d\n", numIters, elapsedTimer.remainingTimeMillis());
             // Check stopping condition
-            PlayerConstants budgetType = params.budgetType;
-            if (budgetType == BUDGET_TIME) {
-                // Time budget
-                remaining = elapsedTimer.remainingTimeMillis();
-                avgTimeTaken = (double) elapsedTimer.elapsedMillis() / numIters;
-                stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
-            } else if (budgetType == BUDGET_ITERATIONS) {
-                // Iteration budget
-                stop = numIters >= params.budget;
-            } else if (budgetType == BUDGET_FM_CALLS) {
-                // FM calls budget
-                stop = fmCallsCount > params.budget || numIters > params.budget;
-            } else if (budgetType == BUDGET_COPY_CALLS) {
-                stop = copyCount > params.budget || numIters > params.budget;
-            } else if (budgetType == BUDGET_FMANDCOPY_CALLS) {
-                stop = (copyCount + fmCallsCount) > params.budget || numIters > params.budget;
-            }
+            stop = budgetExhausted(numIters, budget, budgetController) || stopSearch.getAsBoolean();
         }
+        if (params.budgetType == BUDGET_TIME)
+            budgetController.endDecision();
         timeTaken = elapsedTimer.elapsedMillis();
+        searchNanos = System.nanoTime() - searchStart;
+    }
+
+    /**
+     * The state to start an iteration from (this is then used as the openLoopState of the root)
+     *
+     * @param iteration - the number of iterations so far in this search
+     */
+    protected AbstractGameState iterationState(int iteration) {
+        switch (params.information) {
+            case Closed_Loop:
+                return state;
+            case Open_Loop:
+                copyCount++;
+                return state.copy();
+            case Information_Set:
+                return determinisation(iteration);
+            default:
+                throw new AssertionError("Unknown information type: " + params.information);
+        }
+    }
+
+    /**
+     * The state to use for an Information_Set iteration. This is a new determinisation of the root state, unless
+     * params.determinisations is set. In that case the first that many iterations each keep the determinisation they
+     * use, and later iterations cycle through copies of these. A plain copy() is much cheaper than copy(player) in
+     * games with hidden information, as it does not have to shuffle the hidden decks.
+     *
+     * @param iteration - the number of iterations so far in this search
+     */
+    protected AbstractGameState determinisation(int iteration) {
+        long start = System.nanoTime();
+        AbstractGameState retValue;
+        if (params.determinisations > 0 && iteration >= params.determinisations) {
+            retValue = determinisationPool.get(iteration % params.determinisations).copy();
+        } else {
+            retValue = state.copy(decisionPlayer);
+            if (params.determinisations > 0) {
+                // the search changes the state it is given, so the pool keeps its own copy
+                if (determinisationPool == null)
+                    determinisationPool = new ArrayList<>(params.determinisations);
+                determinisationPool.add(retValue);
+                retValue = retValue.copy();
+                copyCount++;
+            }
+        }
+        copyCount++;
+        determinisationNanos += System.nanoTime() - start;
+        return retValue;
+    }
+
+    /**
+     * Checks the stopping condition for the search. This is only called on the root node.
+     *
+     * With BUDGET_TIME this is called once at the end of each iteration (or batch of iterations), and records the
+     * time taken by it.
+     *
+     * @param numIters         - iterations completed so far
+     * @param budget           - the budget for this search
+     * @param budgetController - started at the beginning of the search (on the thread running the search)
+     * @return - true if the search should stop
+     */
+    protected boolean budgetExhausted(int numIters, int budget, BudgetController budgetController) {
+        PlayerConstants budgetType = params.budgetType;
+        if (budgetType == BUDGET_TIME) {
+            // Time budget
+            budgetController.endIteration();
+            return budgetController.budgetExhausted();
+        } else if (budgetType == BUDGET_ITERATIONS) {
+            // Iteration budget
+            return numIters >= budget;
+        } else if (budgetType == BUDGET_FM_CALLS) {
+            // FM calls budget
+            return fmCallsCount > budget || numIters > budget;
+        } else if (budgetType == BUDGET_COPY_CALLS) {
+            return copyCount > budget || numIters > budget;
+        } else if (budgetType == BUDGET_FMANDCOPY_CALLS) {
+            return (copyCount + fmCallsCount) > budget || numIters > budget;
+        }
+        return false;
     }
 
     /**
@@ -271,11 +462,12 @@ public class SingleTreeNode {
         actionsInRollout = new ArrayList<>();
 
         SingleTreeNode selected = treePolicy();
-        if (selected == this && openLoopState.isNotTerminalForPlayer(decisionPlayer) && nVisits > 3 && !(this instanceof MCGSNode))
+        if (selected == this && openLoopState.isNotTerminalForPlayer(decisionPlayer) && nVisits > 3 && !(this instanceof MCGSNode)
+                && (nodeCap == 0 || treeSize < nodeCap))
             throw new AssertionError("We have not expanded or selected a new node");
         // by this point (and really earlier) we should have expanded a new node.
         // selected == this is a clear sign that we have a problem in the expansion phase
-        // although if we have no decisions to make - this is fine
+        // although if we have no decisions to make (or the tree is full) - this is fine
 
         // Monte carlo rollout: return value of MC rollout from the newly added node
         int lastActorInTree = actionsInTree.isEmpty() ? decisionPlayer : actionsInTree.get(actionsInTree.size() - 1).a;
@@ -287,6 +479,72 @@ public class SingleTreeNode {
         updateMASTStatistics(actionsInTree, actionsInRollout, delta);
     }
 
+    /**
+     * Runs n search iterations with their state evaluations batched (see MCTSParams.leafBatchSize). This is only called
+     * on the root.
+     * Each iteration selects and expands a node, and plays out its rollout, but does not evaluate the final state.
+     * Virtual loss is added to its path through the tree until it is backed up, so that the later iterations in the
+     * batch spread out across the tree. The start and end states of all n iterations are then scored by two calls to
+     * params.heuristic.evaluateStates(), and each iteration is backed up in turn.
+     *
+     * @param iterationsSoFar - the number of iterations before this batch in this search
+     */
+    protected void batchSearchIterations(int n, int iterationsSoFar) {
+        List<AbstractGameState> startStates = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            startStates.add(iterationState(iterationsSoFar + i));
+        double[][] startingValues = params.heuristic.evaluateStates(startStates);
+
+        List<SingleTreeNode> selected = new ArrayList<>(n);
+        List<List<Pair<Integer, AbstractAction>>> treeActions = new ArrayList<>(n);
+        List<List<Pair<Integer, AbstractAction>>> rolloutActions = new ArrayList<>(n);
+        List<AbstractGameState> finalStates = new ArrayList<>(n);
+        // as in a tree-parallel search, the lowest reward seen is used as the virtual loss
+        double lossValue = lowReward;
+        int lossVisits = Double.isInfinite(lossValue) ? 0 : params.virtualLoss;
+        for (int i = 0; i < n; i++) {
+            setActionsFromOpenLoopState(startStates.get(i));
+            actionsInTree = new ArrayList<>();
+            actionsInRollout = new ArrayList<>();
+            SingleTreeNode node = treePolicy();
+            applyToPath(actionsInTree, stats -> stats.addVirtualLoss(lossVisits, lossValue));
+            int lastActorInTree = actionsInTree.isEmpty() ? decisionPlayer : actionsInTree.get(actionsInTree.size() - 1).a;
+            finalStates.add(node.playRollout(lastActorInTree));
+            selected.add(node);
+            treeActions.add(actionsInTree);
+            rolloutActions.add(actionsInRollout);
+        }
+
+        double[][] finalValues = params.heuristic.evaluateStates(finalStates);
+        for (int i = 0; i < n; i++) {
+            actionsInTree = treeActions.get(i);
+            actionsInRollout = rolloutActions.get(i);
+            applyToPath(actionsInTree, stats -> stats.removeVirtualLoss(lossVisits, lossValue));
+            double[] delta = rolloutDelta(finalValues[i], startingValues[i]);
+            rolloutActionsTaken += actionsInRollout.size();
+            selected.get(i).backUp(delta);
+            updateMASTStatistics(actionsInTree, actionsInRollout, delta);
+        }
+    }
+
+    /**
+     * Walks down the tree following the actions taken in an iteration (in the same way as backUp()),
+     * and applies the function to the ActionStats of each action on the path. This is only called on the root.
+     */
+    void applyToPath(List<Pair<Integer, AbstractAction>> actions, Consumer<ActionStats> function) {
+        SingleTreeNode n = this;
+        for (int i = 0; i < actions.size(); i++) {
+            AbstractAction action = actions.get(i).b;
+            function.accept(n.actionValues.get(action));
+            if (i < actions.size() - 1) {
+                SingleTreeNode[] nextN = n.children.get(action);
+                if (nextN == null)
+                    throw new AssertionError("We have somehow failed to find the next node in the tree");
+                n = nextN[actions.get(i + 1).a];
+            }
+        }
+    }
+
     protected void updateMASTStatistics(List<Pair<Integer, AbstractAction>> tree, List<Pair<Integer, AbstractAction>> rollout, double[] value) {
         if (params.useMAST) {
             List<Pair<Integer, AbstractAction>> MASTActions = new ArrayList<>();
@@ -335,11 +593,6 @@ public class SingleTreeNode {
         return actionValues.values().stream().mapToDouble(s -> s.totValue[playerId]).sum() / nVisits;
     }
 
-    private double actionSquaredValue(AbstractAction action, int playerId) {
-        ActionStats stats = actionValues.get(action);
-        return stats == null ? 0.0 : stats.squaredTotValue[playerId];
-    }
-
     /**
      * Uses only by TreeStatistics and bestAction() after mctsSearch()
      * For this reason not converted to old-style java loop as there would be no performance gain
@@ -386,6 +639,9 @@ public class SingleTreeNode {
             SingleTreeNode nextNode = cur.nextNodeInTree(chosen);
             // if and only if we do not find a new node, then we need to expand and create a new node
             if (nextNode == null) {
+                // unless the tree is full, in which case we roll out from here
+                if (treeIsFull() && !makeRoom(cur))
+                    return cur;
                 return cur.expandNode(chosen, cur.openLoopState);
             }
             cur = nextNode;
@@ -393,6 +649,86 @@ public class SingleTreeNode {
         return cur;
     }
 
+    /**
+     * Checks the node and memory limits in MCTSParams. The memory limit becomes a node limit the first time the heap
+     * still in use after a garbage collection is over it. (The heap in use at any other time includes garbage, such as
+     * the states copied in earlier iterations, so it says little about the size of the tree.)
+     * This is only called on the root. It never limits an MCGS graph (MCGSTableSize and MCGSReplacement do that).
+     */
+    boolean treeIsFull() {
+        if (this instanceof MCGSNode)
+            return false;
+        if (params.maxMemory > 0 && (treeSize & 63) == 0) {
+            // checking once every 64 nodes keeps this cheap
+            if (heapUsedAfterGC() > params.maxMemory * 1048576L)
+                nodeCap = nodeCap == 0 ? treeSize : Math.min(nodeCap, treeSize);
+        }
+        return nodeCap > 0 && treeSize >= nodeCap;
+    }
+
+    /**
+     * @return the bytes in use in the heap just after the last garbage collection of each part of it (0 before the
+     * first collection)
+     */
+    static long heapUsedAfterGC() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null)
+                used += usage.getUsed();
+        }
+        return used;
+    }
+
+    /**
+     * Called on the root when the tree is full and we want to add a new node below node.
+     * With StopExpanding this does nothing. This is also the case in a tree-parallel search (or when leaf evaluations
+     * are batched), as other iterations may still have to back up through any node. With PruneLeastVisited the least visited subtrees are removed (their statistics
+     * are kept in the parent node) until the tree is a tenth below its limit. Nothing on the path from the root to
+     * node is removed.
+     *
+     * @return true if there is now room for a new node
+     */
+    boolean makeRoom(SingleTreeNode node) {
+        if (params.nodeLimit == MCTSEnums.NodeLimit.PruneLeastVisited && params.parallelMode != MCTSEnums.ParallelMode.Tree
+                && params.leafBatchSize <= 1) {
+            Set<SingleTreeNode> path = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (SingleTreeNode n = node; n != null; n = n.parent)
+                path.add(n);
+            List<SingleTreeNode> candidates = allNodesInTree();
+            candidates.removeIf(path::contains);
+            candidates.sort(Comparator.comparingInt((SingleTreeNode n) -> n.nVisits).thenComparingInt(n -> -n.depth));
+            int target = nodeCap - Math.max(1, nodeCap / 10);
+            for (SingleTreeNode candidate : candidates) {
+                if (treeSize <= target)
+                    break;
+                // (if root is not this, then the candidate has already been removed with one of its ancestors)
+                if (candidate.root == this)
+                    removeSubtree(candidate);
+            }
+            if (treeSize < nodeCap)
+                return true;
+        }
+        refusedExpansions++;
+        return false;
+    }
+
+    private void removeSubtree(SingleTreeNode node) {
+        SingleTreeNode[] nodeArray = node.parent.children.get(node.actionToReach);
+        for (int i = 0; i < nodeArray.length; i++)
+            if (nodeArray[i] == node)
+                nodeArray[i] = null;
+        List<SingleTreeNode> removed = node.allNodesInTree();
+        treeSize -= removed.size();
+        prunedNodes += removed.size();
+        if (factory instanceof NodePool) {
+            ((NodePool) factory).release(node, null);
+        } else {
+            for (SingleTreeNode n : removed)
+                n.root = null;
+        }
+    }
+
     protected List<AbstractAction> actionsToConsider(List<AbstractAction> allAvailable, int usedElsewhere) {
         if (!allAvailable.isEmpty() && params.progressiveWideningConstant >= 1.0) {
             int actionsToConsider = (int) Math.floor(params.progressiveWideningConstant * Math.pow(nVisits + 1, params.progressiveWideningExponent));
@@ -496,7 +832,7 @@ public class SingleTreeNode {
         AbstractAction action = null;
         while (gs.getCurrentPlayer() != id && gs.isNotTerminalForPlayer(id) && !(inRollout && finishRollout(gs))) {
             //       AbstractGameState preGS = gs.copy();
-            AbstractPlayer oppModel = params.getOpponentModel();
+            AbstractPlayer oppModel = root.opponentModel;
             List<AbstractAction> availableActions = forwardModel.computeAvailableActions(gs, params.actionSpace);
             if (availableActions.isEmpty())
                 throw new AssertionError("Should always have at least one action possible..." + (action != null ? " Last action: " + action : ""));
@@ -599,12 +935,13 @@ public class SingleTreeNode {
         for (AbstractAction action : availableActions) {
             // Find 'UCB' value
             double uctValue = 0;
-            // Find child value
-            if (actionValues.get(action) == null || actionValues.get(action).nVisits == 0) {
+            // Find child value (we look up the statistics once, and then read the fields directly)
+            ActionStats stats = actionValues.get(action);
+            if (stats == null || stats.nVisits == 0) {
                 uctValue = untriedActionValue(action);
             } else {
-                double hvVal = actionTotValue(action, decisionPlayer);
-                int actionVisits = actionVisits(action);
+                double hvVal = stats.totValue[decisionPlayer];
+                int actionVisits = stats.nVisits;
                 double childValue = hvVal / (actionVisits + params.noiseEpsilon);
 
                 // consider OMA term
@@ -625,9 +962,9 @@ public class SingleTreeNode {
                         if (tmp == null) {
                             throw new AssertionError("We have somehow failed to find the OMA node for this action");
                         }
-                        OMATreeNode.OMAStats stats = tmp.get(action);
-                        if (stats != null) {
-                            double omaValue = stats.OMATotValue / stats.OMAVisits;
+                        OMATreeNode.OMAStats omaStats = tmp.get(action);
+                        if (omaStats != null) {
+                            double omaValue = omaStats.OMATotValue / omaStats.OMAVisits;
                             childValue = (1.0 - beta) * childValue + beta * omaValue;
                         }
                     }
@@ -646,7 +983,7 @@ public class SingleTreeNode {
                 }
 
                 // default to standard UCB
-                int effectiveTotalVisits = validVisitsFor(action) + 1;
+                int effectiveTotalVisits = (params.information == Closed_Loop ? nVisits : stats.validVisits) + 1;
                 double explorationTerm = params.K * Math.sqrt(Math.log(effectiveTotalVisits) / (actionVisits + params.noiseEpsilon));
                 // unless we are using a variant
                 switch (params.treePolicy) {
@@ -656,13 +993,13 @@ public class SingleTreeNode {
                     case UCB_Tuned:
                         double range = root.highReward - root.lowReward;
                         if (range < 1e-6) range = 1e-6;
-                        double meanSq = actionSquaredValue(action, decisionPlayer) / (actionVisits + params.noiseEpsilon);
+                        double meanSq = stats.squaredTotValue[decisionPlayer] / (actionVisits + params.noiseEpsilon);
                         double standardVar = 0.25;
                         if (params.normaliseRewards) {
                             // we also need to standardise the sum of squares to calculate the variance
                             meanSq = (meanSq
                                     + root.lowReward * root.lowReward
-                                    - 2 * root.lowReward * actionTotValue(action, decisionPlayer) / (actionVisits + params.noiseEpsilon)
+                                    - 2 * root.lowReward * hvVal / (actionVisits + params.noiseEpsilon)
                             ) / (range * range);
                         } else {
                             // we need to modify the standard variance as it is not on a 0..1 basis (which is where 0.25 comes from)
@@ -772,6 +1109,30 @@ public class SingleTreeNode {
      * @return - value of rollout.
      */
     protected double[] rollout(double[] startingValues, int lastActor) {
+        AbstractGameState rolloutState = playRollout(lastActor);
+        // Evaluate final state and return normalised score
+        double[] finalValues = new double[rolloutState.getNPlayers()];
+        for (int i = 0; i < finalValues.length; i++)
+            finalValues[i] = params.heuristic.evaluateState(rolloutState, i);
+        return rolloutDelta(finalValues, startingValues);
+    }
+
+    private static double[] rolloutDelta(double[] finalValues, double[] startingValues) {
+        double[] retValue = new double[finalValues.length];
+        for (int i = 0; i < retValue.length; i++) {
+            retValue[i] = finalValues[i] - startingValues[i];
+            if (Double.isNaN(retValue[i]))
+                throw new AssertionError("Illegal heuristic value - should be a number");
+        }
+        return retValue;
+    }
+
+    /**
+     * Plays out the rollout from this node, without evaluating the state it ends in.
+     *
+     * @return - the state at the end of the rollout
+     */
+    protected AbstractGameState playRollout(int lastActor) {
         rolloutDepth = 0; // counting from end of tree
         lastActorInRollout = lastActor;
         roundAtStartOfRollout = openLoopState.getRoundCounter();
@@ -795,21 +1156,13 @@ public class SingleTreeNode {
                 if (availableActions.isEmpty()) {
                     throw new AssertionError("No actions available in rollout!" + (next != null? " Last action: " + next : ""));
                 }
-                AbstractPlayer agent = rolloutState.getCurrentPlayer() == root.decisionPlayer ? params.getRolloutStrategy() : params.getOpponentModel();
+                AbstractPlayer agent = rolloutState.getCurrentPlayer() == root.decisionPlayer ? root.rolloutPolicy : root.opponentModel;
                 next = agent.getAction(rolloutState, availableActions);
                 lastActorInRollout = rolloutState.getCurrentPlayer();
                 advanceState(rolloutState, next, true);
             }
         }
-        // Evaluate final state and return normalised score
-        double[] retValue = new double[rolloutState.getNPlayers()];
-
-        for (int i = 0; i < retValue.length; i++) {
-            retValue[i] = params.heuristic.evaluateState(rolloutState, i) - startingValues[i];
-            if (Double.isNaN(retValue[i]))
-                throw new AssertionError("Illegal heuristic value - should be a number");
-        }
-        return retValue;
+        return rolloutState;
     }
 
     /**
@@ -914,9 +1267,12 @@ public class SingleTreeNode {
 
         // then we update the statistics for the action taken
         for (AbstractAction action : actionsFromOpenLoopState) {
-            if (!actionValues.containsKey(action))
-                actionValues.put(action, new ActionStats(result.length));
-            actionValues.get(action).validVisits++;
+            ActionStats validStats = actionValues.get(action);
+            if (validStats == null) {
+                validStats = newActionStats(result.length);
+                actionValues.put(action, validStats);
+            }
+            validStats.validVisits++;
         }
         ActionStats stats = actionValues.get(actionTaken);
         if (stats == null)
@@ -929,12 +1285,134 @@ public class SingleTreeNode {
         for (Pair<Integer, AbstractAction> pair : rolloutActions) {
             AbstractAction action = pair.b;
             int player = pair.a;
-            Object actionKey = params.MASTActionKey == null ? action.copy() : params.MASTActionKey.key(action);
-            Pair<Integer, Double> stats = MASTStatistics.get(player).getOrDefault(actionKey, new Pair<>(0, 0.0));
-            stats.a++;  // visits
-            stats.b += delta[player];   // value
-            MASTStatistics.get(player).put(actionKey, stats);
+            MASTStatistics.update(player, MASTStore.key(params.MASTActionKey, action), delta[player]);
+        }
+    }
+
+    /**
+     * Used by root parallelisation. This adds the root statistics of each of the other (independently searched)
+     * trees into this one, so that bestAction() and getDecisionStats() reflect the combined search.
+     * The sub-trees below the other roots are not merged, and are discarded (as are their MAST statistics, which
+     * all started from the same values carried over from the previous decision).
+     *
+     * @param others - the roots of the other trees
+     */
+    void mergeRootStatistics(List<SingleTreeNode> others) {
+        threadIterations = new int[others.size() + 1];
+        threadIterations[0] = nVisits;
+        for (int i = 0; i < others.size(); i++) {
+            SingleTreeNode other = others.get(i);
+            threadIterations[i + 1] = other.nVisits;
+            for (AbstractAction action : other.actionValues.keySet()) {
+                ActionStats stats = actionValues.get(action);
+                if (stats == null)
+                    actionValues.put(action, other.actionValues.get(action).copy());
+                else
+                    stats.add(other.actionValues.get(action));
+            }
+            nVisits += other.nVisits;
+            fmCallsCount += other.fmCallsCount;
+            copyCount += other.copyCount;
+            rolloutActionsTaken += other.rolloutActionsTaken;
+            nodeClash += other.nodeClash;
+            timeTaken = Math.max(timeTaken, other.timeTaken);
+            lowReward = Math.min(lowReward, other.lowReward);
+            highReward = Math.max(highReward, other.highReward);
+        }
+    }
+
+    /**
+     * Finds the node in the tree below this one that is reached by taking the specified actions in turn.
+     * This is used to re-use the tree from the last decision (see MCTSParams.reuseTree).
+     * <p>
+     * The child reached by an action depends on the player who acts next. For the last action this is nextPlayer;
+     * for the others we use the child that the next action was taken from.
+     *
+     * @param actions    - the actions taken since the decision at this node (by all players)
+     * @param nextPlayer - the player to act after the last of these actions
+     * @return - the node reached, or null if the actions leave the tree (or it is not clear which node they reach)
+     */
+    public SingleTreeNode descendant(List<AbstractAction> actions, int nextPlayer) {
+        SingleTreeNode node = this;
+        for (int i = 0; i < actions.size(); i++) {
+            SingleTreeNode[] nodeArray = node.children.get(actions.get(i));
+            if (nodeArray == null)
+                return null;
+            SingleTreeNode next = null;
+            if (i == actions.size() - 1) {
+                next = nodeArray[nextPlayer];
+            } else {
+                for (SingleTreeNode child : nodeArray) {
+                    if (child != null && child.children.containsKey(actions.get(i + 1))) {
+                        if (next != null)
+                            return null;  // ambiguous
+                        next = child;
+                    }
+                }
+            }
+            if (next == null)
+                return null;
+            node = next;
+        }
+        return node;
+    }
+
+    /**
+     * Sets the Random, forward model and rollout/opponent policies used by every node in this tree, for example so
+     * that a search on another thread has its own copies of them (see MCTSPlayer.ponder()). This must be called on
+     * the root, and not while the tree is being searched.
+     */
+    void setSearchComponents(Random rnd, AbstractForwardModel forwardModel, AbstractPlayer rolloutPolicy, AbstractPlayer opponentModel) {
+        for (SingleTreeNode node : allNodesInTree()) {
+            node.rnd = rnd;
+            node.forwardModel = forwardModel;
+            node.rolloutPolicy = rolloutPolicy;
+            node.opponentModel = opponentModel;
+        }
+    }
+
+    /**
+     * Makes this node the root of a new tree for a search from state, keeping the statistics gathered in this node
+     * and all nodes below it. The rest of the old tree (everything not below this node) is discarded.
+     * If this is already the root, then this just updates the root state.
+     * This must be called on a node of an Open_Loop or Information_Set tree created by createRootNode(), and reached
+     * from the root by the actions that have been taken in the game since (see descendant()).
+     *
+     * @param state - the current game state, as the root state of the new tree
+     */
+    public void promoteToRoot(AbstractGameState state) {
+        SingleTreeNode oldRoot = root;
+        if (oldRoot != this) {
+            int depthOffset = depth;
+            parent = null;
+            actionToReach = null;
+            List<SingleTreeNode> nodes = allNodesInTree();
+            for (SingleTreeNode node : nodes) {
+                node.root = this;
+                node.depth -= depthOffset;
+            }
+            treeSize = nodes.size();
         }
+        nodeCap = params.maxNodes;
+        refusedExpansions = 0;
+        prunedNodes = 0;
+        factory = oldRoot.factory;
+        highReward = oldRoot.highReward;
+        lowReward = oldRoot.lowReward;
+        paranoidPlayer = oldRoot.paranoidPlayer;
+        MASTStatistics = new MASTStore(state.getNPlayers());
+        MASTActionHeuristic MASTHeuristic = new MASTActionHeuristic(MASTStatistics, params.MASTActionKey, params.MASTDefaultValue);
+        MASTFunction = MASTHeuristic::evaluateAction;
+        fmCallsCount = 0;
+        copyCount = 0;
+        round = state.getRoundCounter();
+        turn = state.getTurnCounter();
+        turnOwner = state.getCurrentPlayer();
+        terminalNode = !state.isNotTerminal();
+        copyCount++;
+        this.state = state.copy();
+        // this will add any actions now available that were not seen from this node before
+        setActionsFromOpenLoopState(this.state);
     }
 
     /**
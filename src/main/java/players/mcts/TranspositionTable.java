@@ -0,0 +1,191 @@
+package players.mcts;
+
+import core.interfaces.ILongStateKey;
+
+import java.util.*;
+
+import static players.mcts.MCTSEnums.TranspositionReplacement.*;
+
+/**
+ * The transposition table used by MCGS, from 64-bit state keys to nodes.
+ * <p>
+ * This uses open addressing with linear probing in two parallel arrays, so a lookup does not allocate anything.
+ * A key is only ever looked for in the PROBE_LIMIT slots from its hashed position. When all of these are full,
+ * what happens depends on the TranspositionReplacement policy:
+ * - Grow doubles the size of the table (this is also done when it is three-quarters full), so no node is ever lost
+ * - KeepExisting does not store the new node
+ * - LeastVisited replaces the node with the fewest visits (other than the root) in those slots
+ * With the last two the table never grows beyond its initial capacity, and getEvictions() counts the nodes that
+ * were dropped or not stored (getReplacements() counts only those dropped).
+ */
+public class TranspositionTable {
+
+    static final int PROBE_LIMIT = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final MCTSEnums.TranspositionReplacement replacement;
+    private long[] keys;
+    private MCGSNode[] nodes;
+    private int mask;
+    private int size;
+    private int evictions, replacements;
+
+    /**
+     * @param capacity    - initial number of slots (rounded up to a power of 2, and at least PROBE_LIMIT)
+     * @param replacement - what to do when a new node cannot be stored near its hashed position
+     */
+    public TranspositionTable(int capacity, MCTSEnums.TranspositionReplacement replacement) {
+        this.replacement = replacement;
+        int slots = PROBE_LIMIT;
+        while (slots < capacity && slots < MAX_CAPACITY)
+            slots <<= 1;
+        allocate(slots);
+    }
+
+    private void allocate(int slots) {
+        keys = new long[slots];
+        nodes = new MCGSNode[slots];
+        mask = slots - 1;
+        size = 0;
+    }
+
+    private int index(long key) {
+        return (int) ILongStateKey.mix(key) & mask;
+    }
+
+    public MCGSNode get(long key) {
+        int start = index(key);
+        for (int i = 0; i < PROBE_LIMIT; i++) {
+            int slot = (start + i) & mask;
+            MCGSNode node = nodes[slot];
+            if (node == null)
+                return null;
+            if (keys[slot] == key)
+                return node;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores node under key, replacing any node already stored with that key.
+     *
+     * @return false if the node was not stored (only possible with KeepExisting)
+     */
+    public boolean put(long key, MCGSNode node) {
+        if (replacement == Grow && size >= (nodes.length >> 2) * 3 && nodes.length < MAX_CAPACITY)
+            resize();
+        while (true) {
+            int start = index(key);
+            for (int i = 0; i < PROBE_LIMIT; i++) {
+                int slot = (start + i) & mask;
+                if (nodes[slot] == null) {
+                    keys[slot] = key;
+                    nodes[slot] = node;
+                    size++;
+                    return true;
+                }
+                if (keys[slot] == key) {
+                    nodes[slot] = node;
+                    return true;
+                }
+            }
+            // all the slots this key can go in are full
+            if (replacement == Grow && nodes.length < MAX_CAPACITY) {
+                resize();
+                continue;
+            }
+            if (replacement == LeastVisited) {
+                int victim = -1;
+                for (int i = 0; i < PROBE_LIMIT; i++) {
+                    int slot = (start + i) & mask;
+                    MCGSNode candidate = nodes[slot];
+                    if (candidate.root == candidate)
+                        continue;
+                    if (victim == -1 || candidate.nVisits < nodes[victim].nVisits)
+                        victim = slot;
+                }
+                if (victim > -1) {
+                    keys[victim] = key;
+                    nodes[victim] = node;
+                    evictions++;
+                    replacements++;
+                    return true;
+                }
+            }
+            evictions++;
+            return false;
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        MCGSNode[] oldNodes = nodes;
+        int slots = oldNodes.length << 1;
+        boolean placedAll = false;
+        while (!placedAll) {
+            allocate(slots);
+            placedAll = true;
+            for (int i = 0; i < oldNodes.length && placedAll; i++) {
+                if (oldNodes[i] != null)
+                    placedAll = place(oldKeys[i], oldNodes[i]);
+            }
+            slots <<= 1;
+        }
+    }
+
+    private boolean place(long key, MCGSNode node) {
+        int start = index(key);
+        for (int i = 0; i < PROBE_LIMIT; i++) {
+            int slot = (start + i) & mask;
+            if (nodes[slot] == null) {
+                keys[slot] = key;
+                nodes[slot] = node;
+                size++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the number of nodes that have been replaced by another, or not stored at all, because the table was full
+     */
+    public int getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of nodes that have been replaced by another because the table was full (with LeastVisited)
+     */
+    public int getReplacements() {
+        return replacements;
+    }
+
+    public List<MCGSNode> values() {
+        List<MCGSNode> retValue = new ArrayList<>(size);
+        for (MCGSNode node : nodes)
+            if (node != null)
+                retValue.add(node);
+        return retValue;
+    }
+
+    public Map<Long, MCGSNode> toMap() {
+        Map<Long, MCGSNode> retValue = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++)
+            if (nodes[i] != null)
+                retValue.put(keys[i], nodes[i]);
+        return retValue;
+    }
+}
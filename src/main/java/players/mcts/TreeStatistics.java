@@ -23,10 +23,14 @@ public class TreeStatistics {
     public int maxActionsAtNode;
     public double meanActionsAtNode;
     public int oneActionNodes;
+    // the number of times a node was not added to the tree because it was full, and the number of nodes removed from
+    // it to make room (in an MCGS graph, those not stored in or replaced in the transposition table)
+    public int refusedExpansions;
+    public int prunedNodes;
 
 
     public void mcgsStats(MCGSNode root) {
-        Map<String, MCGSNode> transpositionMap = root.getTranspositionMap();
+        Map<Long, MCGSNode> transpositionMap = root.getTranspositionMap();
         totalNodes = transpositionMap.size();
         Map<Integer, List<MCGSNode>> byDepth = transpositionMap.values().stream()
                 .collect(Collectors.groupingBy(MCGSNode::getDepth));
@@ -44,6 +48,9 @@ public class TreeStatistics {
         meanLeafDepth = totalLeaves > 0 ? IntStream.range(0, depthReached + 1).mapToDouble(i -> i * leafDistribution[i]).sum() : 0;
         meanNodeDepth = IntStream.range(0, depthReached + 1).mapToDouble(i -> i * nodeDistribution[i]).sum();
         oneActionNodes = (int) transpositionMap.values().stream().filter(n -> n.actionValues.size() == 1).count();
+        TranspositionTable table = root.getTranspositionTable();
+        prunedNodes = table.getReplacements();
+        refusedExpansions = table.getEvictions() - prunedNodes;
     }
 
     public TreeStatistics(SingleTreeNode root) {
@@ -99,6 +106,8 @@ public class TreeStatistics {
         depthReached = greatestDepth;
         totalNodes = Arrays.stream(nodesAtDepth).sum();
         oneActionNodes = oneAction;
+        refusedExpansions = root.refusedExpansions;
+        prunedNodes = root.prunedNodes;
 
         meanActionsAtNode = (double) totalActions / totalNodes;
         totalLeaves = Arrays.stream(leavesAtDepth).sum();
@@ -114,6 +123,10 @@ public class TreeStatistics {
     public String toString() {
         StringBuilder retValue = new StringBuilder();
         retValue.append(String.format("%d nodes and %d leaves, with maximum depth %d\n", totalNodes, totalLeaves, depthReached));
+        if (refusedExpansions > 0)
+            retValue.append(String.format("\t%d expansions refused\n", refusedExpansions));
+        if (prunedNodes > 0)
+            retValue.append(String.format("\t%d nodes pruned\n", prunedNodes));
         List<String> nodeDist = Arrays.stream(nodeDistribution).mapToObj(n -> String.format("%2.0f%%", n * 100.0)).collect(toList());
         List<String> leafDist = Arrays.stream(leafDistribution).mapToObj(n -> String.format("%2.0f%%", n * 100.0)).collect(toList());
         retValue.append(String.format("\tNodes  by depth: %s\n", String.join(", ", nodeDist)));
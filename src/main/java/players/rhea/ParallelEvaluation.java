@@ -0,0 +1,135 @@
+package players.rhea;
+
+import core.AbstractForwardModel;
+import core.AbstractPlayer;
+import utilities.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Mutates (and so evaluates) the individuals of an RHEA population on params.nThreads threads.
+ * <p>
+ * The population is split into one contiguous block per thread. Each thread has its own copy of the forward model and
+ * of the rollout policy. Each individual is given its own Random stream for the duration of its mutation, seeded from
+ * the player's Random in population order before any thread starts; so the results for a given seed do not depend on
+ * the order in which the threads run (or on the number of threads, as long as there is more than one).
+ * The FM and copy calls of each individual are returned in population order, so that the player's budget is counted
+ * exactly as in a serial evaluation.
+ * <p>
+ * MAST statistics are only updated (by the player) once all the individuals have been evaluated, so unlike a serial
+ * evaluation the rollouts in one generation do not see the statistics from earlier rollouts in the same generation.
+ * The heuristic is shared by all threads, so must not keep any state of its own.
+ */
+public class ParallelEvaluation {
+
+    private final RHEAPlayer player;
+    private ExecutorService executor;
+    private int poolSize;
+    private Worker[] workers;
+
+    public ParallelEvaluation(RHEAPlayer player) {
+        this.player = player;
+    }
+
+    /**
+     * Creates the per-thread copies of the forward model and rollout policy for a decision.
+     *
+     * @param rolloutPolicy - the rollout policy used by the individuals for this decision
+     */
+    public void startDecision(AbstractPlayer rolloutPolicy) {
+        int nThreads = Math.max(1, player.getParameters().nThreads);
+        workers = new Worker[nThreads];
+        for (int i = 0; i < nThreads; i++)
+            workers[i] = new Worker(rolloutPolicy);
+    }
+
+    /**
+     * Mutates each individual in population (as RHEAIndividual.mutate())
+     *
+     * @return the FM and copy calls for each individual, in the same order as population
+     */
+    public List<Pair<Integer, Integer>> mutate(List<RHEAIndividual> population) {
+        RHEAParams params = player.getParameters();
+        int playerID = player.getPlayerID();
+        long[] seeds = new long[population.size()];
+        for (int i = 0; i < seeds.length; i++)
+            seeds[i] = player.getRnd().nextLong();
+        @SuppressWarnings("unchecked")
+        Pair<Integer, Integer>[] calls = new Pair[population.size()];
+
+        int nThreads = workers.length;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < nThreads; t++) {
+            Worker worker = workers[t];
+            int from = population.size() * t / nThreads;
+            int to = population.size() * (t + 1) / nThreads;
+            tasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    RHEAIndividual individual = population.get(i);
+                    Random gen = individual.getRandom();
+                    AbstractPlayer rolloutPolicy = individual.rolloutPolicy;
+                    worker.rnd.setSeed(seeds[i]);
+                    worker.rolloutPolicy.getRnd().setSeed(worker.rnd.nextLong());
+                    individual.setRandom(worker.rnd);
+                    individual.rolloutPolicy = worker.rolloutPolicy;
+                    calls[i] = individual.mutate(worker.forwardModel, playerID, params.mutationCount);
+                    individual.setRandom(gen);
+                    individual.rolloutPolicy = rolloutPolicy;
+                }
+                return null;
+            });
+        }
+        runAll(tasks, nThreads);
+        return List.of(calls);
+    }
+
+    /**
+     * The resources that each thread needs its own copy of
+     */
+    private class Worker {
+        final Random rnd = new Random();
+        final AbstractForwardModel forwardModel;
+        final AbstractPlayer rolloutPolicy;
+
+        Worker(AbstractPlayer policy) {
+            forwardModel = player.getForwardModel().copy();
+            rolloutPolicy = policy.copy();
+            rolloutPolicy.setForwardModel(forwardModel);
+        }
+    }
+
+    private void runAll(List<Callable<Void>> tasks, int nThreads) {
+        if (executor == null || poolSize != nThreads) {
+            shutdown();
+            poolSize = nThreads;
+            executor = Executors.newFixedThreadPool(nThreads, r -> {
+                Thread t = new Thread(r, "RHEA-evaluation");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during parallel RHEA evaluation", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+        executor = null;
+    }
+}
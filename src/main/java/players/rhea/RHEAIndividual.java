@@ -8,6 +8,7 @@ import core.interfaces.IStateHeuristic;
 import utilities.Pair;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
 
 public class RHEAIndividual implements Comparable<RHEAIndividual> {
@@ -16,21 +17,34 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
     protected int nonRepairCount;
     AbstractAction[] actions;         // Actions in individual. Intended max length of individual = actions.length
     AbstractGameState[] gameStates;   // Game states in individual.
+    double[] scores;                  // Heuristic value of each of gameStates (so these are only evaluated once)
     double value;                     // Fitness of individual, to be maximised.
     int length;                       // Actual length of individual, <= actions.length
     double discountFactor;            // Discount factor for calculating rewards
     IStateHeuristic heuristic;
     AbstractPlayer rolloutPolicy;
+    // In closed loop mode gameStates are only changed by a rollout, and are valid up to (and including) the state at
+    // index stateLimit. Genes from stateLimit onwards may have been changed (by crossover) since the last rollout.
+    boolean closedLoop;
+    int stateLimit;
     private Random gen;               // Random generator
 
     RHEAIndividual(int L, double discountFactor, AbstractForwardModel fm, AbstractGameState gs,
                    int playerID, Random gen, IStateHeuristic heuristic,
                    AbstractPlayer rolloutPolicy) {
+        this(L, discountFactor, fm, gs, playerID, gen, heuristic, rolloutPolicy, false);
+    }
+
+    RHEAIndividual(int L, double discountFactor, AbstractForwardModel fm, AbstractGameState gs,
+                   int playerID, Random gen, IStateHeuristic heuristic,
+                   AbstractPlayer rolloutPolicy, boolean closedLoop) {
         // Initialize
         this.gen = gen;
         this.discountFactor = discountFactor;
+        this.closedLoop = closedLoop;
         actions = new AbstractAction[L];
         gameStates = new AbstractGameState[L + 1];
+        scores = new double[L + 1];
         this.heuristic = heuristic;
         this.rolloutPolicy = rolloutPolicy;
 
@@ -47,6 +61,9 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         discountFactor = I.discountFactor;
         heuristic = I.heuristic;
         rolloutPolicy = I.rolloutPolicy;
+        closedLoop = I.closedLoop;
+        stateLimit = I.stateLimit;
+        scores = I.scores.clone();
 
         for (int i = 0; i < length; i++) {
             actions[i] = I.actions[i]; //.copy();
@@ -57,10 +74,39 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         gen = I.gen;
     }
 
+    Random getRandom() {
+        return gen;
+    }
+
+    /**
+     * Sets the Random used by mutate() and rollout() (parallel evaluation gives each individual its own)
+     */
+    void setRandom(Random gen) {
+        this.gen = gen;
+    }
+
+    /**
+     * Sets gene to to gene from of other (as part of crossover).
+     * In closed loop mode we keep our own game states, and the next rollout starts from the first changed gene.
+     * Otherwise the game state before the gene is also taken from other.
+     */
+    void copyGene(RHEAIndividual other, int from, int to) {
+        if (closedLoop) {
+            if (to < stateLimit && !Objects.equals(actions[to], other.actions[from]))
+                stateLimit = to;
+        } else {
+            gameStates[to] = other.gameStates[from];
+            scores[to] = other.scores[from];
+        }
+        actions[to] = other.actions[from];
+    }
+
     /**
      * Mutates this individual, by picking an index and changing all genes from that point on.
      * Updates the length of the individual in case the rollout hits game end.
      * Also evaluates the individual as a rollout is needed for mutation, and updates the value.
+     * In closed loop mode a mutation that picks the action already at that position changes nothing, and if
+     * nothing has changed since the last rollout then no rollout is done.
      *
      * @param fm       - forward model
      * @param playerID - ID of player, used in evaluation of fitness
@@ -69,19 +115,22 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
      */
     public Pair<Integer, Integer> mutate(AbstractForwardModel fm, int playerID, int mutationCount) {
         // Find index from which to mutate individual, random in range of currently valid length
-        int startIndex = actions.length;
+        int startIndex = closedLoop ? Math.min(stateLimit, actions.length) : actions.length;
         for (int mutation = 0; mutation < mutationCount; mutation++) {
             int position = gen.nextInt(length); // we only consider actions up to the end of the game (which will therefore increase mutation rate towards game end)
             if (gameStates[position] != null) {
                 List<AbstractAction> available = fm.computeAvailableActions(gameStates[position]);
-                actions[position] = available.get(gen.nextInt(available.size()));
+                AbstractAction newAction = available.get(gen.nextInt(available.size()));
+                if (closedLoop && newAction.equals(actions[position]))
+                    continue;
+                actions[position] = newAction;
                 if (position < startIndex)
                     startIndex = position;  // start the rollout from the first mutation
             }
         }
 
         // Perform rollout and return number of FM calls taken.
-        if (gameStates[startIndex] == null) {
+        if (gameStates[startIndex] == null || (closedLoop && startIndex >= length)) {
             return new Pair<>(0, 0);
         } else {
             return rollout(fm, startIndex, playerID, true);
@@ -92,6 +141,8 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
      * Performs a rollout with random actions from startIndex to endIndex in the individual, from root game state gs.
      * Starts by repairing the full individual, then mutates it, and finally evaluates it.
      * Evaluates the final state reached and returns the number of calls to the FM.next() function.
+     * The game states (and their values) before startIndex are reused; each state from startIndex onwards is
+     * a new copy, so the states stored in the individual are never changed (and may be shared with other individuals).
      *
      * @param fm         - forward model
      * @param startIndex - index in individual from which to start rollout
@@ -103,7 +154,8 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         double delta = 0;
         double previousScore = 0;
         int fmCalls = 0, copyCalls = 0;
-        AbstractGameState gs = gameStates[startIndex].copy();
+        // this is copied before any action is applied to it
+        AbstractGameState gs = gameStates[startIndex];
 
         // This lot are a local record for use in debugging; Very useful, with no compute overhead for keeping a local copy
         AbstractGameState[] oldGameStates = new AbstractGameState[gameStates.length];
@@ -112,12 +164,10 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         boolean[] illegalActions = new boolean[actions.length];
 
         for (int i = 0; i < startIndex; i++) {
-            double score;
-            score = heuristic.evaluateState(gameStates[i + 1], playerID);
-            if (Double.isNaN(score))
-                throw new AssertionError("Illegal heuristic value - should be a number");
+            double score = scores[i + 1];
             delta += Math.pow(discountFactor, i) * (score - previousScore);
             previousScore = score;
+            length++;
         }
 
         for (int i = startIndex; i < actions.length; i++) {
@@ -143,8 +193,6 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                     action = actions[i];
                     nonRepairCount++;
                 }
-                // TODO: Add a closed loop option to not copy the state (expensively) if the action is valid, but jump to the next state stored
-                // TODO: When implemented, this will also need to take account of shiftLeft
                 fm.next(gsCopy, action.copy());
                 fmCalls++;
 
@@ -169,6 +217,7 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                 score = heuristic.evaluateState(gameStates[i + 1], playerID);
                 if (Double.isNaN(score))
                     throw new AssertionError("Illegal heuristic value - should be a number");
+                scores[i + 1] = score;
                 delta += Math.pow(discountFactor, i) * (score - previousScore);
                 previousScore = score;
 
@@ -180,6 +229,7 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         }
 //        this.value = gs.getScore(playerID);
         this.value = delta;
+        stateLimit = actions.length;
         return new Pair<>(fmCalls, copyCalls);
     }
 
@@ -23,6 +23,11 @@ public class RHEAParams extends PlayerParameters
     public boolean shiftLeft;
     public IStateHeuristic heuristic = AbstractGameState::getGameScore;
     public boolean useMAST;
+    // If true then each individual keeps the game states from its last rollout, and after mutation or crossover only
+    // re-simulates from the first changed gene (see RHEAIndividual)
+    public boolean closedLoop;
+    // If more than 1 then the population is mutated and evaluated on this many threads (see ParallelEvaluation)
+    public int nThreads = 1;
 
 
     public RHEAParams() {
@@ -38,6 +43,8 @@ public class RHEAParams extends PlayerParameters
         addTunableParameter("mutationCount", 1, Arrays.asList(1, 3, 10));
         addTunableParameter("heuristic", (IStateHeuristic) AbstractGameState::getGameScore);
         addTunableParameter("useMAST", false, Arrays.asList(false, true));
+        addTunableParameter("closedLoop", false, Arrays.asList(false, true));
+        addTunableParameter("nThreads", 1);
     }
 
     @Override
@@ -54,6 +61,8 @@ public class RHEAParams extends PlayerParameters
         shiftLeft = (boolean) getParameterValue("shiftLeft");
         mutationCount = (int) getParameterValue("mutationCount");
         useMAST = (boolean) getParameterValue("useMAST");
+        closedLoop = (boolean) getParameterValue("closedLoop");
+        nThreads = (int) getParameterValue("nThreads");
         heuristic = (IStateHeuristic) getParameterValue("heuristic");
         if (heuristic instanceof TunableParameters) {
             TunableParameters tunableHeuristic = (TunableParameters) heuristic;
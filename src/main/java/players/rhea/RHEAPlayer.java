@@ -3,19 +3,20 @@ package players.rhea;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
+import players.BudgetController;
+import players.IAnyTimePlayer;
 import players.PlayerConstants;
 import players.mcts.MASTPlayer;
+import players.mcts.MASTStore;
 import players.simple.RandomPlayer;
 import utilities.ElapsedCpuTimer;
 import utilities.Pair;
-import utilities.Utils;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-public class RHEAPlayer extends AbstractPlayer {
-    private static final AbstractPlayer randomPlayer = new RandomPlayer();
-    List<Map<Object, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
+public class RHEAPlayer extends AbstractPlayer implements IAnyTimePlayer {
+    private final AbstractPlayer randomPlayer;
+    MASTStore MASTStatistics; // (visits, totValue) for each action, for each player
     protected List<RHEAIndividual> population = new ArrayList<>();
     // Budgets
     protected double timePerIteration = 0, timeTaken = 0, initTime = 0;
@@ -24,9 +25,14 @@ public class RHEAPlayer extends AbstractPlayer {
     protected int copyCalls = 0;
     protected int repairCount, nonRepairCount;
     private MASTPlayer mastPlayer;
+    private ParallelEvaluation parallelEvaluation;
+    private final BudgetController budgetController = new BudgetController();
 
     public RHEAPlayer(RHEAParams params) {
         super(params, "RHEAPlayer");
+        // all random choices (including those of the rollout policies) follow from the seed
+        rnd = new Random(parameters.getRandomSeed());
+        randomPlayer = new RandomPlayer(new Random(rnd.nextLong()));
     }
 
     @Override
@@ -35,41 +41,37 @@ public class RHEAPlayer extends AbstractPlayer {
     }
     @Override
     public void initializePlayer(AbstractGameState state) {
-        MASTStatistics = new ArrayList<>();
-        for (int i = 0; i < state.getNPlayers(); i++)
-            MASTStatistics.add(new HashMap<>());
+        MASTStatistics = new MASTStore(state.getNPlayers());
         population = new ArrayList<>();
+        budgetController.reset();
     }
 
     @Override
     public AbstractAction _getAction(AbstractGameState stateObs, List<AbstractAction> possibleActions) {
         ElapsedCpuTimer timer = new ElapsedCpuTimer();  // New timer for this game tick
-        timer.setMaxTimeMillis(parameters.budget);
         numIters = 0;
         fmCalls = 0;
         copyCalls = 0;
         repairCount = 0;
         nonRepairCount = 0;
         RHEAParams params = getParameters();
+        if (params.budgetType == PlayerConstants.BUDGET_TIME)
+            budgetController.startDecision(params, stateObs, getPlayerID());
 
         if (params.useMAST) {
             if (MASTStatistics == null) {
-                MASTStatistics = new ArrayList<>();
-                for (int i = 0; i < stateObs.getNPlayers(); i++)
-                    MASTStatistics.add(new HashMap<>());
+                MASTStatistics = new MASTStore(stateObs.getNPlayers());
             } else {
-                MASTStatistics = MASTStatistics.stream()
-                        .map(m -> Utils.decay(m, params.discountFactor))
-                        .collect(Collectors.toList());
+                MASTStatistics.decay(params.discountFactor);
             }
-            mastPlayer = new MASTPlayer(null, 1.0, 0.0, System.currentTimeMillis(), 0.0);
+            mastPlayer = new MASTPlayer(null, 1.0, 0.0, rnd.nextLong(), 0.0);
             mastPlayer.setStats(MASTStatistics);
         }
         // Initialise individuals
         if (params.shiftLeft && !population.isEmpty()) {
             population.forEach(i -> i.value = Double.NEGATIVE_INFINITY);  // so that any we don't have time to shift are ignored when picking an action
             for (RHEAIndividual genome : population) {
-                if (!budgetLeft(timer)) break;
+                if (!budgetLeft()) break;
                 System.arraycopy(genome.actions, 1, genome.actions, 0, genome.actions.length - 1);
                 // we shift all actions along, and then rollout with repair
                 genome.gameStates[0] = stateObs.copy();
@@ -80,20 +82,26 @@ public class RHEAPlayer extends AbstractPlayer {
         } else {
             population = new ArrayList<>();
             for (int i = 0; i < params.populationSize; ++i) {
-                if (!budgetLeft(timer)) break;
+                if (!budgetLeft()) break;
                 population.add(new RHEAIndividual(params.horizon, params.discountFactor, getForwardModel(), stateObs,
-                        getPlayerID(), rnd, params.heuristic, params.useMAST ? mastPlayer : randomPlayer));
+                        getPlayerID(), rnd, params.heuristic, params.useMAST ? mastPlayer : randomPlayer, params.closedLoop));
                 fmCalls += population.get(i).length;
                 copyCalls += population.get(i).length;
             }
         }
 
         population.sort(Comparator.naturalOrder());
+        if (params.nThreads > 1)
+            getParallelEvaluation().startDecision(params.useMAST ? mastPlayer : randomPlayer);
         initTime = timer.elapsedMillis();
-        // Run evolution
-        while (budgetLeft(timer)) {
+        // Run evolution (only the time taken by each generation is used to predict the time the next one will take)
+        budgetController.startIteration();
+        while (budgetLeft()) {
             runIteration();
+            budgetController.endIteration();
         }
+        if (params.budgetType == PlayerConstants.BUDGET_TIME)
+            budgetController.endDecision();
 
         timeTaken = timer.elapsedMillis();
         timePerIteration = numIters == 0 ? 0.0 : (timeTaken - initTime) / numIters;
@@ -105,11 +113,10 @@ public class RHEAPlayer extends AbstractPlayer {
         return retValue;
     }
 
-    private boolean budgetLeft(ElapsedCpuTimer timer) {
+    private boolean budgetLeft() {
         RHEAParams params = getParameters();
         if (params.budgetType == PlayerConstants.BUDGET_TIME) {
-            long remaining = timer.remainingTimeMillis();
-            return remaining > params.breakMS;
+            return !budgetController.budgetExhausted();
         } else if (params.budgetType == PlayerConstants.BUDGET_FM_CALLS) {
             return fmCalls < params.budget;
         } else if (params.budgetType == PlayerConstants.BUDGET_COPY_CALLS) {
@@ -122,6 +129,36 @@ public class RHEAPlayer extends AbstractPlayer {
         throw new AssertionError("This should be unreachable : " + params.budgetType);
     }
 
+    @Override
+    public void finalizePlayer(AbstractGameState state) {
+        if (parallelEvaluation != null) {
+            parallelEvaluation.shutdown();
+            parallelEvaluation = null;
+        }
+    }
+
+    private ParallelEvaluation getParallelEvaluation() {
+        if (parallelEvaluation == null)
+            parallelEvaluation = new ParallelEvaluation(this);
+        return parallelEvaluation;
+    }
+
+    @Override
+    public void setBudget(int budget) {
+        parameters.budget = budget;
+        parameters.setParameterValue("budget", budget);
+    }
+
+    @Override
+    public int getBudget() {
+        return parameters.budget;
+    }
+
+    @Override
+    public BudgetController getBudgetController() {
+        return budgetController;
+    }
+
     @Override
     public RHEAPlayer copy() {
         RHEAParams newParams = (RHEAParams) parameters.copy();
@@ -146,40 +183,45 @@ public class RHEAPlayer extends AbstractPlayer {
         }
     }
 
-    private RHEAIndividual uniformCrossover(RHEAIndividual p1, RHEAIndividual p2) {
+    /**
+     * The child starts as a copy of p1, which shares its game states. In closed loop mode these are then reused by
+     * the child's next rollout, so no copies are counted. Otherwise we count a copy of each state, as the rollout
+     * (after mutation) will do.
+     */
+    private RHEAIndividual crossoverChild(RHEAIndividual p1) {
         RHEAIndividual child = new RHEAIndividual(p1);
-        copyCalls += child.length;
+        if (!getParameters().closedLoop)
+            copyCalls += child.length;
+        return child;
+    }
+
+    private RHEAIndividual uniformCrossover(RHEAIndividual p1, RHEAIndividual p2) {
+        RHEAIndividual child = crossoverChild(p1);
         int min = Math.min(p1.length, p2.length);
         for (int i = 0; i < min; ++i) {
             if (rnd.nextFloat() >= 0.5f) {
-                child.actions[i] = p2.actions[i];
-                child.gameStates[i] = p2.gameStates[i]; //.copy();
+                child.copyGene(p2, i, i);
             }
         }
         return child;
     }
 
     private RHEAIndividual onePointCrossover(RHEAIndividual p1, RHEAIndividual p2) {
-        RHEAIndividual child = new RHEAIndividual(p1);
-        copyCalls += child.length;
+        RHEAIndividual child = crossoverChild(p1);
         int tailLength = Math.min(p1.length, p2.length) / 2;
 
         for (int i = 0; i < tailLength; ++i) {
-            child.actions[child.length - 1 - i] = p2.actions[p2.length - 1 - i];
-            child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
+            child.copyGene(p2, p2.length - 1 - i, child.length - 1 - i);
         }
         return child;
     }
 
     private RHEAIndividual twoPointCrossover(RHEAIndividual p1, RHEAIndividual p2) {
-        RHEAIndividual child = new RHEAIndividual(p1);
-        copyCalls += child.length;
+        RHEAIndividual child = crossoverChild(p1);
         int tailLength = Math.min(p1.length, p2.length) / 3;
         for (int i = 0; i < tailLength; ++i) {
-            child.actions[i] = p2.actions[i];
-            child.gameStates[i] = p2.gameStates[i]; //.copy();
-            child.actions[child.length - 1 - i] = p2.actions[p2.length - 1 - i];
-            child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
+            child.copyGene(p2, i, i);
+            child.copyGene(p2, p2.length - 1 - i, child.length - 1 - i);
         }
         return child;
     }
@@ -247,8 +289,12 @@ public class RHEAPlayer extends AbstractPlayer {
             population.add(child);
         }
 
-        for (RHEAIndividual individual : population) {
-            Pair<Integer, Integer> calls = individual.mutate(getForwardModel(), getPlayerID(), params.mutationCount);
+        // with parallel evaluation all the mutations are done first, and then accounted for in the same order
+        List<Pair<Integer, Integer>> parallelCalls = params.nThreads > 1 ? getParallelEvaluation().mutate(population) : null;
+        for (int i = 0; i < population.size(); i++) {
+            RHEAIndividual individual = population.get(i);
+            Pair<Integer, Integer> calls = parallelCalls != null ? parallelCalls.get(i) :
+                    individual.mutate(getForwardModel(), getPlayerID(), params.mutationCount);
             fmCalls += calls.a;
             copyCalls += calls.b;
             repairCount += individual.repairCount;
@@ -278,10 +324,7 @@ public class RHEAPlayer extends AbstractPlayer {
             AbstractAction action = rolloutActions[i];
             if (action == null)
                 break;
-            Pair<Integer, Double> stats = MASTStatistics.get(player).getOrDefault(action, new Pair<>(0, 0.0));
-            stats.a++;  // visits
-            stats.b += delta;   // value
-            MASTStatistics.get(player).put(action.copy(), stats);
+            MASTStatistics.update(player, MASTStore.key(null, action), delta);
         }
     }
 
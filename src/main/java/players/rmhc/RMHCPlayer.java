@@ -3,16 +3,17 @@ package players.rmhc;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
+import players.BudgetController;
+import players.IAnyTimePlayer;
 import players.PlayerConstants;
-import utilities.ElapsedCpuTimer;
 
 import java.util.*;
 
 
-public class RMHCPlayer extends AbstractPlayer {
+public class RMHCPlayer extends AbstractPlayer implements IAnyTimePlayer {
     private Individual bestIndividual;
     // Budgets
-    private double avgTimeTaken = 0, acumTimeTaken = 0;
+    private final BudgetController budgetController = new BudgetController();
     private int numIters = 0;
     private int fmCalls = 0;
     private int copyCalls = 0;
@@ -32,13 +33,12 @@ public class RMHCPlayer extends AbstractPlayer {
 
     @Override
     public AbstractAction _getAction(AbstractGameState stateObs, List<AbstractAction> possibleActions) {
-        ElapsedCpuTimer timer = new ElapsedCpuTimer();  // New timer for this game tick
-        avgTimeTaken = 0;
-        acumTimeTaken = 0;
         numIters = 0;
         fmCalls = 0;
         copyCalls = 0;
         RMHCParams params = getParameters();
+        if (params.budgetType == PlayerConstants.BUDGET_TIME)
+            budgetController.startDecision(params, stateObs, getPlayerID());
 
         // Initialise individual
         bestIndividual = new Individual(params.horizon, params.discountFactor, getForwardModel(), stateObs, getPlayerID(), rnd, params.getHeuristic());
@@ -51,8 +51,8 @@ public class RMHCPlayer extends AbstractPlayer {
 
             // Check budget depending on budget type
             if (params.budgetType == PlayerConstants.BUDGET_TIME) {
-                long remaining = timer.remainingTimeMillis();
-                keepIterating = remaining > avgTimeTaken && remaining > params.breakMS;
+                budgetController.endIteration();
+                keepIterating = !budgetController.budgetExhausted();
             } else if (params.budgetType == PlayerConstants.BUDGET_FM_CALLS) {
                 keepIterating = fmCalls < params.budget;
             } else if (params.budgetType == PlayerConstants.BUDGET_COPY_CALLS) {
@@ -63,11 +63,34 @@ public class RMHCPlayer extends AbstractPlayer {
                 keepIterating = numIters < params.budget;
             }
         }
+        if (params.budgetType == PlayerConstants.BUDGET_TIME)
+            budgetController.endDecision();
 
         // Return first action of best individual
         return bestIndividual.actions[0];
     }
 
+    @Override
+    public void initializePlayer(AbstractGameState state) {
+        budgetController.reset();
+    }
+
+    @Override
+    public void setBudget(int budget) {
+        parameters.budget = budget;
+        parameters.setParameterValue("budget", budget);
+    }
+
+    @Override
+    public int getBudget() {
+        return parameters.budget;
+    }
+
+    @Override
+    public BudgetController getBudgetController() {
+        return budgetController;
+    }
+
     @Override
     public RMHCPlayer copy() {
         RMHCParams newParams = (RMHCParams) parameters.copy();
@@ -83,8 +106,6 @@ public class RMHCPlayer extends AbstractPlayer {
      * @param stateObs - current game state
      */
     private void runIteration(AbstractGameState stateObs) {
-        ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
-
         // Create new individual through mutation
         Individual newIndividual = new Individual(bestIndividual);
         copyCalls += newIndividual.length;
@@ -98,8 +119,6 @@ public class RMHCPlayer extends AbstractPlayer {
 
         // Update budgets
         numIters++;
-        acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
-        avgTimeTaken = acumTimeTaken / numIters;
     }
 
 //    public static void main(String[] args){
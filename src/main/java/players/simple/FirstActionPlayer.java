@@ -21,6 +21,11 @@ public class FirstActionPlayer extends AbstractPlayer{
         return possibleActions.get(0);
     }
 
+    @Override
+    public boolean needsObservation() {
+        return false;
+    }
+
     @Override
     public String toString() {
         return "FirstAction";
@@ -28,6 +28,11 @@ public class RandomPlayer extends AbstractPlayer {
         return actions.get(randomAction);
     }
 
+    @Override
+    public boolean needsObservation() {
+        return false;
+    }
+
     @Override
     public String toString() {
         return "Random";
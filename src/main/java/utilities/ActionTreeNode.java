@@ -3,9 +3,19 @@ package utilities;
 import core.actions.AbstractAction;
 import org.json.simple.JSONObject;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
+/**
+ * A node in the action tree of an ITreeActionSpace game.
+ * <p>
+ * The root of a tree keeps an index of its leaves (in the breadth-first order of getLeafNodes()), with their values
+ * in a flat int[] that is kept up to date as values change. The range of leaves whose values have changed since
+ * clearDirty() was last called is recorded, so that a consumer of the mask only needs to copy that range.
+ * <p>
+ * After the first call to resetTree() on the root, the root also records every node that is made available (or
+ * given an action), so that later calls only reset those nodes rather than the whole tree. For this to work, node
+ * values must only be changed through setValue() and setAction().
+ */
 public class ActionTreeNode {
 
     int value;
@@ -15,6 +25,21 @@ public class ActionTreeNode {
     int SubNodes;
     ActionTreeNode parent;
 
+    // position of this node in the root's leaf index (or -1 if not a leaf, or not indexed)
+    int leafPos = -1;
+    // true if this node is in the root's list of touched nodes
+    boolean touched;
+    // first node with each name in the subtree (built by findChildrenByName for the given structure version)
+    Map<String, ActionTreeNode> nameIndex;
+    int nameIndexVersion = -1;
+
+    // The following are only used on the root of a tree
+    int structureVersion;
+    List<ActionTreeNode> leafIndex;
+    int[] leafMask;
+    int dirtyFrom, dirtyTo;
+    List<ActionTreeNode> touchedNodes;
+
     // Constructors
     public ActionTreeNode() {
         this.children = new ArrayList<ActionTreeNode>();
@@ -53,12 +78,23 @@ public class ActionTreeNode {
     }
 
     // Searches the tree breadth first for all leaf nodes and returns them
+    // (for the root this is the leaf index, which cannot be modified)
     public List<ActionTreeNode> getLeafNodes(){
-        List<ActionTreeNode> nodes = new ArrayList<ActionTreeNode>();
+        if (parent == null) {
+            buildIndex();
+            return leafIndex;
+        }
+        return collectLeaves(false);
+    }
+
+    // if index is true then the leaf positions of all the nodes are cleared, ready to be re-indexed
+    private List<ActionTreeNode> collectLeaves(boolean index) {
+        Deque<ActionTreeNode> nodes = new ArrayDeque<>();
         List<ActionTreeNode> leafNodes = new ArrayList<ActionTreeNode>();
         nodes.add(this);
-        while(nodes.size() > 0){
-            ActionTreeNode node = nodes.remove(0);
+        while(!nodes.isEmpty()){
+            ActionTreeNode node = nodes.poll();
+            if (index) node.leafPos = -1;
             if(node.children.size() == 0){
                 leafNodes.add(node);
             } else {
@@ -68,6 +104,88 @@ public class ActionTreeNode {
         return leafNodes;
     }
 
+    // Builds the leaf index of the root (if the structure has changed since it was last built)
+    private void buildIndex() {
+        if (leafIndex != null) return;
+        List<ActionTreeNode> leaves = collectLeaves(true);
+        leafMask = new int[leaves.size()];
+        for (int i = 0; i < leafMask.length; i++) {
+            leaves.get(i).leafPos = i;
+            leafMask[i] = leaves.get(i).value;
+        }
+        leafIndex = Collections.unmodifiableList(leaves);
+        dirtyFrom = 0;
+        dirtyTo = leafMask.length;
+    }
+
+    // Gets the values of the leaves of the tree, in the order of getLeafNodes()
+    public int[] getLeafMask() {
+        ActionTreeNode root = getRoot();
+        root.buildIndex();
+        return root.leafMask.clone();
+    }
+
+    // Writes the values of the leaves of the tree into buffer (from offset)
+    public void writeLeafMask(int[] buffer, int offset) {
+        ActionTreeNode root = getRoot();
+        root.buildIndex();
+        System.arraycopy(root.leafMask, 0, buffer, offset, root.leafMask.length);
+    }
+
+    // Gets the value of the i-th leaf of the tree
+    public int getLeafValue(int i) {
+        ActionTreeNode root = getRoot();
+        root.buildIndex();
+        return root.leafMask[i];
+    }
+
+    // The leaves from getDirtyFrom() up to (but not including) getDirtyTo() include all those whose values have
+    // changed since the last call to clearDirty() (or since the leaf index was built)
+    public int getDirtyFrom() {
+        ActionTreeNode root = getRoot();
+        root.buildIndex();
+        return root.dirtyFrom;
+    }
+
+    public int getDirtyTo() {
+        ActionTreeNode root = getRoot();
+        root.buildIndex();
+        return root.dirtyTo;
+    }
+
+    public void clearDirty() {
+        ActionTreeNode root = getRoot();
+        root.buildIndex();
+        root.dirtyFrom = root.leafMask.length;
+        root.dirtyTo = 0;
+    }
+
+    public ActionTreeNode getRoot() {
+        ActionTreeNode node = this;
+        while (node.parent != null) node = node.parent;
+        return node;
+    }
+
+    // Called on the root when nodes are added or renamed
+    private void structureChanged() {
+        structureVersion++;
+        leafIndex = null;
+        leafMask = null;
+    }
+
+    // Called whenever the value or action of node changes
+    private void nodeChanged(ActionTreeNode node) {
+        if ((node.value != 0 || node.action != null) && touchedNodes != null && !node.touched) {
+            node.touched = true;
+            touchedNodes.add(node);
+        }
+        if (leafMask != null && node.leafPos >= 0 && leafMask[node.leafPos] != node.value) {
+            leafMask[node.leafPos] = node.value;
+            dirtyFrom = Math.min(dirtyFrom, node.leafPos);
+            dirtyTo = Math.max(dirtyTo, node.leafPos + 1);
+        }
+    }
+
     public List<ActionTreeNode> flattenTree(){
         List<ActionTreeNode> nodes = new ArrayList<ActionTreeNode>();
         List<ActionTreeNode> nodes1 = new ArrayList<ActionTreeNode>();
@@ -95,10 +213,10 @@ public class ActionTreeNode {
 
     public List<Integer> flattenValues(){
         List<Integer> values = new ArrayList<Integer>();
-        List<ActionTreeNode> nodes = new ArrayList<ActionTreeNode>();
+        Deque<ActionTreeNode> nodes = new ArrayDeque<>();
         nodes.add(this);
-        while(nodes.size() > 0){
-            ActionTreeNode node = nodes.remove(0);
+        while(!nodes.isEmpty()){
+            ActionTreeNode node = nodes.poll();
             values.add(node.value);
             nodes.addAll(node.children);
         }
@@ -106,35 +224,52 @@ public class ActionTreeNode {
     }
 
     // Reset all the nodes in the tree, keeps structure only sets value and action to 0/null
+    // On the root, only the nodes that have been set since the last reset are visited (after the first reset)
     public void resetTree(){
-        List<ActionTreeNode> nodes = new ArrayList<ActionTreeNode>();
+        if (parent == null && touchedNodes != null) {
+            for (ActionTreeNode node : touchedNodes) {
+                node.touched = false;
+                node.action = null;
+                node.setValue(0);
+            }
+            touchedNodes.clear();
+            return;
+        }
+        Deque<ActionTreeNode> nodes = new ArrayDeque<>();
         nodes.add(this);
-        while(nodes.size() > 0){
-            ActionTreeNode node = nodes.remove(0);
-            node.value = 0;
+        while(!nodes.isEmpty()){
+            ActionTreeNode node = nodes.poll();
             node.action = null;
+            node.setValue(0);
             nodes.addAll(node.children);
         }
+        if (parent == null)
+            touchedNodes = new ArrayList<>();
     }
 
     public ActionTreeNode findChildrenByName(String name){
         return findChildrenByName(name, false);
     }
     // sets the value of the node to 1 if it is found
+    // (the first node found breadth first with each name is cached until the structure of the tree changes)
     public ActionTreeNode findChildrenByName(String name, boolean setAvailable){
-        List<ActionTreeNode> nodes = new ArrayList<ActionTreeNode>();
-        nodes.add(this);
-        while(nodes.size() > 0){
-            ActionTreeNode node = nodes.remove(0);
-            nodes.addAll(node.children);
-            if (node.name.equals(name)){
-                if(setAvailable){
-                    node.value = 1;
-                }
-                return node;
+        int version = getRoot().structureVersion;
+        if (nameIndex == null || nameIndexVersion != version) {
+            nameIndex = new HashMap<>();
+            nameIndexVersion = version;
+            Deque<ActionTreeNode> nodes = new ArrayDeque<>();
+            nodes.add(this);
+            while(!nodes.isEmpty()){
+                ActionTreeNode node = nodes.poll();
+                nodes.addAll(node.children);
+                nameIndex.putIfAbsent(node.name, node);
             }
         }
-        return null;
+        ActionTreeNode node = nameIndex.get(name);
+        if (node != null && setAvailable){
+            node.setValue(1);
+        }
+        return node;
     }
 
     public String toJsonString() {
@@ -160,6 +295,9 @@ public class ActionTreeNode {
         this.children.add(child);
         child.parent = this;
         child.updateSubNodes();
+        ActionTreeNode root = getRoot();
+        root.structureChanged();
+        root.nodeChanged(child);
         return child;
     }
 
@@ -168,6 +306,9 @@ public class ActionTreeNode {
         this.children.add(child);
         child.parent = this;
         child.updateSubNodes();
+        ActionTreeNode root = getRoot();
+        root.structureChanged();
+        root.nodeChanged(child);
         return child;
     }
 
@@ -176,6 +317,9 @@ public class ActionTreeNode {
         this.children.add(child);
         child.parent = this;
         child.updateSubNodes();
+        ActionTreeNode root = getRoot();
+        root.structureChanged();
+        root.nodeChanged(child);
         return child;
     }
 
@@ -206,9 +350,10 @@ public class ActionTreeNode {
 
     public AbstractAction getAction() {return action;}
     public void setAction(AbstractAction action) {
-        this.value = 1;
-        this.parent.value = 1;
         this.action = action;
+        this.setValue(1);
+        getRoot().nodeChanged(this);
+        this.parent.setValue(1);
     }
     public AbstractAction getActionByVector(int[] vector){
         ActionTreeNode node = this;
@@ -221,13 +366,16 @@ public class ActionTreeNode {
         return value;
     }
     public void setValue(int value) {
+        if (this.value == value) return;
         this.value = value;
+        getRoot().nodeChanged(this);
     }
     public String getName() {
         return name;
     }
     public void setName(String name) {
         this.name = name;
+        getRoot().structureChanged();
     }
     public List<ActionTreeNode> getChildren() {
         return children;
@@ -0,0 +1,77 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable, append-only list. Each instance is the last entry of the log, and points back to the
+ * log as it was before that entry was added. Appending creates a new entry and leaves the original unchanged, so
+ * any number of logs can share the same history, and 'copying' one is just passing on the reference.
+ * <p>
+ * This is used for the history in AbstractGameState, so that copying a state costs the same however long the game
+ * has been running.
+ *
+ * @param <T> - type of the entries
+ */
+public final class PersistentLog<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentLog EMPTY = new PersistentLog<>(null, null, 0);
+
+    private final T value;
+    private final PersistentLog<T> previous;
+    private final int size;
+
+    private PersistentLog(T value, PersistentLog<T> previous, int size) {
+        this.value = value;
+        this.previous = previous;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentLog<T> empty() {
+        return (PersistentLog<T>) EMPTY;
+    }
+
+    /**
+     * @param entry - the entry to add to the end of the log
+     * @return - a new log with all the entries in this one, followed by entry
+     */
+    public PersistentLog<T> append(T entry) {
+        return new PersistentLog<>(entry, this, size + 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return - the most recent entry (or null if the log is empty)
+     */
+    public T last() {
+        return value;
+    }
+
+    /**
+     * @return - a new (mutable) list of all entries, oldest first
+     */
+    public List<T> toList() {
+        Object[] entries = new Object[size];
+        PersistentLog<T> log = this;
+        for (int i = size - 1; i >= 0; i--) {
+            entries[i] = log.value;
+            log = log.previous;
+        }
+        List<T> retValue = new ArrayList<>(size);
+        for (Object entry : entries) {
+            @SuppressWarnings("unchecked")
+            T t = (T) entry;
+            retValue.add(t);
+        }
+        return retValue;
+    }
+}
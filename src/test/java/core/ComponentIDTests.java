@@ -0,0 +1,90 @@
+package core;
+
+import core.components.*;
+import org.junit.Test;
+import utilities.Hash;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ComponentIDTests {
+
+    static final int nThreads = 16;
+    static final int componentsPerThread = 5000;
+
+    private <T> List<T> runOnThreads(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < nThreads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> retValue = new ArrayList<>();
+            for (Future<T> future : futures)
+                retValue.add(future.get());
+            return retValue;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void componentIDsUniqueAcrossThreads() throws Exception {
+        List<int[]> ids = runOnThreads(() -> {
+            int[] retValue = new int[componentsPerThread];
+            for (int i = 0; i < componentsPerThread; i++) {
+                Component c;
+                switch (i % 3) {
+                    case 0:
+                        c = new Card("Card " + i);
+                        break;
+                    case 1:
+                        c = new Counter(0, 0, 10, "Counter " + i);
+                        break;
+                    default:
+                        c = new Token("Token " + i);
+                }
+                retValue[i] = c.getComponentID();
+            }
+            return retValue;
+        });
+        Set<Integer> allIDs = new HashSet<>();
+        for (int[] threadIDs : ids)
+            for (int id : threadIDs)
+                assertTrue("Duplicate component ID " + id, allIDs.add(id));
+        assertEquals(nThreads * componentsPerThread, allIDs.size());
+    }
+
+    @Test
+    public void copiesKeepTheirIDs() throws Exception {
+        List<Boolean> results = runOnThreads(() -> {
+            for (int i = 0; i < componentsPerThread; i++) {
+                Card card = new Card("Card " + i);
+                if (card.copy().getComponentID() != card.getComponentID())
+                    return false;
+            }
+            return true;
+        });
+        assertFalse(results.contains(false));
+    }
+
+    @Test
+    public void hashConsistentAcrossThreads() throws Exception {
+        List<int[]> hashes = runOnThreads(() -> {
+            int[] retValue = new int[1000];
+            for (int i = 0; i < retValue.length; i++)
+                retValue[i] = Hash.GetInstance().hash("ComponentIDTests-" + i);
+            return retValue;
+        });
+        for (int[] threadHashes : hashes)
+            for (int i = 0; i < threadHashes.length; i++)
+                assertEquals(("ComponentIDTests-" + i).hashCode(), threadHashes[i]);
+    }
+}
@@ -0,0 +1,59 @@
+package core;
+
+import core.components.*;
+import games.GameType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ComponentIndexTests {
+
+    @Test
+    public void findsNestedComponents() {
+        Deck<Card> deck = new Deck<>("Deck", CoreConstants.VisibilityMode.VISIBLE_TO_ALL);
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Card c = new Card("Card " + i);
+            cards.add(c);
+            deck.add(c);
+        }
+        Counter counter = new Counter();
+        ComponentIndex index = ComponentIndex.of(Arrays.asList(deck, counter));
+        assertSame(deck, index.get(deck.getComponentID()));
+        assertSame(counter, index.get(counter.getComponentID()));
+        for (Card c : cards)
+            assertSame(c, index.get(c.getComponentID()));
+        assertNull(index.get(-5));
+        assertNull(index.get(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void widelySpreadIDs() {
+        Card first = new Card("First");
+        // create enough components in between that an array covering both IDs would be mostly empty
+        for (int i = 0; i < 1000; i++)
+            new Token("Filler");
+        Card last = new Card("Last");
+        ComponentIndex index = ComponentIndex.of(Arrays.asList(first, last));
+        assertSame(first, index.get(first.getComponentID()));
+        assertSame(last, index.get(last.getComponentID()));
+        assertNull(index.get(first.getComponentID() + 1));
+    }
+
+    @Test
+    public void copiedStateFindsItsOwnComponents() {
+        Game game = GameType.Pandemic.createGameInstance(3, 42);
+        AbstractGameState state = game.getGameState();
+        AbstractGameState copy = state.copy();
+        Set<Integer> ids = new HashSet<>(state.getAllComponents().getComponentsMap().keySet());
+        assertFalse(ids.isEmpty());
+        for (int id : ids) {
+            Component inCopy = copy.getComponentById(id);
+            assertNotNull(inCopy);
+            assertEquals(id, inCopy.getComponentID());
+        }
+        assertEquals(ids, copy.getAllComponents().getComponentsMap().keySet());
+    }
+}
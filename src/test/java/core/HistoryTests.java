@@ -0,0 +1,85 @@
+package core;
+
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistoryTests {
+
+    AbstractGameState state;
+    AbstractForwardModel fm;
+    Random rnd = new Random(123);
+
+    @Before
+    public void setup() {
+        Game game = GameType.Dominion.createGameInstance(2, 123);
+        state = game.getGameState();
+        fm = game.getForwardModel();
+    }
+
+    private void takeRandomActions(AbstractGameState s, int n) {
+        for (int i = 0; i < n && s.isNotTerminal(); i++) {
+            List<AbstractAction> actions = fm.computeAvailableActions(s);
+            fm.next(s, actions.get(rnd.nextInt(actions.size())));
+        }
+    }
+
+    @Test
+    public void copyHasSameHistory() {
+        takeRandomActions(state, 50);
+        AbstractGameState copy = state.copy();
+        assertEquals(50, state.getHistory().size());
+        assertEquals(state.getHistory(), copy.getHistory());
+        assertEquals(state.getHistoryAsText(), copy.getHistoryAsText());
+    }
+
+    @Test
+    public void copiesDivergeIndependently() {
+        takeRandomActions(state, 20);
+        List<AbstractAction> originalHistory = state.getHistory();
+        List<String> originalText = state.getHistoryAsText();
+
+        AbstractGameState copy1 = state.copy();
+        AbstractGameState copy2 = state.copy(0);
+        takeRandomActions(copy1, 10);
+        takeRandomActions(copy2, 5);
+
+        assertEquals(originalHistory, state.getHistory());
+        assertEquals(originalText, state.getHistoryAsText());
+        assertEquals(30, copy1.getHistory().size());
+        assertEquals(25, copy2.getHistory().size());
+        assertEquals(originalHistory, copy1.getHistory().subList(0, 20));
+        assertEquals(originalHistory, copy2.getHistory().subList(0, 20));
+
+        // and the original can carry on without affecting either copy
+        takeRandomActions(state, 3);
+        assertEquals(23, state.getHistory().size());
+        assertEquals(30, copy1.getHistory().size());
+    }
+
+    @Test
+    public void returnedHistoryIsACopy() {
+        takeRandomActions(state, 10);
+        int textLength = state.getHistoryAsText().size();
+        state.getHistory().clear();
+        state.getHistoryAsText().clear();
+        assertEquals(10, state.getHistory().size());
+        assertEquals(textLength, state.getHistoryAsText().size());
+    }
+
+    @Test
+    public void resetClearsHistory() {
+        takeRandomActions(state, 10);
+        AbstractGameState copy = state.copy();
+        state.reset(99);
+        assertTrue(state.getHistory().isEmpty());
+        assertTrue(state.getHistoryAsText().isEmpty());
+        assertEquals(10, copy.getHistory().size());
+    }
+}
@@ -0,0 +1,99 @@
+package core;
+
+import games.GameType;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+import players.python.PythonAgent;
+import players.simple.RandomPlayer;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PyTAGBufferTests {
+
+    private PyTAG createEnv() throws Exception {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new PythonAgent());
+        players.add(new RandomPlayer(new Random(3023)));
+        return new PyTAG(GameType.TicTacToe, null, players, 42, false);
+    }
+
+    private void assertMatchesEnv(PyTAG env, ByteBuffer buffer, PyTAGBuffer layout) throws Exception {
+        assertEquals(0, buffer.getLong(24) % 2);
+        assertEquals(env.getPlayerID(), buffer.getInt(20));
+        assertEquals(env.isDone() ? 1 : 0, buffer.getInt(32));
+        for (int p = 0; p < 2; p++)
+            assertEquals(env.getReward(p), buffer.getDouble(layout.getRewardsOffset() + 8 * p), 1e-12);
+        double[] obs = env.getObservationVector();
+        for (int i = 0; i < obs.length; i++)
+            assertEquals(obs[i], buffer.getDouble(layout.getObservationOffset() + 8 * i), 1e-12);
+        int[] mask = env.getActionMask();
+        for (int i = 0; i < mask.length; i++)
+            assertEquals(env.isDone() ? 0 : mask[i], buffer.getInt(layout.getMaskOffset() + 4 * i));
+    }
+
+    @Test
+    public void directBufferMatchesEnvironment() throws Exception {
+        PyTAG env = createEnv();
+        env.useSharedBuffer(null);
+        env.reset();
+        PyTAGBuffer shared = env.getSharedBuffer();
+        assertNotNull(shared);
+        assertTrue(shared.getBuffer().isDirect());
+        assertEquals(PyTAGBuffer.MAGIC, shared.getBuffer().getInt(0));
+        assertEquals(9, shared.getBuffer().getInt(16));
+        Random rnd = new Random(1);
+        int episodes = 0;
+        long lastSequence = shared.getSequence();
+        while (episodes < 5) {
+            assertMatchesEnv(env, shared.getBuffer(), shared);
+            if (env.isDone()) {
+                episodes++;
+                env.reset();
+            } else {
+                env.step(env.sampleRNDAction(env.getActionMask(), rnd));
+            }
+            assertTrue(shared.getSequence() > lastSequence);
+            assertEquals(shared.getSequence(), shared.getSequenceAcquire());
+            lastSequence = shared.getSequence();
+        }
+        // the same buffer is re-used for later episodes
+        assertSame(shared, env.getSharedBuffer());
+    }
+
+    @Test
+    public void mappedFileMatchesEnvironment() throws Exception {
+        File file = File.createTempFile("pytag", ".buf");
+        file.deleteOnExit();
+        PyTAG env = createEnv();
+        env.useSharedBuffer(file.getPath());
+        env.reset();
+        PyTAGBuffer shared = env.getSharedBuffer();
+        JSONObject layout = (JSONObject) new JSONParser().parse(shared.getLayoutJSON());
+        assertEquals((long) shared.getSize(), layout.get("size"));
+        assertEquals((long) shared.getMaskOffset(), layout.get("maskOffset"));
+
+        // read the file through a separate mapping, as a client in another process would
+        try (RandomAccessFile reader = new RandomAccessFile(file, "r")) {
+            ByteBuffer view = reader.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, shared.getSize());
+            view.order(ByteOrder.LITTLE_ENDIAN);
+            Random rnd = new Random(2);
+            while (!env.isDone()) {
+                assertMatchesEnv(env, view, shared);
+                env.step(env.sampleRNDAction(env.getActionMask(), rnd));
+            }
+            assertMatchesEnv(env, view, shared);
+        }
+        env.closeSharedBuffer();
+        assertNull(env.getSharedBuffer());
+    }
+}
@@ -0,0 +1,75 @@
+package core;
+
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.python.PythonAgent;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PyTAGObservationTests {
+
+    // Records each distinct game state object it is given
+    static class RecordingPlayer extends AbstractPlayer {
+        final boolean needsObservation;
+        final Set<AbstractGameState> states = Collections.newSetFromMap(new IdentityHashMap<>());
+        int decisions;
+
+        RecordingPlayer(boolean needsObservation) {
+            super(null, "Recording");
+            this.needsObservation = needsObservation;
+            this.rnd = new Random(9);
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> possibleActions) {
+            states.add(gameState);
+            decisions++;
+            return possibleActions.get(rnd.nextInt(possibleActions.size()));
+        }
+
+        @Override
+        public boolean needsObservation() {
+            return needsObservation;
+        }
+
+        @Override
+        public AbstractPlayer copy() {
+            return new RecordingPlayer(needsObservation);
+        }
+    }
+
+    private RecordingPlayer playEpisodes(GameType gameType, boolean needsObservation) throws Exception {
+        RecordingPlayer opponent = new RecordingPlayer(needsObservation);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new PythonAgent());
+        players.add(opponent);
+        players.add(new RandomPlayer(new Random(5)));
+        PyTAG env = new PyTAG(gameType, null, players, 42, false);
+        Random rnd = new Random(7);
+        for (int episode = 0; episode < 3; episode++) {
+            env.reset();
+            while (!env.isDone())
+                env.step(env.sampleRNDAction(env.getActionMask(), rnd));
+            assertNotNull(env.getPlayerResults());
+        }
+        assertTrue(opponent.decisions > 3);
+        return opponent;
+    }
+
+    @Test
+    public void opponentsThatDoNotNeedObservationsAreNotGivenCopies() throws Exception {
+        RecordingPlayer opponent = playEpisodes(GameType.LoveLetter, false);
+        // one game state for each episode
+        assertTrue(opponent.states.size() <= 3);
+    }
+
+    @Test
+    public void opponentsThatNeedObservationsAreGivenCopies() throws Exception {
+        RecordingPlayer opponent = playEpisodes(GameType.LoveLetter, true);
+        assertEquals(opponent.decisions, opponent.states.size());
+    }
+}
@@ -0,0 +1,68 @@
+package core;
+
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RolloutRunnerTests {
+
+    @Test
+    public void playoutsLeaveStartingStateUnchanged() {
+        Game game = GameType.TicTacToe.createGameInstance(2, 42);
+        AbstractGameState state = game.getGameState();
+        RolloutRunner runner = new RolloutRunner(game.getForwardModel(), new Random(42));
+        double[] values = runner.run(state, 100);
+
+        assertEquals(0, state.getGameTick());
+        assertTrue(state.isNotTerminal());
+        assertEquals(100, runner.getPlayouts());
+        // every game of TicTacToe lasts at least 5 moves
+        assertTrue(runner.getActionsTaken() >= 500);
+        assertEquals(2, values.length);
+        for (double v : values)
+            assertTrue(v >= -1.0 && v <= 1.0);
+        assertTrue(runner.getPlayoutsPerSecond() > 0.0);
+    }
+
+    @Test
+    public void maxLengthLimitsPlayouts() {
+        Game game = GameType.Dominion.createGameInstance(3, 42);
+        RolloutRunner runner = new RolloutRunner(game.getForwardModel(), new Random(42));
+        runner.setMaxLength(7);
+        runner.run(game.getGameState(), 20);
+        assertEquals(140, runner.getActionsTaken());
+
+        runner.resetStatistics();
+        assertEquals(0, runner.getPlayouts());
+        AbstractGameState copy = game.getGameState().copy();
+        runner.playout(copy);
+        assertEquals(7, copy.getGameTick());
+        assertEquals(1, runner.getPlayouts());
+    }
+
+    @Test
+    public void skippingActionCopiesGivesSameResults() {
+        Game game = GameType.TicTacToe.createGameInstance(2, 42);
+        RolloutRunner copying = new RolloutRunner(game.getForwardModel(), new Random(7));
+        RolloutRunner notCopying = new RolloutRunner(game.getForwardModel(), new Random(7));
+        notCopying.setCopyActions(false);
+        assertArrayEquals(copying.run(game.getGameState(), 50), notCopying.run(game.getGameState(), 50), 1e-9);
+        assertEquals(copying.getActionsTaken(), notCopying.getActionsTaken());
+    }
+
+    @Test
+    public void policyPlayouts() {
+        Game game = GameType.LoveLetter.createGameInstance(2, 42);
+        RolloutRunner runner = new RolloutRunner(game.getForwardModel(), new Random(42));
+        runner.setPolicy(new RandomPlayer(new Random(3)));
+        runner.setHeuristic((state, player) -> state.getPlayerResults()[player].value);
+        double[] values = runner.run(game.getGameState(), 20);
+        assertEquals(20, runner.getPlayouts());
+        // LoveLetter always ends with one winner
+        assertEquals(0.0, values[0] + values[1], 1e-9);
+    }
+}
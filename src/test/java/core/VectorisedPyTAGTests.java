@@ -0,0 +1,104 @@
+package core;
+
+import games.GameType;
+import org.junit.Test;
+import players.python.PythonAgent;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VectorisedPyTAGTests {
+
+    private VectorisedPyTAG createEnvs(int nEnvs, int nThreads) throws Exception {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new PythonAgent());
+        players.add(new RandomPlayer(new Random(3023)));
+        return new VectorisedPyTAG(GameType.TicTacToe, null, players, nEnvs, 42, false, nThreads);
+    }
+
+    // the first valid action in each environment
+    private int[] firstActions(int[] masks, int nEnvs, int actionSpace) {
+        int[] actions = new int[nEnvs];
+        for (int env = 0; env < nEnvs; env++) {
+            actions[env] = -1;
+            for (int a = 0; a < actionSpace; a++) {
+                if (masks[env * actionSpace + a] == 1) {
+                    actions[env] = a;
+                    break;
+                }
+            }
+            assertTrue(actions[env] >= 0);
+        }
+        return actions;
+    }
+
+    @Test
+    public void stepsAllEnvironmentsAndResetsFinishedOnes() throws Exception {
+        int nEnvs = 4;
+        VectorisedPyTAG envs = createEnvs(nEnvs, 1);
+        double[] observations = new double[nEnvs * envs.getObservationSpace()];
+        envs.reset(observations, null);
+        int actionSpace = envs.getActionSpace();
+        assertEquals(9, actionSpace);
+        int[] masks = new int[nEnvs * actionSpace];
+        envs.reset(observations, masks);
+        double[] rewards = new double[nEnvs];
+        boolean[] dones = new boolean[nEnvs];
+        int[] finished = new int[nEnvs];
+        for (int step = 0; step < 50; step++) {
+            envs.step(firstActions(masks, nEnvs, actionSpace), observations, masks, rewards, dones);
+            for (int env = 0; env < nEnvs; env++) {
+                if (dones[env]) {
+                    finished[env]++;
+                    assertNotNull(envs.getLastResults(env));
+                }
+                // the environment is always ready for the next step
+                assertFalse(envs.getEnv(env).isDone());
+                double[] expected = envs.getEnv(env).getObservationVector();
+                assertArrayEquals(expected, Arrays.copyOfRange(observations, env * expected.length, (env + 1) * expected.length), 1e-12);
+                assertArrayEquals(envs.getEnv(env).getActionMask(), Arrays.copyOfRange(masks, env * actionSpace, (env + 1) * actionSpace));
+            }
+        }
+        for (int env = 0; env < nEnvs; env++) {
+            assertTrue(finished[env] > 0);
+            assertEquals(finished[env], envs.getEpisodes(env));
+        }
+    }
+
+    @Test
+    public void threadsDoNotChangeResults() throws Exception {
+        int nEnvs = 5;
+        VectorisedPyTAG serial = createEnvs(nEnvs, 1);
+        VectorisedPyTAG parallel = createEnvs(nEnvs, 3);
+        int obsSpace = serial.getObservationSpace();
+        double[] obsA = new double[nEnvs * obsSpace], obsB = new double[nEnvs * obsSpace];
+        serial.reset(obsA, null);
+        int actionSpace = serial.getActionSpace();
+        int[] masksA = new int[nEnvs * actionSpace], masksB = new int[nEnvs * actionSpace];
+        serial.reset(obsA, masksA);
+        parallel.reset(obsB, masksB);
+        double[] rewardsA = new double[nEnvs], rewardsB = new double[nEnvs];
+        boolean[] donesA = new boolean[nEnvs], donesB = new boolean[nEnvs];
+        for (int step = 0; step < 40; step++) {
+            assertArrayEquals(obsA, obsB, 1e-12);
+            assertArrayEquals(masksA, masksB);
+            int[] actions = firstActions(masksA, nEnvs, actionSpace);
+            serial.step(actions, obsA, masksA, rewardsA, donesA);
+            parallel.step(actions, obsB, masksB, rewardsB, donesB);
+            assertArrayEquals(rewardsA, rewardsB, 1e-12);
+            assertArrayEquals(donesA, donesB);
+        }
+        parallel.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void smallBufferIsRejected() throws Exception {
+        VectorisedPyTAG envs = createEnvs(2, 1);
+        envs.reset(new double[envs.getObservationSpace()], null);
+    }
+}
@@ -0,0 +1,92 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.components.Component;
+import core.components.GridBoard;
+import core.interfaces.IGridGameState;
+import games.GameType;
+import games.tictactoe.TicTacToeGameState;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ZobristHashTests {
+
+    // Rebuilds the board cell by cell from empty, which should give the same hash as the incremental updates
+    @SuppressWarnings("unchecked")
+    private <T extends Component> long rebuiltHash(GridBoard<T> board) {
+        GridBoard<T> rebuilt = board.emptyCopy();
+        for (int y = board.getHeight() - 1; y >= 0; y--)
+            for (int x = board.getWidth() - 1; x >= 0; x--)
+                rebuilt.setElement(x, y, (T) board.getElement(x, y));
+        return rebuilt.getZobristHash();
+    }
+
+    private void checkGame(GameType gameType, long seed) {
+        Game game = gameType.createGameInstance(2, seed);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        Random rnd = new Random(seed);
+        IGridGameState<?> gridState = (IGridGameState<?>) state;
+        assertNotEquals(0, gridState.getZobristHash());
+        int moves = 0;
+        while (state.isNotTerminal() && moves < 100) {
+            long hash = gridState.getZobristHash();
+            assertEquals(rebuiltHash(gridState.getGridBoard()), hash);
+            AbstractGameState copy = state.copy();
+            assertEquals(hash, ((IGridGameState<?>) copy).getZobristHash());
+            assertEquals(hash, new GridBoard<>(gridState.getGridBoard()).getZobristHash());
+            assertEquals(state.hashCode(), copy.hashCode());
+
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+            moves++;
+        }
+        assertTrue(moves > 0);
+    }
+
+    @Test
+    public void ticTacToeHashIsIncremental() {
+        for (long seed = 0; seed < 5; seed++)
+            checkGame(GameType.TicTacToe, seed);
+    }
+
+    @Test
+    public void connect4HashIsIncremental() {
+        for (long seed = 0; seed < 5; seed++)
+            checkGame(GameType.Connect4, seed);
+    }
+
+    @Test
+    public void strategoHashIsIncremental() {
+        for (long seed = 0; seed < 3; seed++)
+            checkGame(GameType.Stratego, seed);
+    }
+
+    @Test
+    public void sameGridByDifferentRoutesHasSameHash() {
+        Game game = GameType.TicTacToe.createGameInstance(2, 42);
+        AbstractForwardModel fm = game.getForwardModel();
+        TicTacToeGameState first = (TicTacToeGameState) game.getGameState();
+        TicTacToeGameState second = (TicTacToeGameState) first.copy();
+        long start = first.getZobristHash();
+
+        // x in cell 0, o in cell 1, x in cell 2; and then with the two x moves the other way round
+        List<AbstractAction> actions = fm.computeAvailableActions(first);
+        fm.next(first, actions.get(0));
+        assertNotEquals(start, first.getZobristHash());
+        fm.next(first, fm.computeAvailableActions(first).get(0));
+        fm.next(first, fm.computeAvailableActions(first).get(0));
+
+        actions = fm.computeAvailableActions(second);
+        fm.next(second, actions.get(2));
+        fm.next(second, fm.computeAvailableActions(second).get(1));
+        fm.next(second, fm.computeAvailableActions(second).get(0));
+
+        assertEquals(first.getGridBoard(), second.getGridBoard());
+        assertEquals(first.getZobristHash(), second.getZobristHash());
+    }
+}
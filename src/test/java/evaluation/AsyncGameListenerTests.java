@@ -0,0 +1,202 @@
+package evaluation;
+
+import core.AbstractPlayer;
+import core.Game;
+import evaluation.listeners.AsyncGameListener;
+import evaluation.listeners.IGameListener;
+import evaluation.listeners.MetricsGameListener;
+import evaluation.metrics.AbstractMetric;
+import evaluation.metrics.Event;
+import evaluation.metrics.GameMetrics;
+import evaluation.metrics.IDataLogger;
+import games.GameType;
+import org.junit.Test;
+import players.mcts.MCTSMetrics;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static evaluation.metrics.IDataLogger.ReportDestination.ToConsole;
+import static org.junit.Assert.*;
+
+public class AsyncGameListenerTests {
+
+    static class RecordingListener implements IGameListener {
+        final List<String> events = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        int sleepMillis;
+        boolean fail;
+        int reports;
+        Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            if (fail)
+                throw new IllegalStateException("Listener failed");
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            threads.add(Thread.currentThread());
+            events.add(event.type + ":" + event.playerID + ":" + (event.state == null ? -1 : event.state.getGameTick())
+                    + ":" + event.action);
+        }
+
+        @Override
+        public void report() {
+            reports++;
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+
+        @Override
+        public boolean canRunAsync() {
+            return true;
+        }
+    }
+
+    @Test
+    public void eventsMatchSynchronousListener() {
+        RecordingListener sync = new RecordingListener();
+        RecordingListener delegate = new RecordingListener();
+        delegate.sleepMillis = 1;
+        AsyncGameListener async = new AsyncGameListener(delegate, 4);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new RandomPlayer(new Random(1)));
+        players.add(new RandomPlayer(new Random(2)));
+        Game game = GameType.Connect4.createGameInstance(2, 42);
+        game.addListener(sync);
+        game.addListener(async);
+        game.reset(players);
+        game.run();
+        // GAME_OVER waits for all the events to be processed
+        assertEquals(sync.events, delegate.events);
+        assertTrue(delegate.events.get(delegate.events.size() - 1).startsWith("GAME_OVER"));
+        assertTrue(delegate.threads.stream().noneMatch(t -> t == Thread.currentThread()));
+        assertSame(game, async.getGame());
+    }
+
+    @Test
+    public void gameWaitsWhenBufferIsFull() {
+        RecordingListener delegate = new RecordingListener();
+        delegate.sleepMillis = 5;
+        AsyncGameListener async = new AsyncGameListener(delegate, 2);
+        for (int i = 0; i < 10; i++)
+            async.onEvent(Event.createEvent(Event.GameEvent.GAME_EVENT, null, null, i));
+        assertTrue(async.getBlockedEvents() >= 5);
+        async.report();
+        assertEquals(10, delegate.events.size());
+        assertEquals(1, delegate.reports);
+        for (int i = 0; i < 10; i++)
+            assertEquals("GAME_EVENT:" + i + ":-1:null", delegate.events.get(i));
+    }
+
+    @Test
+    public void listenerErrorsAreThrownOnFlush() {
+        RecordingListener delegate = new RecordingListener();
+        delegate.fail = true;
+        AsyncGameListener async = new AsyncGameListener(delegate, 8);
+        async.onEvent(Event.createEvent(Event.GameEvent.GAME_EVENT));
+        try {
+            async.flush();
+            fail("Expected the listener's exception");
+        } catch (IllegalStateException e) {
+            assertEquals("Listener failed", e.getMessage());
+        }
+        // and the error is only reported once
+        async.flush();
+    }
+
+    @Test
+    public void onlyListenersThatCanRunAsyncAreWrapped() {
+        MetricsGameListener eventsOnly = new MetricsGameListener(new AbstractMetric[]{
+                new GameMetrics.FinalScore(), new GameMetrics.Winner()});
+        assertTrue(eventsOnly.canRunAsync());
+        new AsyncGameListener(eventsOnly, 4).close();
+
+        MetricsGameListener readsGame = new MetricsGameListener(new AbstractMetric[]{
+                new GameMetrics.FinalScore(), new MCTSMetrics.TreeStats()});
+        assertFalse(readsGame.canRunAsync());
+        try {
+            new AsyncGameListener(readsGame, 4);
+            fail("Expected the listener to be refused");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private MetricsGameListener gameMetricsListener(List<String> data) {
+        AbstractMetric[] metrics = new GameMetrics().getAllMetrics();
+        MetricsGameListener listener = new MetricsGameListener(ToConsole, new IDataLogger.ReportType[0], metrics);
+        for (AbstractMetric metric : metrics)
+            metric.setDataLogger(new ParallelTournamentTests.RecordingLogger(metric, data));
+        return listener;
+    }
+
+    @Test
+    public void gameMetricsMatchSynchronousListenerWithoutCopyingState() {
+        List<String> syncData = new ArrayList<>();
+        List<String> asyncData = new ArrayList<>();
+        MetricsGameListener sync = gameMetricsListener(syncData);
+        MetricsGameListener delegate = gameMetricsListener(asyncData);
+        assertTrue(delegate.canRunAsync());
+        AsyncGameListener async = new AsyncGameListener(delegate, 4);
+
+        // the copies queued for the GameMetrics do not include the state
+        List<Event> copies = new ArrayList<>();
+        IGameListener copier = new RecordingListener() {
+            @Override
+            public void onEvent(Event event) {
+                if (delegate.getEventsOfInterest().contains(event.type))
+                    copies.add(delegate.copyEvent(event));
+            }
+        };
+
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new RandomPlayer(new Random(1)));
+        players.add(new RandomPlayer(new Random(2)));
+        Game game = GameType.Connect4.createGameInstance(2, 42);
+        Set<String> names = new HashSet<>(Arrays.asList(players.get(0).toString(), players.get(1).toString()));
+        sync.init(game, 2, names);
+        async.init(game, 2, names);
+        game.addListener(sync);
+        game.addListener(async);
+        game.addListener(copier);
+        game.reset(players);
+        game.run();
+        async.close();
+
+        assertFalse(syncData.isEmpty());
+        assertEquals(syncData, asyncData);
+        assertFalse(copies.isEmpty());
+        assertTrue(copies.stream().allMatch(e -> e.state == null));
+    }
+
+    @Test
+    public void closeStopsTheBackgroundThread() throws InterruptedException {
+        RecordingListener delegate = new RecordingListener();
+        AsyncGameListener async = new AsyncGameListener(delegate, 4);
+        async.onEvent(Event.createEvent(Event.GameEvent.GAME_EVENT, null, null, 1));
+        async.flush();
+        Thread thread = delegate.threads.get(0);
+        assertTrue(thread.isAlive());
+        async.close();
+        assertFalse(thread.isAlive());
+        // a later event starts a new thread
+        async.onEvent(Event.createEvent(Event.GameEvent.GAME_EVENT, null, null, 2));
+        async.close();
+        assertEquals(2, delegate.events.size());
+        assertNotSame(thread, delegate.threads.get(1));
+    }
+}
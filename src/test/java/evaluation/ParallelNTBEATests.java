@@ -0,0 +1,85 @@
+package evaluation;
+
+import core.AbstractPlayer;
+import evaluation.optimisation.BatchNTupleBanditEA;
+import evaluation.optimisation.GameEvaluator;
+import evaluation.optimisation.ITPSearchSpace;
+import games.GameType;
+import ntbea.NTupleSystem;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+import players.heuristics.WinOnlyHeuristic;
+import players.mcts.MCTSParams;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static utilities.JSONUtils.parser;
+
+public class ParallelNTBEATests {
+
+    private static final String searchSpace = "{\"class\": \"players.mcts.MCTSParams\", " +
+            "\"K\": [0.1, 1.0, 10.0], \"rolloutLength\": [0, 3, 10], \"budget\": 200}";
+
+    private ITPSearchSpace createSearchSpace() {
+        try {
+            return new ITPSearchSpace(new MCTSParams(), (JSONObject) parser.parse(searchSpace));
+        } catch (ParseException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private GameEvaluator createEvaluator(ITPSearchSpace itp, int nThreads) {
+        List<AbstractPlayer> opponents = new ArrayList<>();
+        opponents.add(new RandomPlayer(new Random(3)));
+        GameEvaluator evaluator = new GameEvaluator(GameType.TicTacToe, itp, null, 2, opponents, 42,
+                new WinOnlyHeuristic(), null, true);
+        evaluator.setThreads(nThreads);
+        return evaluator;
+    }
+
+    @Test
+    public void batchResultsDoNotDependOnThreads() {
+        ITPSearchSpace itp = createSearchSpace();
+        List<int[]> batch = new ArrayList<>();
+        for (int i = 0; i < 9; i++)
+            batch.add(new int[]{i % 3, i / 3});
+
+        GameEvaluator sequential = createEvaluator(itp, 1);
+        double[] expected = new double[batch.size()];
+        for (int i = 0; i < batch.size(); i++)
+            expected[i] = sequential.evaluate(batch.get(i));
+
+        GameEvaluator parallel = createEvaluator(itp, 4);
+        double[] results = parallel.evaluateAll(batch);
+        parallel.shutdown();
+        assertArrayEquals(expected, results, 1e-9);
+        assertEquals(batch.size(), parallel.nEvals());
+    }
+
+    @Test
+    public void batchSearchIsReproducible() {
+        ITPSearchSpace itp = createSearchSpace();
+        List<double[]> estimates = new ArrayList<>();
+        for (int nThreads : new int[]{1, 3}) {
+            NTupleSystem model = new NTupleSystem(itp);
+            model.addTuples();
+            BatchNTupleBanditEA ea = new BatchNTupleBanditEA(model, 1.0, 10, 3, 7);
+            GameEvaluator evaluator = createEvaluator(itp, nThreads);
+            ea.runTrial(evaluator, 10);
+            evaluator.shutdown();
+            assertEquals(10, evaluator.nEvals());
+            assertEquals(10, model.numberOfSamples());
+            // (getBestOfSampled() breaks ties in an arbitrary order, so we compare the whole model instead)
+            double[] modelEstimates = new double[9];
+            for (int i = 0; i < 9; i++)
+                modelEstimates[i] = model.getMeanEstimate(new int[]{i % 3, i / 3});
+            estimates.add(modelEstimates);
+        }
+        assertArrayEquals(estimates.get(0), estimates.get(1), 1e-9);
+    }
+}
@@ -0,0 +1,254 @@
+package evaluation;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.IGameEvent;
+import evaluation.listeners.IGameListener;
+import evaluation.listeners.MetricsGameListener;
+import evaluation.metrics.AbstractMetric;
+import evaluation.metrics.Event;
+import evaluation.metrics.GameMetrics;
+import evaluation.metrics.IDataLogger;
+import evaluation.metrics.tablessaw.DataTableSaw;
+import evaluation.tournaments.RoundRobinTournament;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static evaluation.metrics.IDataLogger.ReportDestination.ToConsole;
+import static evaluation.tournaments.AbstractTournament.TournamentMode.NO_SELF_PLAY;
+import static org.junit.Assert.*;
+
+public class ParallelTournamentTests {
+
+    static class EventLog implements IGameListener {
+        List<String> events = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        // events whose state is a copy, rather than the state of the game they came from
+        int copiedEvents;
+        Set<IGameEvent> eventsOfInterest;
+        boolean usesGame;
+        int reports;
+        Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            threads.add(Thread.currentThread());
+            if (usesGame)
+                assertSame(game.getGameState(), event.state);
+            if (event.state != game.getGameState())
+                copiedEvents++;
+            events.add(event.type + ":" + event.state.getRoundCounter() + ":" + event.state.getGameTick() + ":"
+                    + event.playerID + ":" + Arrays.toString(event.state.getPlayerResults()));
+        }
+
+        @Override
+        public void report() {
+            reports++;
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+
+        @Override
+        public boolean canRunAsync() {
+            return !usesGame;
+        }
+
+        @Override
+        public Set<IGameEvent> getEventsOfInterest() {
+            return eventsOfInterest;
+        }
+    }
+
+    /**
+     * Chooses the same action whenever it sees the same list of actions, so a copy plays exactly as the original does
+     */
+    static class FixedChoicePlayer extends AbstractPlayer {
+        final int choice;
+
+        FixedChoicePlayer(int choice) {
+            super(null, "FixedChoice-" + choice);
+            this.choice = choice;
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> possibleActions) {
+            return possibleActions.get(choice % possibleActions.size());
+        }
+
+        @Override
+        public FixedChoicePlayer copy() {
+            return new FixedChoicePlayer(choice);
+        }
+    }
+
+    /**
+     * Keeps all the data recorded by a metric, apart from the game IDs and timings (which differ from run to run)
+     */
+    static class RecordingLogger extends DataTableSaw {
+        final List<String> data;
+
+        RecordingLogger(AbstractMetric metric, List<String> data) {
+            super(metric);
+            this.data = data;
+        }
+
+        @Override
+        public void addData(String columnName, Object value) {
+            super.addData(columnName, value);
+            if (!columnName.equals("GameID") && !columnName.contains("(ms)"))
+                data.add(columnName + "=" + value);
+        }
+    }
+
+    private RoundRobinTournament runTournament(int nThreads, IGameListener... listeners) {
+        List<AbstractPlayer> agents = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AbstractPlayer agent = new RandomPlayer(new Random(i));
+            agent.setName("Random-" + i);
+            agents.add(agent);
+        }
+        return runTournament(agents, nThreads, listeners);
+    }
+
+    private RoundRobinTournament runTournament(List<AbstractPlayer> agents, int nThreads, IGameListener... listeners) {
+        Map<RunArg, Object> config = new HashMap<>();
+        config.put(RunArg.matchups, 5);
+        config.put(RunArg.nThreads, nThreads);
+        RoundRobinTournament tournament = new RoundRobinTournament(agents, GameType.LoveLetter, 2, null, NO_SELF_PLAY, config);
+        tournament.setRandomSeed(42);
+        tournament.setVerbose(false);
+        for (IGameListener listener : listeners)
+            tournament.addListener(listener);
+        tournament.run();
+        return tournament;
+    }
+
+    private MetricsGameListener gameMetricsListener(List<String> data) {
+        AbstractMetric[] metrics = new GameMetrics().getAllMetrics();
+        MetricsGameListener listener = new MetricsGameListener(ToConsole, new IDataLogger.ReportType[0], metrics);
+        for (AbstractMetric metric : metrics)
+            metric.setDataLogger(new RecordingLogger(metric, data));
+        return listener;
+    }
+
+    @Test
+    public void resultsIndependentOfThreadCount() {
+        EventLog twoThreads = new EventLog();
+        EventLog fourThreads = new EventLog();
+        RoundRobinTournament t2 = runTournament(2, twoThreads);
+        RoundRobinTournament t4 = runTournament(4, fourThreads);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(t2.getWinRate(i), t4.getWinRate(i), 1e-9);
+            assertEquals(t2.getOrdinalRank(i), t4.getOrdinalRank(i), 1e-9);
+        }
+        assertFalse(twoThreads.events.isEmpty());
+        assertEquals(twoThreads.events, fourThreads.events);
+        assertEquals(1, twoThreads.reports);
+    }
+
+    @Test
+    public void resultsMatchSingleThread() {
+        EventLog oneThread = new EventLog();
+        EventLog fourThreads = new EventLog();
+        List<String> oneThreadData = new ArrayList<>();
+        List<String> fourThreadData = new ArrayList<>();
+        List<AbstractPlayer> agents = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            agents.add(new FixedChoicePlayer(i));
+        RoundRobinTournament t1 = runTournament(agents, 1, oneThread, gameMetricsListener(oneThreadData));
+        RoundRobinTournament t4 = runTournament(agents, 4, fourThreads, gameMetricsListener(fourThreadData));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(t1.getWinRate(i), t4.getWinRate(i), 1e-9);
+            assertEquals(t1.getOrdinalRank(i), t4.getOrdinalRank(i), 1e-9);
+        }
+        assertFalse(oneThread.events.isEmpty());
+        assertEquals(oneThread.events, fourThreads.events);
+        assertFalse(oneThreadData.isEmpty());
+        assertEquals(oneThreadData, fourThreadData);
+        // the GameMetrics listener did not stop the games running in parallel
+        assertEquals(0, oneThread.copiedEvents);
+        assertEquals(fourThreads.events.size(), fourThreads.copiedEvents);
+    }
+
+    @Test
+    public void stateIsOnlyCopiedForListenersThatNeedIt() {
+        AbstractMetric[] metrics = new GameMetrics().getAllMetrics();
+        List<Event> received = new ArrayList<>();
+        MetricsGameListener metricsListener = new MetricsGameListener(ToConsole, new IDataLogger.ReportType[0], metrics) {
+            @Override
+            public void onEvent(Event event) {
+                received.add(event);
+                super.onEvent(event);
+            }
+        };
+        for (AbstractMetric metric : metrics) {
+            assertFalse(metric.needsState());
+            metric.setDataLogger(new RecordingLogger(metric, new ArrayList<>()));
+        }
+        EventLog log = new EventLog();
+        runTournament(4, log, metricsListener);
+        assertFalse(received.isEmpty());
+        assertTrue(received.stream().allMatch(e -> e.state == null));
+        // the EventLog uses the default copyEvent(), and so still gets a copy of the state
+        assertFalse(log.events.isEmpty());
+        assertEquals(log.events.size(), log.copiedEvents);
+    }
+
+    @Test
+    public void gameMetricsCanRunInParallel() {
+        assertTrue(new MetricsGameListener(new GameMetrics().getAllMetrics()).canRunAsync());
+    }
+
+    @Test
+    public void allGamesReachListeners() {
+        for (int nThreads : new int[]{1, 4})
+            checkGamesReachListeners(nThreads);
+    }
+
+    private void checkGamesReachListeners(int nThreads) {
+        EventLog log = new EventLog();
+        runTournament(nThreads, log);
+        // 6 ordered pairings of 3 agents, with 5 games each
+        assertEquals(30, log.events.stream().filter(e -> e.startsWith("GAME_OVER")).count());
+        assertEquals(30, log.events.stream().filter(e -> e.startsWith("ABOUT_TO_START")).count());
+        // all the events from one game are passed on before the next game starts
+        String previous = "GAME_OVER";
+        for (String event : log.events) {
+            if (event.startsWith("ABOUT_TO_START"))
+                assertTrue(previous.startsWith("GAME_OVER"));
+            previous = event;
+        }
+    }
+
+    @Test
+    public void onlyEventsOfInterestAreRecorded() {
+        EventLog log = new EventLog();
+        log.eventsOfInterest = Collections.singleton(Event.GameEvent.GAME_OVER);
+        runTournament(4, log);
+        assertEquals(30, log.events.size());
+        assertTrue(log.events.stream().allMatch(e -> e.startsWith("GAME_OVER")));
+    }
+
+    @Test
+    public void listenersThatUseTheGameRunOnOneThread() {
+        EventLog log = new EventLog();
+        log.usesGame = true;
+        runTournament(4, log);
+        // the events come straight from the tournament game (checked in onEvent), not from a replay
+        assertEquals(30, log.events.stream().filter(e -> e.startsWith("GAME_OVER")).count());
+        assertTrue(log.threads.stream().allMatch(t -> t == Thread.currentThread()));
+    }
+}
@@ -0,0 +1,128 @@
+package players;
+
+import core.AbstractParameters;
+import core.AbstractPlayer;
+import core.Game;
+import games.GameType;
+import org.junit.Test;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import players.rhea.RHEAParams;
+import players.rhea.RHEAPlayer;
+import players.rmhc.RMHCParams;
+import players.rmhc.RMHCPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BudgetControllerTests {
+
+    @Test
+    public void bucketsCoverAllTimes() {
+        int lastBucket = 0;
+        for (long nanos = 1; nanos < 100000; nanos++) {
+            int bucket = BudgetController.bucket(nanos);
+            assertTrue(bucket >= lastBucket);
+            assertTrue(BudgetController.upperBound(bucket) > nanos || nanos < 4);
+            assertTrue(BudgetController.upperBound(bucket) <= nanos * 1.25 + 1);
+            lastBucket = bucket;
+        }
+        assertEquals(Long.MAX_VALUE, BudgetController.upperBound(BudgetController.bucket(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void quantileIgnoresRareSlowIterations() {
+        BudgetController controller = new BudgetController();
+        controller.startDecision(1000000000L, 0, 0.9, false);
+        assertEquals(0, controller.getIterationQuantileNanos());
+        for (int i = 0; i < 95; i++)
+            controller.recordIteration(1000000);
+        for (int i = 0; i < 5; i++)
+            controller.recordIteration(100000000);
+        long estimate = controller.getIterationQuantileNanos();
+        assertTrue(estimate > 1000000 && estimate <= 1250000);
+
+        controller.startDecision(1000000000L, 0, 0.99, false);
+        for (int i = 0; i < 95; i++)
+            controller.recordIteration(1000000);
+        for (int i = 0; i < 5; i++)
+            controller.recordIteration(100000000);
+        estimate = controller.getIterationQuantileNanos();
+        assertTrue(estimate > 100000000 && estimate <= 125000000);
+        // and a new decision starts with no iterations
+        controller.startDecision(1000000000L, 0, 0.99, false);
+        assertEquals(0, controller.getIterations());
+        assertEquals(0, controller.getIterationQuantileNanos());
+    }
+
+    @Test
+    public void budgetExhaustedAndOverrunsRecorded() {
+        BudgetController controller = new BudgetController();
+        controller.startDecision(1000000000L, 0, 0.95, true);
+        assertFalse(controller.budgetExhausted());
+        // an iteration predicted to take longer than the time left
+        controller.recordIteration(2000000000L);
+        assertTrue(controller.budgetExhausted());
+        controller.endDecision();
+        assertEquals(1, controller.getDecisions());
+        assertEquals(0, controller.getOverruns());
+
+        controller.startDecision(0, 0, 0.95, true);
+        assertTrue(controller.budgetExhausted());
+        controller.endDecision();
+        assertEquals(2, controller.getDecisions());
+        assertEquals(1, controller.getOverruns());
+        assertTrue(controller.getMaxOverrunMillis() > 0.0);
+        assertEquals(controller.getLastOverrunMillis(), controller.getMeanOverrunMillis(), 1e-9);
+        controller.reset();
+        assertEquals(0, controller.getDecisions());
+        assertEquals(0, controller.getOverruns());
+    }
+
+    @Test
+    public void chessClockIsAHardDeadline() {
+        AbstractParameters gameParams = GameType.Connect4.createParameters(42);
+        gameParams.setThinkingTimeMins(1);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new RMHCPlayer());
+        players.add(new RMHCPlayer());
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42, gameParams);
+        game.reset(players);
+
+        PlayerParameters params = new PlayerParameters();
+        params.budget = 100000;
+        BudgetController controller = new BudgetController();
+        controller.startDecision(params, game.getGameState(), 0);
+        assertEquals(60000000000L, controller.getLimitNanos());
+        params.budget = 1000;
+        controller.startDecision(params, game.getGameState(), 0);
+        assertEquals(1000000000L, controller.getLimitNanos());
+    }
+
+    private void playWithTimeBudget(AbstractPlayer player, PlayerParameters params) {
+        params.budgetType = PlayerConstants.BUDGET_TIME;
+        params.budget = 20;
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(player);
+        players.add(new RMHCPlayer());
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        game.run();
+        BudgetController controller = ((IAnyTimePlayer) player).getBudgetController();
+        assertTrue(controller.getDecisions() > 3);
+        assertTrue(controller.getMaxOverrunMillis() < params.budget);
+    }
+
+    @Test
+    public void anyTimePlayersUseController() {
+        MCTSParams mctsParams = new MCTSParams();
+        mctsParams.rolloutLength = 10;
+        playWithTimeBudget(new MCTSPlayer(mctsParams), mctsParams);
+        RHEAParams rheaParams = new RHEAParams();
+        playWithTimeBudget(new RHEAPlayer(rheaParams), rheaParams);
+        RMHCParams rmhcParams = new RMHCParams();
+        playWithTimeBudget(new RMHCPlayer(rmhcParams), rmhcParams);
+    }
+}
@@ -0,0 +1,107 @@
+package players.mcts;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DeterminisationPoolTests {
+
+    private MCTSParams createParams() {
+        MCTSParams params = new MCTSParams();
+        params.setRandomSeed(9332);
+        params.information = MCTSEnums.Information.Information_Set;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 200;
+        return params;
+    }
+
+    private Game createGame(MCTSPlayer mctsPlayer) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        players.add(new RandomPlayer(new Random(44)));
+        Game game = GameType.LoveLetter.createGameInstance(players.size(), 42);
+        game.reset(players);
+        return game;
+    }
+
+    @Test
+    public void newDeterminisationEachIteration() {
+        MCTSPlayer player = new MCTSPlayer(createParams());
+        createGame(player).oneAction();
+        SingleTreeNode root = player.root;
+        assertEquals(200, root.getVisits());
+        assertNull(root.determinisationPool);
+        assertTrue(root.determinisationNanos > 0);
+        assertTrue(root.determinisationNanos <= root.searchNanos);
+    }
+
+    @Test
+    public void poolIsFilledOnce() {
+        MCTSParams params = createParams();
+        params.determinisations = 10;
+        MCTSPlayer player = new MCTSPlayer(params);
+        createGame(player).oneAction();
+        SingleTreeNode root = player.root;
+        assertEquals(200, root.getVisits());
+        assertEquals(10, root.determinisationPool.size());
+        assertTrue(root.determinisationNanos <= root.searchNanos);
+    }
+
+    @Test
+    public void poolIsNotChangedBySearch() {
+        MCTSParams params = createParams();
+        params.determinisations = 3;
+        MCTSPlayer player = new MCTSPlayer(params);
+        createGame(player).oneAction();
+        SingleTreeNode root = player.root;
+        List<Integer> hashes = new ArrayList<>();
+        for (AbstractGameState state : root.determinisationPool)
+            hashes.add(state.hashCode());
+        for (int i = 0; i < 10; i++) {
+            AbstractGameState state = root.determinisation(200 + i);
+            assertNotSame(root.determinisationPool.get((200 + i) % 3), state);
+            List<AbstractAction> actions = player.getForwardModel().computeAvailableActions(state);
+            player.getForwardModel().next(state, actions.get(0));
+        }
+        for (int i = 0; i < 3; i++)
+            assertEquals((int) hashes.get(i), root.determinisationPool.get(i).hashCode());
+    }
+
+    @Test
+    public void treeParallelSearchUsesPool() {
+        MCTSParams params = createParams();
+        params.determinisations = 5;
+        params.parallelMode = MCTSEnums.ParallelMode.Tree;
+        params.nThreads = 3;
+        MCTSPlayer player = new MCTSPlayer(params);
+        createGame(player).oneAction();
+        SingleTreeNode root = player.root;
+        assertEquals(200, root.getVisits());
+        assertTrue(root.determinisationNanos > 0);
+        assertTrue(root.determinisationNanos <= root.searchNanos);
+        player.finalizePlayer(null);
+    }
+
+    @Test
+    public void gameRunsWithPool() {
+        MCTSParams params = createParams();
+        params.determinisations = 5;
+        MCTSPlayer player = new MCTSPlayer(params);
+        Game game = createGame(player);
+        game.run();
+        assertFalse(game.getGameState().isNotTerminal());
+    }
+}
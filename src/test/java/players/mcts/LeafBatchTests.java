@@ -0,0 +1,181 @@
+package players.mcts;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.IStateFeatureVector;
+import core.interfaces.IStateHeuristic;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.heuristics.LinearStateHeuristic;
+import players.heuristics.LogisticStateHeuristic;
+import players.heuristics.WinOnlyHeuristic;
+import players.simple.RandomPlayer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LeafBatchTests {
+
+    // Records the size of each batch of states evaluated
+    static class BatchCountingHeuristic implements IStateHeuristic {
+        List<Integer> batches = new ArrayList<>();
+
+        @Override
+        public double evaluateState(AbstractGameState gs, int playerId) {
+            return gs.getGameScore(playerId) / 100.0;
+        }
+
+        @Override
+        public double[][] evaluateStates(List<AbstractGameState> states) {
+            batches.add(states.size());
+            return IStateHeuristic.super.evaluateStates(states);
+        }
+    }
+
+    static class TestFeatures implements IStateFeatureVector {
+        @Override
+        public String[] names() {
+            return new String[]{"Turn", "Score", "Current"};
+        }
+
+        @Override
+        public double[] featureVector(AbstractGameState state, int playerID) {
+            return new double[]{state.getTurnCounter(), state.getGameScore(playerID), state.getCurrentPlayer() == playerID ? 1 : 0};
+        }
+    }
+
+    // Leaves out the last feature on odd turns
+    static class ShortFeatures extends TestFeatures {
+        @Override
+        public double[] featureVector(AbstractGameState state, int playerID) {
+            double[] phi = super.featureVector(state, playerID);
+            return state.getTurnCounter() % 2 == 1 ? new double[]{phi[0], phi[1]} : phi;
+        }
+    }
+
+    static class ScaledLinearHeuristic extends LinearStateHeuristic {
+        ScaledLinearHeuristic(String file) {
+            super(new TestFeatures(), file, new WinOnlyHeuristic());
+        }
+
+        @Override
+        public double evaluateState(AbstractGameState state, int playerId) {
+            return 2.0 * super.evaluateState(state, playerId);
+        }
+    }
+
+    private MCTSParams createParams(IStateHeuristic heuristic, int leafBatchSize) {
+        MCTSParams params = new MCTSParams();
+        params.setRandomSeed(9332);
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.OneTree;
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 100;
+        params.heuristic = heuristic;
+        params.leafBatchSize = leafBatchSize;
+        return params;
+    }
+
+    private MCTSPlayer firstDecision(MCTSParams params) {
+        MCTSPlayer player = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(player);
+        players.add(new RandomPlayer(new Random(3023)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        game.oneAction();
+        return player;
+    }
+
+    @Test
+    public void statesAreEvaluatedInBatches() {
+        BatchCountingHeuristic heuristic = new BatchCountingHeuristic();
+        MCTSPlayer player = firstDecision(createParams(heuristic, 8));
+        assertEquals(100, player.root.getVisits());
+        // 12 batches of 8 and one of 4, with the start and end states of each batch evaluated separately
+        assertEquals(26, heuristic.batches.size());
+        for (int i = 0; i < 24; i++)
+            assertEquals(8, (int) heuristic.batches.get(i));
+        assertEquals(4, (int) heuristic.batches.get(24));
+        assertEquals(4, (int) heuristic.batches.get(25));
+    }
+
+    @Test
+    public void noBatchesByDefault() {
+        BatchCountingHeuristic heuristic = new BatchCountingHeuristic();
+        MCTSPlayer player = firstDecision(createParams(heuristic, 1));
+        assertEquals(100, player.root.getVisits());
+        assertTrue(heuristic.batches.isEmpty());
+    }
+
+    @Test
+    public void virtualLossIsRemoved() {
+        MCTSPlayer player = firstDecision(createParams(new WinOnlyHeuristic(), 16));
+        for (SingleTreeNode node : player.root.allNodesInTree()) {
+            int actionVisits = 0;
+            for (AbstractAction action : node.actionValues.keySet())
+                actionVisits += node.actionVisits(action);
+            assertEquals(node.getVisits(), actionVisits);
+        }
+        assertTrue(player.root.allNodesInTree().size() > 20);
+    }
+
+    private File coefficientsFile() throws IOException {
+        File file = File.createTempFile("coefficients", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("BIAS\tTurn\tScore\tCurrent\n");
+            writer.write("0.1\t-0.02\t0.3\t0.5\n");
+        }
+        return file;
+    }
+
+    private void assertBatchMatchesSingleStates(IStateHeuristic heuristic) {
+        List<AbstractGameState> states = new ArrayList<>();
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new RandomPlayer(new Random(1)));
+        players.add(new RandomPlayer(new Random(2)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        while (game.getGameState().isNotTerminal()) {
+            states.add(game.getGameState().copy());
+            game.oneAction();
+        }
+        states.add(game.getGameState().copy());
+        double[][] batch = heuristic.evaluateStates(states);
+        assertEquals(states.size(), batch.length);
+        for (int i = 0; i < states.size(); i++)
+            for (int p = 0; p < 2; p++)
+                assertEquals(heuristic.evaluateState(states.get(i), p), batch[i][p], 1e-12);
+    }
+
+    @Test
+    public void linearBatchMatchesSingleStates() throws IOException {
+        String file = coefficientsFile().getPath();
+        assertBatchMatchesSingleStates(new LinearStateHeuristic(new TestFeatures(), file, new WinOnlyHeuristic()));
+        assertBatchMatchesSingleStates(new LinearStateHeuristic(new TestFeatures(), file, null));
+        assertBatchMatchesSingleStates(new LogisticStateHeuristic(new TestFeatures(), file, new WinOnlyHeuristic()));
+    }
+
+    @Test
+    public void batchHandlesShortFeatureVectors() throws IOException {
+        String file = coefficientsFile().getPath();
+        assertBatchMatchesSingleStates(new LinearStateHeuristic(new ShortFeatures(), file, null));
+        assertBatchMatchesSingleStates(new LogisticStateHeuristic(new ShortFeatures(), file, null));
+    }
+
+    @Test
+    public void subclassesAreEvaluatedOneStateAtATime() throws IOException {
+        assertBatchMatchesSingleStates(new ScaledLinearHeuristic(coefficientsFile().getPath()));
+    }
+}
@@ -0,0 +1,112 @@
+package players.mcts;
+
+import core.AbstractPlayer;
+import core.Game;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.rhea.RHEAParams;
+import players.rhea.RHEAPlayer;
+import utilities.Pair;
+import utilities.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MASTStoreTests {
+
+    @Test
+    public void updateAndRead() {
+        MASTStore store = new MASTStore(2);
+        store.update(0, 17, 1.0);
+        store.update(0, 17, 0.5);
+        store.update(1, 17, -1.0);
+        assertEquals(2, store.getVisits(0, 17));
+        assertEquals(1.5, store.getTotValue(0, 17), 1e-9);
+        assertEquals(0.75, store.getMean(0, 17, 0.0), 1e-9);
+        assertEquals(-1.0, store.getMean(1, 17, 0.0), 1e-9);
+        assertEquals(0, store.getVisits(0, 18));
+        assertEquals(3.0, store.getMean(0, 18, 3.0), 1e-9);
+        assertEquals(1, store.size(0));
+        assertEquals(1, store.size(1));
+    }
+
+    @Test
+    public void growsWithoutLosingStatistics() {
+        MASTStore store = new MASTStore(1);
+        for (int i = 0; i < 10000; i++) {
+            // keys that differ only in their high bits
+            store.update(0, i << 16, i);
+            store.update(0, i << 16, i);
+        }
+        assertEquals(10000, store.size(0));
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(2, store.getVisits(0, i << 16));
+            assertEquals(2.0 * i, store.getTotValue(0, i << 16), 1e-9);
+        }
+    }
+
+    @Test
+    public void decayMatchesUtils() {
+        MASTStore store = new MASTStore(1);
+        for (int visits = 1; visits < 20; visits++)
+            for (int i = 0; i < visits; i++)
+                store.update(0, visits, visits * 0.1 + i);
+        store.decay(0.7);
+        for (int visits = 1; visits < 20; visits++) {
+            double total = 0.0;
+            for (int i = 0; i < visits; i++)
+                total += visits * 0.1 + i;
+            Pair<Integer, Double> expected = Utils.decay(new Pair<>(visits, total), 0.7);
+            assertEquals((int) expected.a, store.getVisits(0, visits));
+            assertEquals(expected.b, store.getTotValue(0, visits), 1e-9);
+        }
+        // and a gamma of 1 changes nothing
+        MASTStore copy = store.copy();
+        copy.decay(1.0);
+        for (int visits = 1; visits < 20; visits++)
+            assertEquals(store.getVisits(0, visits), copy.getVisits(0, visits));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        MASTStore store = new MASTStore(2);
+        store.update(1, 5, 1.0);
+        MASTStore copy = store.copy();
+        copy.update(1, 5, 1.0);
+        copy.update(1, 6, 1.0);
+        copy.decay(0.5);
+        assertEquals(1, store.getVisits(1, 5));
+        assertEquals(0, store.getVisits(1, 6));
+        assertEquals(1, store.size(1));
+        assertEquals(2, copy.size(1));
+    }
+
+    @Test
+    public void mctsAndRheaRunWithMAST() {
+        MCTSParams mctsParams = new MCTSParams();
+        mctsParams.setRandomSeed(9332);
+        mctsParams.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        mctsParams.budget = 100;
+        mctsParams.useMAST = true;
+        mctsParams.rolloutType = MCTSEnums.Strategies.MAST;
+        mctsParams.rolloutLength = 10;
+        MCTSPlayer mctsPlayer = new MCTSPlayer(mctsParams);
+        RHEAParams rheaParams = new RHEAParams();
+        rheaParams.setRandomSeed(3023);
+        rheaParams.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        rheaParams.budget = 20;
+        rheaParams.useMAST = true;
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RHEAPlayer(rheaParams));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        game.run();
+        assertFalse(game.getGameState().isNotTerminal());
+        // the statistics for the MCTS player's own actions are carried from one decision to the next
+        assertTrue(mctsPlayer.MASTStats.size(0) > 0);
+    }
+}
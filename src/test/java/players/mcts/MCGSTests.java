@@ -18,8 +18,7 @@ import players.simple.RandomPlayer;
 import java.util.*;
 import java.util.function.Predicate;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class MCGSTests {
 
@@ -193,7 +192,7 @@ public class MCGSTests {
                 if (game.getTick() < 10) // at this point we are at no risk of the game ending during search
                     assertEquals(root.getVisits(), root.getTranspositionMap().size(), 1);
                 assertTrue(params.budget + 1 >= root.getTranspositionMap().size());
-                assertEquals(0, root.getTranspositionMap().keySet().stream().filter(s -> !s.startsWith("0-")).count());
+                assertEquals(0, root.getTranspositionMap().values().stream().filter(n -> n.turnOwner != 0).count());
                 List<SingleTreeNode> problemNodes = root.nonMatchingNodes(actionVisitsAddUp);
                 assertEquals(0, problemNodes.size());
                 problemNodes = root.nonMatchingNodes(allNodesForPlayerZero);
@@ -216,7 +215,7 @@ public class MCGSTests {
                 MCGSNode root = (MCGSNode) mctsPlayer.getRoot(0);
                 if (root == null) continue;
                 assertTrue(params.budget + 1 >= root.getTranspositionMap().size());
-                assertEquals(0, root.getTranspositionMap().keySet().stream().filter(s -> !s.startsWith("0-")).count());
+                assertEquals(0, root.getTranspositionMap().values().stream().filter(n -> n.turnOwner != 0).count());
                 //                        root.getTranspositionMap().get(s).openLoopState.isNotTerminalForPlayer(0)).count());
                 List<SingleTreeNode> problemNodes = root.nonMatchingNodes(actionVisitsAddUp);
                 assertEquals(0, problemNodes.size());
@@ -258,7 +257,55 @@ public class MCGSTests {
         // We now have a total space of 7 + 6 + 5 + 5 + 4 + 3 + 2 + 1 = 33 states
         game.oneAction();
         MCGSNode root = (MCGSNode) mctsPlayer.getRoot(0);
-        assertEquals(0, root.getTranspositionMap().keySet().stream().filter(s -> !s.startsWith("0-")).count());
+        assertEquals(0, root.getTranspositionMap().values().stream().filter(n -> n.turnOwner != 0).count());
         assertEquals(33, root.getTranspositionMap().size());
     }
+
+    @Test
+    public void boundedTableReplacesLeastVisited() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MCGS;
+        params.MCGSStateKey = new DBEdgeAndScoreKey();
+        params.MCGSTableSize = 32;
+        params.MCGSReplacement = MCTSEnums.TranspositionReplacement.LeastVisited;
+        params.budget = 500;
+        Game game = createDotsAndBoxes(params);
+        game.oneAction();
+        MCGSNode root = (MCGSNode) mctsPlayer.getRoot(0);
+        TranspositionTable table = root.getTranspositionTable();
+        assertEquals(500, root.getVisits());
+        assertEquals(32, table.capacity());
+        assertTrue(table.size() <= 32);
+        assertTrue(table.getEvictions() > 0);
+        // the root is never replaced
+        assertTrue(table.values().contains(root));
+    }
+
+    @Test
+    public void boundedTableKeepsExisting() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MCGS;
+        params.MCGSStateKey = new DBEdgeAndScoreKey();
+        params.MCGSTableSize = 32;
+        params.MCGSReplacement = MCTSEnums.TranspositionReplacement.KeepExisting;
+        params.budget = 500;
+        Game game = createDotsAndBoxes(params);
+        game.oneAction();
+        MCGSNode root = (MCGSNode) mctsPlayer.getRoot(0);
+        TranspositionTable table = root.getTranspositionTable();
+        assertEquals(32, table.capacity());
+        assertTrue(table.getEvictions() > 0);
+        assertEquals(table.size() + table.getEvictions(), root.getVisits() + 1, 1);
+    }
+
+    @Test
+    public void growingTableKeepsEveryNode() {
+        TranspositionTable table = new TranspositionTable(16, MCTSEnums.TranspositionReplacement.Grow);
+        MCGSNode node = new MCGSNode();
+        for (long key = 0; key < 10000; key++)
+            assertTrue(table.put(key * 31, node));
+        assertEquals(10000, table.size());
+        assertEquals(0, table.getEvictions());
+        for (long key = 0; key < 10000; key++)
+            assertTrue(table.containsKey(key * 31));
+        assertFalse(table.containsKey(7));
+    }
 }
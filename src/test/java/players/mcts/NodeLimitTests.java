@@ -0,0 +1,107 @@
+package players.mcts;
+
+import core.AbstractPlayer;
+import core.Game;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NodeLimitTests {
+
+    private MCTSParams createParams() {
+        MCTSParams params = new MCTSParams();
+        params.setRandomSeed(9332);
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.OneTree;
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 1000;
+        params.K = 1.0;
+        return params;
+    }
+
+    private Game createGame(MCTSPlayer mctsPlayer) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        return game;
+    }
+
+    // takes the first decision, and checks the tree against the limit
+    private TreeStatistics firstDecision(MCTSParams params, int limit) {
+        MCTSPlayer player = new MCTSPlayer(params);
+        Game game = createGame(player);
+        game.oneAction();
+        SingleTreeNode root = player.root;
+        TreeStatistics stats = new TreeStatistics(root);
+        assertEquals(params.budget, root.getVisits());
+        assertEquals(stats.totalNodes, root.treeSize);
+        assertTrue(stats.totalNodes <= limit);
+        return stats;
+    }
+
+    @Test
+    public void noLimit() {
+        TreeStatistics stats = firstDecision(createParams(), Integer.MAX_VALUE);
+        assertTrue(stats.totalNodes > 100);
+        assertEquals(0, stats.refusedExpansions);
+        assertEquals(0, stats.prunedNodes);
+    }
+
+    @Test
+    public void stopExpanding() {
+        MCTSParams params = createParams();
+        params.maxNodes = 100;
+        TreeStatistics stats = firstDecision(params, 100);
+        assertEquals(100, stats.totalNodes);
+        assertTrue(stats.refusedExpansions > 0);
+        assertEquals(0, stats.prunedNodes);
+    }
+
+    @Test
+    public void pruneLeastVisited() {
+        MCTSParams params = createParams();
+        params.maxNodes = 100;
+        params.nodeLimit = MCTSEnums.NodeLimit.PruneLeastVisited;
+        TreeStatistics stats = firstDecision(params, 100);
+        assertTrue(stats.totalNodes >= 90);
+        assertTrue(stats.prunedNodes > 0);
+        assertEquals(0, stats.refusedExpansions);
+    }
+
+    @Test
+    public void pruneRecyclesPooledNodes() {
+        MCTSParams params = createParams();
+        params.maxNodes = 100;
+        params.nodeLimit = MCTSEnums.NodeLimit.PruneLeastVisited;
+        params.poolNodes = true;
+        params.reuseTree = true;
+        MCTSPlayer player = new MCTSPlayer(params);
+        Game game = createGame(player);
+        game.run();
+        // the pool never needs to create many more nodes than the limit
+        NodePool pool = (NodePool) player.root.factory;
+        assertTrue(pool.getNodesCreated() <= 101);
+    }
+
+    @Test
+    public void memoryLimit() {
+        // the heap in use after a collection is always more than 1MB, so the tree stops growing at the first check
+        // (after 64 nodes)
+        System.gc();
+        assertTrue(SingleTreeNode.heapUsedAfterGC() > 1048576L);
+        MCTSParams params = createParams();
+        params.maxMemory = 1;
+        TreeStatistics stats = firstDecision(params, 64);
+        assertTrue(stats.refusedExpansions > 0);
+    }
+}
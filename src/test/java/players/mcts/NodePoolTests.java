@@ -0,0 +1,119 @@
+package players.mcts;
+
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NodePoolTests {
+
+    private MCTSParams createParams() {
+        MCTSParams params = new MCTSParams();
+        params.setRandomSeed(9332);
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.OneTree;
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 200;
+        params.K = 1.0;
+        return params;
+    }
+
+    // Plays a game of Connect4, and returns the actions taken and the visits to each root action at each decision
+    private List<String> play(MCTSPlayer mctsPlayer) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        List<String> retValue = new ArrayList<>();
+        while (game.getGameState().isNotTerminal()) {
+            int player = game.getGameState().getCurrentPlayer();
+            AbstractAction action = game.oneAction();
+            retValue.add(describe(action));
+            if (player == 0) {
+                SingleTreeNode root = mctsPlayer.root;
+                List<String> visits = new ArrayList<>();
+                for (AbstractAction rootAction : root.actionValues.keySet())
+                    visits.add(describe(rootAction) + " : " + root.actionVisits(rootAction));
+                Collections.sort(visits);  // the order of actionValues depends on the hashCodes of the actions
+                retValue.addAll(visits);
+            }
+        }
+        return retValue;
+    }
+
+    // the component ID of the board is different in each game
+    private String describe(AbstractAction action) {
+        return action.toString().replaceAll("gridBoard=\\d+, ", "");
+    }
+
+    @Test
+    public void poolGivesSameResults() {
+        List<String> expected = play(new MCTSPlayer(createParams()));
+        MCTSParams poolParams = createParams();
+        poolParams.poolNodes = true;
+        poolParams.resetSeedEachGame = true;
+        MCTSPlayer pooled = new MCTSPlayer(poolParams);
+        assertEquals(expected, play(pooled));
+        // and the second game uses nodes from the first
+        assertEquals(expected, play(pooled));
+    }
+
+    @Test
+    public void poolGivesSameResultsWithTreeReuse() {
+        MCTSParams params = createParams();
+        params.reuseTree = true;
+        List<String> expected = play(new MCTSPlayer(params));
+        MCTSParams poolParams = createParams();
+        poolParams.reuseTree = true;
+        poolParams.poolNodes = true;
+        assertEquals(expected, play(new MCTSPlayer(poolParams)));
+    }
+
+    @Test
+    public void nodesAreReused() {
+        MCTSParams params = createParams();
+        params.poolNodes = true;
+        MCTSPlayer player = new MCTSPlayer(params);
+        play(player);
+        NodePool pool = (NodePool) player.getFactory();
+        int nodesInLastTree = player.root.allNodesInTree().size();
+        // the pool should only have created enough nodes for the largest single tree
+        assertTrue(pool.getNodesCreated() <= 201);
+        assertEquals(pool.getNodesCreated(), pool.size() + nodesInLastTree);
+    }
+
+    @Test
+    public void releaseKeepsSubtree() {
+        MCTSParams params = createParams();
+        params.poolNodes = true;
+        MCTSPlayer player = new MCTSPlayer(params);
+        play(player);
+        SingleTreeNode root = player.root;
+        SingleTreeNode keep = root.children.values().stream()
+                .filter(a -> a != null)
+                .flatMap(java.util.Arrays::stream)
+                .filter(n -> n != null && !n.children.isEmpty())
+                .findFirst().orElseThrow();
+        int keptNodes = keep.allNodesInTree().size();
+        int allNodes = root.allNodesInTree().size();
+        NodePool pool = (NodePool) player.getFactory();
+        int before = pool.size();
+        pool.release(root, keep);
+        assertEquals(before + allNodes - keptNodes, pool.size());
+        assertNull(root.params);
+        assertEquals(keptNodes, keep.allNodesInTree().size());
+        assertNotNull(keep.params);
+    }
+}
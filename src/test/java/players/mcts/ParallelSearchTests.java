@@ -0,0 +1,122 @@
+package players.mcts;
+
+import core.*;
+import core.actions.*;
+import games.GameType;
+import games.dominion.DominionForwardModel;
+import games.dominion.DominionGameState;
+import games.dominion.DominionParameters;
+import org.junit.*;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ParallelSearchTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams();
+        params.setRandomSeed(9332);
+        params.treePolicy = MCTSEnums.TreePolicy.UCB;
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.OneTree;
+        params.information = MCTSEnums.Information.Information_Set;
+        params.maxTreeDepth = 50;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 200;
+        params.selectionPolicy = MCTSEnums.SelectionPolicy.SIMPLE;
+        params.K = 1.0;
+        params.nThreads = 4;
+    }
+
+    public Game createGame(MCTSParams params) {
+        mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        players.add(new RandomPlayer(new Random(244)));
+        DominionParameters dp = new DominionParameters();
+        dp.setRandomSeed(330245);
+        return new Game(GameType.Dominion, players, new DominionForwardModel(), new DominionGameState(dp, players.size()));
+    }
+
+    @Test
+    public void rootParallelMergesAllTrees() {
+        params.parallelMode = MCTSEnums.ParallelMode.Root;
+        Game game = createGame(params);
+        runGame(game, 4, root -> {
+            assertArrayEquals(new int[]{50, 50, 50, 50}, root.threadIterations);
+            // only the first tree is kept, so the root statistics cover more iterations than its children
+            assertEquals(50, new TreeStatistics(root).totalNodes, 5);
+        });
+    }
+
+    @Test
+    public void treeParallelSharesOneTree() {
+        params.parallelMode = MCTSEnums.ParallelMode.Tree;
+        Game game = createGame(params);
+        runGame(game, 4, root -> {
+            assertEquals(200, Arrays.stream(root.threadIterations).sum());
+            for (AbstractAction child : root.actionValues.keySet()) {
+                // all virtual loss must have been removed by the end of the search
+                int timesActionTaken = root.actionValues.get(child).nVisits;
+                if (timesActionTaken > 0)
+                    assertEquals(timesActionTaken - 1,
+                            Arrays.stream(root.children.get(child))
+                                    .filter(Objects::nonNull)
+                                    .mapToInt(SingleTreeNode::getVisits).sum());
+            }
+            assertEquals(200, new TreeStatistics(root).totalNodes, 10);
+        });
+    }
+
+    @Test
+    public void treeParallelSelfOnly() {
+        params.parallelMode = MCTSEnums.ParallelMode.Tree;
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.SelfOnly;
+        Game game = createGame(params);
+        runGame(game, 4, root -> assertEquals(200, Arrays.stream(root.threadIterations).sum()));
+    }
+
+    @Test
+    public void timeBudgetUsesAllThreads() {
+        params.parallelMode = MCTSEnums.ParallelMode.Root;
+        params.budgetType = PlayerConstants.BUDGET_TIME;
+        params.budget = 50;
+        params.nThreads = 2;
+        Game game = createGame(params);
+        AbstractGameState state = game.getGameState();
+        mctsPlayer._getAction(state, game.getForwardModel().computeAvailableActions(state));
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        assertEquals(2, root.threadIterations.length);
+        assertTrue(Arrays.stream(root.threadIterations).allMatch(i -> i > 0));
+        assertEquals(Arrays.stream(root.threadIterations).sum(), root.getVisits());
+    }
+
+    private void runGame(Game game, int moves, java.util.function.Consumer<SingleTreeNode> extraChecks) {
+        int counter = 0;
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel forwardModel = game.getForwardModel();
+        do {
+            AbstractAction actionChosen = game.getPlayers().get(state.getCurrentPlayer())
+                    ._getAction(state, forwardModel.computeAvailableActions(state));
+
+            if (state.getCurrentPlayer() == 0) {
+                SingleTreeNode root = mctsPlayer.getRoot(0);
+                assertEquals(200, root.getVisits());
+                int childVisits = root.actionValues.values().stream()
+                        .mapToInt(actionStats -> actionStats.nVisits).sum();
+                assertEquals(200, childVisits);
+                extraChecks.accept(root);
+                counter++;
+            }
+            forwardModel.next(state, actionChosen);
+        } while (counter < moves);
+    }
+}
@@ -0,0 +1,142 @@
+package players.mcts;
+
+import core.AbstractPlayer;
+import core.Game;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TreeReuseTests {
+
+    MCTSPlayer mctsPlayer;
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams();
+        params.setRandomSeed(9332);
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.OneTree;
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 200;
+        params.K = 1.0;
+    }
+
+    private Game createConnect4() {
+        mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        return game;
+    }
+
+    // Plays the game, and returns the number of visits to the root at each decision by the MCTS player
+    private List<Integer> playAndCheckTree(Game game) {
+        List<Integer> rootVisits = new ArrayList<>();
+        while (game.getGameState().isNotTerminal()) {
+            int player = game.getGameState().getCurrentPlayer();
+            game.oneAction();
+            if (player == 0) {
+                SingleTreeNode root = mctsPlayer.root;
+                assertNull(root.getParent());
+                assertEquals(0, root.getDepth());
+                for (SingleTreeNode node : root.allNodesInTree()) {
+                    assertSame(root, node.root);
+                    if (node != root)
+                        assertEquals(node.getParent().getDepth() + 1, node.getDepth());
+                }
+                rootVisits.add(root.getVisits());
+            }
+        }
+        return rootVisits;
+    }
+
+    @Test
+    public void newTreeEachDecisionByDefault() {
+        List<Integer> rootVisits = playAndCheckTree(createConnect4());
+        assertFalse(rootVisits.isEmpty());
+        for (int visits : rootVisits)
+            assertEquals(200, visits);
+    }
+
+    @Test
+    public void openLoopTreeIsReused() {
+        params.reuseTree = true;
+        List<Integer> rootVisits = playAndCheckTree(createConnect4());
+        assertEquals(200, (int) rootVisits.get(0));
+        for (int visits : rootVisits)
+            assertTrue(visits >= 200);
+        assertTrue(rootVisits.stream().filter(v -> v > 200).count() > rootVisits.size() / 2);
+    }
+
+    @Test
+    public void informationSetTreeIsReused() {
+        params.reuseTree = true;
+        params.information = MCTSEnums.Information.Information_Set;
+        List<Integer> rootVisits = playAndCheckTree(createConnect4());
+        for (int visits : rootVisits)
+            assertTrue(visits >= 200);
+        assertTrue(rootVisits.stream().anyMatch(v -> v > 200));
+    }
+
+    @Test
+    public void treeIsNotReusedAcrossGames() {
+        params.reuseTree = true;
+        Game game = createConnect4();
+        playAndCheckTree(game);
+        game.reset(game.getPlayers());
+        List<Integer> rootVisits = playAndCheckTree(game);
+        assertEquals(200, (int) rootVisits.get(0));
+    }
+
+    @Test
+    public void ponderingAddsIterations() {
+        params.ponder = true;
+        Game game = createConnect4();
+        game.run();
+        assertFalse(game.getGameState().isNotTerminal());
+        assertTrue(mctsPlayer.getPonderIterations() > 0);
+        assertTrue(mctsPlayer.getPonderTime() >= 0.0);
+
+        // pondering is stopped at the end of the game, and the statistics are reset for the next one
+        game.reset(game.getPlayers());
+        assertEquals(0, mctsPlayer.getPonderIterations());
+        game.run();
+        assertTrue(mctsPlayer.getPonderIterations() > 0);
+    }
+
+    @Test
+    public void ponderingSearchesADetachedTree() {
+        params.ponder = true;
+        Game game = createConnect4();
+        int checked = 0;
+        while (game.getGameState().isNotTerminal()) {
+            int player = game.getGameState().getCurrentPlayer();
+            game.oneAction();
+            if (player == 0 && game.getGameState().isNotTerminal()) {
+                // the background search is running from a node that is no longer in this tree, and has its own Random
+                SingleTreeNode root = mctsPlayer.root;
+                List<SingleTreeNode> nodes = root.allNodesInTree();
+                for (SingleTreeNode node : nodes) {
+                    assertSame(root, node.root);
+                    assertSame(mctsPlayer.getRnd(), node.rnd);
+                }
+                assertTrue(mctsPlayer.getTreeStatistics().totalNodes >= nodes.size());
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+        assertTrue(mctsPlayer.getPonderIterations() > 0);
+    }
+}
@@ -0,0 +1,128 @@
+package players.rhea;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.interfaces.IStateHeuristic;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ClosedLoopRHEATests {
+
+    IStateHeuristic heuristic = (state, playerId) -> state.getGameScore(playerId) / 10.0 + state.getTurnCounter() / 100.0;
+
+    private Game createGame(AbstractPlayer player) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(player);
+        players.add(new RandomPlayer(new Random(3023)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        return game;
+    }
+
+    // the cached scores and value must match those we get by evaluating the stored states again
+    private void assertConsistent(RHEAIndividual individual, int playerID) {
+        double value = 0.0, previousScore = 0.0;
+        for (int i = 0; i < individual.length; i++) {
+            double score = heuristic.evaluateState(individual.gameStates[i + 1], playerID);
+            assertEquals(score, individual.scores[i + 1], 1e-12);
+            value += Math.pow(individual.discountFactor, i) * (score - previousScore);
+            previousScore = score;
+        }
+        assertEquals(value, individual.value, 1e-9);
+    }
+
+    @Test
+    public void mutationReusesStoredStates() {
+        Game game = createGame(new RandomPlayer(new Random(1)));
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        Random rnd = new Random(47);
+        RHEAIndividual individual = new RHEAIndividual(10, 0.9, fm, state, 0, rnd, heuristic,
+                new RandomPlayer(new Random(2)), true);
+        assertEquals(10, individual.length);
+        assertConsistent(individual, 0);
+        for (int i = 0; i < 50; i++) {
+            AbstractGameState[] before = individual.gameStates.clone();
+            individual.mutate(fm, 0, 1);
+            assertConsistent(individual, 0);
+            // the states up to the first change are kept, and none after it are
+            int kept = 0;
+            while (kept <= individual.length && individual.gameStates[kept] == before[kept])
+                kept++;
+            for (int j = kept; j <= individual.length; j++)
+                assertNotSame(before[j], individual.gameStates[j]);
+            assertTrue(kept > 0);
+        }
+    }
+
+    @Test
+    public void crossoverStartsFromFirstChangedGene() {
+        Game game = createGame(new RandomPlayer(new Random(1)));
+        AbstractForwardModel fm = game.getForwardModel();
+        Random rnd = new Random(47);
+        RHEAIndividual p1 = new RHEAIndividual(10, 0.9, fm, game.getGameState(), 0, rnd, heuristic,
+                new RandomPlayer(new Random(2)), true);
+        RHEAIndividual p2 = new RHEAIndividual(10, 0.9, fm, game.getGameState(), 0, rnd, heuristic,
+                new RandomPlayer(new Random(3)), true);
+        RHEAIndividual child = new RHEAIndividual(p1);
+        for (int i = 5; i < 10; i++)
+            child.copyGene(p2, i, i);
+        int firstChange = 5;
+        while (firstChange < 10 && p1.actions[firstChange].equals(p2.actions[firstChange]))
+            firstChange++;
+        assertEquals(firstChange, child.stateLimit);
+        // the child keeps p1's states, and those before the first change are not changed by the next rollout
+        for (int i = 0; i < 10; i++)
+            assertSame(p1.gameStates[i], child.gameStates[i]);
+        child.mutate(fm, 0, 1);
+        assertConsistent(child, 0);
+        assertSame(p1.gameStates[0], child.gameStates[0]);
+        assertEquals(10, child.stateLimit);
+    }
+
+    private RHEAPlayer firstDecision(boolean closedLoop) {
+        RHEAParams params = new RHEAParams();
+        params.setRandomSeed(9332);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 20;
+        params.closedLoop = closedLoop;
+        RHEAPlayer player = new RHEAPlayer(params);
+        createGame(player).oneAction();
+        return player;
+    }
+
+    @Test
+    public void closedLoopUsesFewerCopies() {
+        RHEAPlayer open = firstDecision(false);
+        RHEAPlayer closed = firstDecision(true);
+        assertEquals(20, open.numIters);
+        assertEquals(20, closed.numIters);
+        assertTrue(closed.copyCalls < open.copyCalls);
+    }
+
+    @Test
+    public void closedLoopGameRuns() {
+        RHEAParams params = new RHEAParams();
+        params.setRandomSeed(9332);
+        params.budgetType = PlayerConstants.BUDGET_FM_CALLS;
+        params.budget = 500;
+        params.closedLoop = true;
+        params.shiftLeft = true;
+        for (RHEAEnums.CrossoverType crossover : RHEAEnums.CrossoverType.values()) {
+            params.crossoverType = crossover;
+            Game game = createGame(new RHEAPlayer(params));
+            game.run();
+            assertFalse(game.getGameState().isNotTerminal());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package players.rhea;
+
+import core.AbstractPlayer;
+import core.Game;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParallelEvaluationTests {
+
+    private RHEAParams createParams(int nThreads) {
+        RHEAParams params = new RHEAParams();
+        params.setRandomSeed(9332);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 30;
+        params.nThreads = nThreads;
+        return params;
+    }
+
+    private Game createGame(AbstractPlayer player) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(player);
+        players.add(new RandomPlayer(new Random(3023)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 42);
+        game.reset(players);
+        return game;
+    }
+
+    private RHEAPlayer firstDecision(RHEAParams params) {
+        RHEAPlayer player = new RHEAPlayer(params);
+        createGame(player).oneAction();
+        player.finalizePlayer(null);
+        return player;
+    }
+
+    private void assertSameSearch(RHEAPlayer a, RHEAPlayer b) {
+        assertEquals(a.numIters, b.numIters);
+        assertEquals(a.fmCalls, b.fmCalls);
+        assertEquals(a.copyCalls, b.copyCalls);
+        assertEquals(a.population.size(), b.population.size());
+        for (int i = 0; i < a.population.size(); i++) {
+            assertEquals(a.population.get(i).value, b.population.get(i).value, 1e-12);
+            assertEquals(a.population.get(i).length, b.population.get(i).length);
+        }
+    }
+
+    // (MAST is not used here, as its statistics are keyed on the hash codes of actions, and these depend on the IDs
+    // of the components in each game)
+    @Test
+    public void resultsDoNotDependOnThreads() {
+        RHEAPlayer twoThreads = firstDecision(createParams(2));
+        assertEquals(30, twoThreads.numIters);
+        assertSameSearch(twoThreads, firstDecision(createParams(2)));
+        assertSameSearch(twoThreads, firstDecision(createParams(3)));
+        assertSameSearch(twoThreads, firstDecision(createParams(8)));
+
+        RHEAParams closedLoop = createParams(2);
+        closedLoop.closedLoop = true;
+        RHEAParams closedLoop4 = createParams(4);
+        closedLoop4.closedLoop = true;
+        assertSameSearch(firstDecision(closedLoop), firstDecision(closedLoop4));
+    }
+
+    @Test
+    public void fmBudgetIsRespected() {
+        RHEAParams params = createParams(4);
+        params.budgetType = PlayerConstants.BUDGET_FM_CALLS;
+        params.budget = 2000;
+        RHEAPlayer parallel = firstDecision(params);
+        RHEAParams serialParams = createParams(1);
+        serialParams.budgetType = PlayerConstants.BUDGET_FM_CALLS;
+        serialParams.budget = 2000;
+        RHEAPlayer serial = firstDecision(serialParams);
+        // the budget is checked after each generation in both cases
+        assertTrue(parallel.fmCalls >= 2000);
+        assertTrue(serial.fmCalls >= 2000);
+        assertTrue(Math.abs(parallel.numIters - serial.numIters) <= 2);
+    }
+
+    @Test
+    public void gameRunsInParallel() {
+        RHEAParams params = createParams(4);
+        params.shiftLeft = true;
+        params.useMAST = true;
+        RHEAPlayer player = new RHEAPlayer(params);
+        Game game = createGame(player);
+        game.run();
+        assertFalse(game.getGameState().isNotTerminal());
+    }
+}
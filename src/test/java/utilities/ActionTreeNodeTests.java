@@ -0,0 +1,132 @@
+package utilities;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.ITreeActionSpace;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ActionTreeNodeTests {
+
+    private ActionTreeNode smallTree() {
+        ActionTreeNode root = new ActionTreeNode(0, "root");
+        for (int x = 0; x < 3; x++) {
+            ActionTreeNode xNode = root.addChild(0, "X" + x);
+            for (int y = 0; y < 3; y++)
+                xNode.addChild(0, "Y" + y);
+        }
+        return root;
+    }
+
+    @Test
+    public void leafMaskFollowsValues() {
+        ActionTreeNode root = smallTree();
+        assertEquals(9, root.getLeafNodes().size());
+        assertArrayEquals(new int[9], root.getLeafMask());
+        root.clearDirty();
+        assertTrue(root.getDirtyFrom() >= root.getDirtyTo());
+
+        root.findChildrenByName("X1").findChildrenByName("Y2").setAction(new core.actions.DoNothing());
+        assertEquals(1, root.findChildrenByName("X1").getValue());
+        assertEquals(1, root.getLeafValue(5));
+        assertEquals(5, root.getDirtyFrom());
+        assertEquals(6, root.getDirtyTo());
+
+        root.findChildrenByName("X2").findChildrenByName("Y0").setValue(1);
+        assertEquals(5, root.getDirtyFrom());
+        assertEquals(7, root.getDirtyTo());
+        int[] mask = new int[11];
+        root.writeLeafMask(mask, 2);
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 0, 0, 1, 1, 0, 0}, mask);
+    }
+
+    @Test
+    public void resetOnlyClearsSetNodes() {
+        ActionTreeNode root = smallTree();
+        root.resetTree();
+        ActionTreeNode x0 = root.findChildrenByName("X0");
+        x0.findChildrenByName("Y1").setAction(new core.actions.DoNothing());
+        root.findChildrenByName("X2", true);
+        root.clearDirty();
+        root.resetTree();
+        for (int value : root.getActionMask())
+            assertEquals(0, value);
+        assertNull(x0.findChildrenByName("Y1").getAction());
+        assertEquals(1, root.getDirtyFrom());
+        assertEquals(2, root.getDirtyTo());
+        // and nodes set after that reset are cleared by the next one
+        x0.findChildrenByName("Y0").setValue(1);
+        root.resetTree();
+        assertArrayEquals(new int[9], root.getLeafMask());
+    }
+
+    @Test
+    public void indexIsRebuiltWhenTreeChanges() {
+        ActionTreeNode root = smallTree();
+        assertEquals(9, root.getLeafNodes().size());
+        ActionTreeNode x1 = root.findChildrenByName("X1");
+        assertNull(x1.findChildrenByName("Y3"));
+        ActionTreeNode y3 = x1.addChild(1, "Y3");
+        assertSame(y3, x1.findChildrenByName("Y3"));
+        assertEquals(10, root.getLeafNodes().size());
+        assertEquals(1, root.getLeafValue(6));
+        // Y0 under X1 becomes an internal node
+        ActionTreeNode y0 = x1.findChildrenByName("Y0");
+        y0.addChild(0, "Z0");
+        y0.setValue(1);
+        assertEquals(10, root.getLeafNodes().size());
+        assertArrayEquals(new int[]{0, 0, 0, 0, 0, 1, 0, 0, 0, 0}, root.getLeafMask());
+    }
+
+    private void assertSameTree(ActionTreeNode expected, ActionTreeNode actual) {
+        assertArrayEquals(expected.getActionMask(), actual.getActionMask());
+        assertArrayEquals(expected.getLeafMask(), actual.getLeafMask());
+        List<ActionTreeNode> expectedLeaves = expected.getLeafNodes();
+        List<ActionTreeNode> actualLeaves = actual.getLeafNodes();
+        for (int i = 0; i < expectedLeaves.size(); i++)
+            assertEquals(expectedLeaves.get(i).getAction(), actualLeaves.get(i).getAction());
+    }
+
+    // The tree updated in place from one state to the next matches one built from scratch in each state
+    private void checkGame(GameType gameType, int nPlayers) {
+        Random rnd = new Random(1234);
+        List<AbstractPlayer> players = new ArrayList<>();
+        for (int p = 0; p < nPlayers; p++)
+            players.add(new RandomPlayer(new Random(p)));
+        Game game = gameType.createGameInstance(nPlayers, 42);
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        ITreeActionSpace treeFM = (ITreeActionSpace) fm;
+        ActionTreeNode root = treeFM.initActionTree(state);
+        int steps = 0;
+        while (state.isNotTerminal() && steps < 300) {
+            root = treeFM.updateActionTree(root, state);
+            ActionTreeNode fresh = treeFM.updateActionTree(treeFM.initActionTree(state), state);
+            assertSameTree(fresh, root);
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+            steps++;
+        }
+    }
+
+    @Test
+    public void gameTreesMatchFullRebuild() {
+        checkGame(GameType.TicTacToe, 2);
+        checkGame(GameType.LoveLetter, 3);
+        checkGame(GameType.Stratego, 2);
+        checkGame(GameType.ExplodingKittens, 3);
+        checkGame(GameType.SushiGo, 3);
+        checkGame(GameType.Diamant, 3);
+    }
+}